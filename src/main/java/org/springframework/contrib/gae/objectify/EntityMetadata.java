@@ -28,6 +28,17 @@ public interface EntityMetadata {
     @Nonnull
     <E> Class<?> getIdType(Class<E> entityClass);
 
+    /**
+     * @param entityClass Entity class.
+     * @param <E>         Entity type.
+     * @param <I>         Entity id type.
+     * @return The compiled id accessor for the given entity class, shared with other users of the class.
+     */
+    @Nonnull
+    default <E, I> IdAccessor<E, I> getIdAccessor(Class<E> entityClass) {
+        return IdAccessor.of(entityClass, this::getIdField);
+    }
+
     /**
      * Get the id of an entity.
      *
@@ -39,13 +50,8 @@ public interface EntityMetadata {
     @Nullable
     @SuppressWarnings("unchecked")
     default <E, I> I getId(E entity) {
-        Class<?> type = entity.getClass();
-
-        try {
-            return (I) getIdField(type).get(entity);
-        } catch (IllegalAccessException cause) {
-            throw new IllegalArgumentException(String.format("Cannot get id for entity %s \nof type %s", entity, type), cause);
-        }
+        Class<E> type = (Class<E>) entity.getClass();
+        return this.<E, I>getIdAccessor(type).get(entity);
     }
 
     /**
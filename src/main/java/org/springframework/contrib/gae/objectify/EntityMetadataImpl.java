@@ -4,8 +4,8 @@ import org.apache.commons.lang3.reflect.FieldUtils;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Basic {@link EntityMetadata} implementation.
@@ -13,8 +13,8 @@ import java.util.Map;
 public class EntityMetadataImpl implements EntityMetadata {
     private final ObjectifyProxy objectify;
 
-    private final Map<Class<?>, Field> idFieldCache = new HashMap<>();
-    private final Map<Class<?>, Class<?>> idTypeCache = new HashMap<>();
+    private final Map<Class<?>, Field> idFieldCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Class<?>> idTypeCache = new ConcurrentHashMap<>();
 
     /**
      * Create a new instance.
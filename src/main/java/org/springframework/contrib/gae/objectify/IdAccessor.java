@@ -0,0 +1,176 @@
+package org.springframework.contrib.gae.objectify;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.annotation.Parent;
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compiled accessor for the id of an entity class.
+ * <p>
+ * The id field is resolved once per class and bound to {@link MethodHandle} getters and setters, so reading and writing ids
+ * (and building keys for root entities) does not go through Objectify metadata lookups or reflective field access on each call.
+ * Accessors are held in a thread-safe registry shared by everything that reads entity ids, see {@link #of(Class, Function)}.
+ *
+ * @param <E> Entity type.
+ * @param <I> Entity id type.
+ */
+public class IdAccessor<E, I> {
+    private static final Map<Class<?>, IdAccessor<?, ?>> ACCESSORS = new ConcurrentHashMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<E> entityType;
+    private final Field field;
+    private final boolean hasParent;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    /**
+     * Create a new instance.
+     *
+     * @param entityType Entity class.
+     * @param field      Id field of the entity class.
+     */
+    public IdAccessor(Class<E> entityType, Field field) {
+        this.entityType = entityType;
+        this.field = field;
+        this.hasParent = !FieldUtils.getFieldsListWithAnnotation(entityType, Parent.class).isEmpty();
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        field.setAccessible(true);
+        try {
+            this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Cannot access id field %s of entity type %s", field.getName(), entityType.getSimpleName()), e);
+        }
+        this.setter = findSetter(lookup, field);
+    }
+
+    /**
+     * Get the accessor for an entity class from the shared registry, creating it on first use.
+     *
+     * @param entityType    Entity class.
+     * @param idFieldLookup Resolves the id field of the entity class if the accessor has not been created yet.
+     * @param <E>           Entity type.
+     * @param <I>           Entity id type.
+     * @return Id accessor.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <E, I> IdAccessor<E, I> of(Class<E> entityType, Function<Class<E>, Field> idFieldLookup) {
+        IdAccessor<?, ?> accessor = ACCESSORS.get(entityType);
+        if (accessor == null) {
+            accessor = ACCESSORS.computeIfAbsent(entityType, type -> new IdAccessor<>(entityType, idFieldLookup.apply(entityType)));
+        }
+        return (IdAccessor<E, I>) accessor;
+    }
+
+    /**
+     * @return The entity class.
+     */
+    @Nonnull
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * @return The id field.
+     */
+    @Nonnull
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Get the id of an entity.
+     *
+     * @param entity The entity.
+     * @return Entity id.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public I get(E entity) {
+        try {
+            return (I) getter.invokeExact((Object) entity);
+        } catch (ClassCastException | WrongMethodTypeException e) {
+            throw new IllegalArgumentException(String.format("Cannot get id for entity type %s - %s", entityType.getSimpleName(), entity), e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Set the id of an entity.
+     *
+     * @param entity The entity.
+     * @param id     The id to set.
+     */
+    public void set(E entity, @Nullable Object id) {
+        if (setter == null) {
+            throw new IllegalArgumentException(String.format("Cannot set id for entity type %s - %s", entityType.getSimpleName(), entity));
+        }
+        try {
+            setter.invokeExact((Object) entity, id);
+        } catch (ClassCastException | WrongMethodTypeException e) {
+            throw new IllegalArgumentException(String.format("Cannot set id for entity type %s - %s", entityType.getSimpleName(), entity), e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the key of an entity.
+     * Keys for root entities are built directly from the id, entities with a parent fall back to {@link Key#create(Object)}.
+     *
+     * @param entity The entity.
+     * @return Entity key.
+     * @throws IllegalArgumentException If the entity has no id.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public Key<E> getKey(E entity) {
+        I id = get(entity);
+        if (hasParent || id == null) {
+            // let objectify resolve the parent and report missing ids consistently
+            return Key.create(entity);
+        }
+        Class<? extends E> kind = (Class<? extends E>) entity.getClass();
+        if (id instanceof String) {
+            return Key.create(kind, (String) id);
+        }
+        return Key.create(kind, ((Number) id).longValue());
+    }
+
+    /**
+     * @param entity The entity.
+     * @return Whether the entity has an id.
+     */
+    public boolean hasId(E entity) {
+        return get(entity) != null;
+    }
+
+    @Nullable
+    private static MethodHandle findSetter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            // final id fields can be read but not assigned
+            return null;
+        }
+    }
+}
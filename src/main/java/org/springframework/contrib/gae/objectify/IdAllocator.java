@@ -0,0 +1,114 @@
+package org.springframework.contrib.gae.objectify;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyFactory;
+import com.googlecode.objectify.impl.KeyMetadata;
+import org.springframework.util.Assert;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Hands out datastore ids for new entities from ranges pre-allocated with {@link ObjectifyFactory#allocateIds(Class, long)}.
+ * <p>
+ * Assigning an id before an entity is saved means the entity key is known up front, so work that depends on the key
+ * (e.g. search indexing) can run in parallel with the datastore put instead of waiting for the datastore to generate an id.
+ * Ranges are fetched per kind in blocks, so most allocations do not require a datastore round trip.
+ * <p>
+ * Only root entities with a {@link Long} id are supported, see {@link #supports(Class)}.
+ */
+public class IdAllocator {
+    /**
+     * Default number of ids fetched per allocation round trip.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final Supplier<ObjectifyFactory> factory;
+    private final int blockSize;
+
+    private final Map<Class<?>, Boolean> supported = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new instance fetching {@value DEFAULT_BLOCK_SIZE} ids at a time.
+     *
+     * @param objectify Objectify proxy.
+     */
+    public IdAllocator(ObjectifyProxy objectify) {
+        this(objectify::factory, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param factory   Supplies the Objectify factory used to allocate ids.
+     * @param blockSize Number of ids fetched per allocation round trip.
+     */
+    public IdAllocator(Supplier<ObjectifyFactory> factory, int blockSize) {
+        Assert.isTrue(blockSize > 0, "Block size must be greater than zero");
+
+        this.factory = factory;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Return whether ids can be allocated for the given entity class.
+     * Entities with a parent are not supported as their ids are allocated within the parent's key space.
+     *
+     * @param entityClass Entity class.
+     * @return True if ids can be allocated for the entity class.
+     */
+    public boolean supports(Class<?> entityClass) {
+        return supported.computeIfAbsent(entityClass, type -> {
+            KeyMetadata<?> keyMetadata = factory.get().getMetadata(type).getKeyMetadata();
+            return Long.class.equals(keyMetadata.getIdFieldType()) && !keyMetadata.hasParentField();
+        });
+    }
+
+    /**
+     * Allocate a single key.
+     *
+     * @param entityClass Entity class.
+     * @param <E>         Entity type.
+     * @return Allocated key.
+     */
+    @Nonnull
+    public <E> Key<E> allocate(Class<E> entityClass) {
+        return allocate(entityClass, 1).get(0);
+    }
+
+    /**
+     * Allocate a number of keys.
+     *
+     * @param entityClass Entity class.
+     * @param count       Number of keys to allocate.
+     * @param <E>         Entity type.
+     * @return Allocated keys.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <E> List<Key<E>> allocate(Class<E> entityClass, int count) {
+        Block block = blocks.computeIfAbsent(entityClass, type -> new Block());
+        List<Key<E>> result = new ArrayList<>(count);
+
+        synchronized (block) {
+            while (result.size() < count) {
+                if (block.keys == null || !block.keys.hasNext()) {
+                    long size = Math.max(blockSize, count - result.size());
+                    block.keys = factory.get().allocateIds(entityClass, size).iterator();
+                }
+                result.add((Key<E>) block.keys.next());
+            }
+        }
+        return result;
+    }
+
+    private static class Block {
+        private Iterator<? extends Key<?>> keys;
+    }
+}
@@ -1,15 +1,23 @@
 package org.springframework.contrib.gae.objectify;
 
 import com.googlecode.objectify.Key;
+import com.googlecode.objectify.Objectify;
 import com.googlecode.objectify.Ref;
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.springframework.contrib.gae.objectify.config.StaticObjectifyProxy;
 import org.springframework.contrib.gae.util.Nulls;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.springframework.contrib.gae.util.Nulls.ifNotNull;
@@ -18,6 +26,7 @@ import static org.springframework.contrib.gae.util.Nulls.ifNotNull;
  * Utility methods for handling Objectify {@link Key}s and {@link Ref}s.
  */
 public class Refs {
+    private static final Map<Class<?>, Map<String, Field>> FIELDS = new ConcurrentHashMap<>();
 
     /**
      * Create a {@link Ref} for the given entity.
@@ -55,6 +64,7 @@ public class Refs {
      * @return List of references.
      */
     @SafeVarargs
+    @SuppressWarnings("varargs")
     public static <E> List<Ref<E>> ref(E... entities) {
         return ref(Arrays.asList(entities));
     }
@@ -96,6 +106,7 @@ public class Refs {
      */
     @Nonnull
     @SafeVarargs
+    @SuppressWarnings("varargs")
     public static <E> List<Ref<E>> refKeys(Key<E>... keys) {
         return refKeys(Arrays.asList(keys));
     }
@@ -124,6 +135,22 @@ public class Refs {
         return ifNotNull(entity, Key::create);
     }
 
+    /**
+     * Create a key for the given entity, if it has an id.
+     *
+     * @param entity The entity.
+     * @param <E>    Entity type.
+     * @return Entity key or null if the entity has no id yet.
+     */
+    @Nullable
+    public static <E> Key<E> keyIfIdentified(E entity) {
+        try {
+            return Key.create(entity);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Create keys for a list of entities.
      *
@@ -146,7 +173,8 @@ public class Refs {
      * @return List of keys.
      */
     @Nonnull
-    @SuppressWarnings("unchecked")
+    @SafeVarargs
+    @SuppressWarnings("varargs")
     public static <E> List<Key<E>> key(E... entities) {
         return key(Arrays.asList(entities));
     }
@@ -164,16 +192,21 @@ public class Refs {
     }
 
     /**
-     * Dereference a collection of {@link Ref}s by loading the referenced entity.
+     * Dereference a collection of {@link Ref}s by loading the referenced entities in a single batch get.
      *
      * @param refs The {@link Ref}s.
      * @param <E>  Referenced entity type.
-     * @return List of dereferenced entities.
+     * @return List of dereferenced entities, in the same order as the refs. Nulls result in nulls.
      */
     @Nonnull
     public static <E> List<E> deref(Collection<Ref<E>> refs) {
+        List<Ref<E>> toLoad = refs.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Key<E>, E> loaded = toLoad.isEmpty() ? new LinkedHashMap<>() : ofy().load().refs(toLoad);
+
         return refs.stream()
-                .map(Refs::deref)
+                .map(ref -> ref == null ? null : loaded.get(ref.getKey()))
                 .collect(Collectors.toList());
     }
 
@@ -186,6 +219,7 @@ public class Refs {
      */
     @Nonnull
     @SafeVarargs
+    @SuppressWarnings("varargs")
     public static <E> List<E> deref(Ref<E>... refs) {
         return deref(Arrays.asList(refs));
     }
@@ -200,24 +234,28 @@ public class Refs {
     @Nullable
     public static <E> E load(@Nullable Key<E> key) {
         return ifNotNull(key,
-                k -> StaticObjectifyProxy.get()
-                        .ofy()
+                k -> ofy()
                         .load()
                         .key(k)
                         .now());
     }
 
     /**
-     * Dereference a collection of {@link Key}s by loading the referenced entity.
+     * Dereference a collection of {@link Key}s by loading the referenced entities in a single batch get.
      *
      * @param keys The {@link Key}s.
      * @param <E>  Referenced entity type.
-     * @return List of dereferenced entities.
+     * @return List of dereferenced entities, in the same order as the keys. Nulls result in nulls.
      */
     @Nonnull
     public static <E> List<E> load(Collection<Key<E>> keys) {
+        List<Key<E>> toLoad = keys.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Key<E>, E> loaded = toLoad.isEmpty() ? new LinkedHashMap<>() : ofy().load().keys(toLoad);
+
         return keys.stream()
-                .map(Refs::load)
+                .map(key -> key == null ? null : loaded.get(key))
                 .collect(Collectors.toList());
     }
 
@@ -230,7 +268,112 @@ public class Refs {
      */
     @Nonnull
     @SafeVarargs
+    @SuppressWarnings("varargs")
     public static <E> List<E> load(Key<E>... keys) {
         return load(Arrays.asList(keys));
     }
+
+    /**
+     * Prefetch the {@link Ref}s reachable from the given entities along the given paths.
+     * <p>
+     * Each path is a dot separated list of field names, e.g. {@code "owner.company"} loads the {@code owner} ref of each entity,
+     * then the {@code company} ref of each owner. Fields may hold a single {@link Ref} or a collection or map of refs.
+     * The graph is resolved level by level, with all refs found at the same depth (across all entities and paths) loaded in
+     * one batch get. Loaded entities are held in the Objectify session, so dereferencing the refs afterwards does not
+     * require further datastore reads.
+     *
+     * @param entities The entities to prefetch from.
+     * @param paths    Paths to the refs to prefetch.
+     * @throws IllegalArgumentException If a path names a field that does not exist.
+     */
+    public static void prefetch(Collection<?> entities, String... paths) {
+        PathNode root = new PathNode();
+        for (String path : paths) {
+            PathNode node = root;
+            for (String segment : path.split("\\.")) {
+                node = node.children.computeIfAbsent(segment, name -> new PathNode());
+            }
+        }
+
+        List<Object> level = new ArrayList<>();
+        List<PathNode> levelNodes = new ArrayList<>();
+        entities.stream().filter(Objects::nonNull).forEach(entity -> {
+            level.add(entity);
+            levelNodes.add(root);
+        });
+
+        while (!level.isEmpty()) {
+            List<Ref<Object>> refs = new ArrayList<>();
+            List<PathNode> refNodes = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                Object entity = level.get(i);
+                levelNodes.get(i).children.forEach((name, child) -> {
+                    for (Ref<Object> ref : refsOf(readField(entity, name))) {
+                        refs.add(ref);
+                        refNodes.add(child);
+                    }
+                });
+            }
+            if (refs.isEmpty()) {
+                return;
+            }
+
+            Map<Key<Object>, Object> loaded = ofy().load().refs(refs);
+
+            level.clear();
+            levelNodes.clear();
+            for (int i = 0; i < refs.size(); i++) {
+                Object entity = loaded.get(refs.get(i).getKey());
+                PathNode node = refNodes.get(i);
+                if (entity != null && !node.children.isEmpty()) {
+                    level.add(entity);
+                    levelNodes.add(node);
+                }
+            }
+        }
+    }
+
+    private static Objectify ofy() {
+        return StaticObjectifyProxy.get().ofy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Ref<Object>> refsOf(@Nullable Object value) {
+        Collection<?> values;
+        if (value instanceof Ref) {
+            return Arrays.asList((Ref<Object>) value);
+        } else if (value instanceof Collection) {
+            values = (Collection<?>) value;
+        } else if (value instanceof Map) {
+            values = ((Map<?, ?>) value).values();
+        } else {
+            return new ArrayList<>();
+        }
+        return values.stream()
+                .filter(Ref.class::isInstance)
+                .map(ref -> (Ref<Object>) ref)
+                .collect(Collectors.toList());
+    }
+
+    @Nullable
+    private static Object readField(Object entity, String name) {
+        Field field = FIELDS
+                .computeIfAbsent(entity.getClass(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, fieldName -> {
+                    Field found = FieldUtils.getField(entity.getClass(), fieldName, true);
+                    if (found == null) {
+                        throw new IllegalArgumentException(String.format("No field '%s' on %s", fieldName, entity.getClass().getName()));
+                    }
+                    return found;
+                });
+        try {
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Cannot read field '%s' on %s", name, entity.getClass().getName()), e);
+        }
+    }
+
+    private static class PathNode {
+        private final Map<String, PathNode> children = new LinkedHashMap<>();
+    }
 }
@@ -4,9 +4,14 @@ import com.googlecode.objectify.Objectify;
 import com.googlecode.objectify.ObjectifyFilter;
 import com.googlecode.objectify.impl.translate.Translators;
 import com.googlecode.objectify.impl.translate.opt.BigDecimalLongTranslatorFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,7 +19,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.contrib.gae.objectify.EntityMetadata;
 import org.springframework.contrib.gae.objectify.EntityMetadataImpl;
 import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.metrics.MicrometerRepositoryMetrics;
+import org.springframework.contrib.gae.objectify.metrics.RepositoryMetrics;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
+import org.springframework.contrib.gae.objectify.rpc.RpcBudgetFilter;
+import org.springframework.contrib.gae.objectify.rpc.RpcCountingDelegate;
 import org.springframework.contrib.gae.objectify.translator.Jsr310Translators;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindFilter;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
@@ -26,11 +37,19 @@ import java.util.List;
  * <ul>
  * <li>Registers an {@link ObjectifyProxy} configured by any registered {@link ObjectifyConfigurer} beans.</li>
  * <li>Registers the {@link ObjectifyFilter} to manage Objectify sessions per-request.</li>
+ * <li>Registers the {@link EntityCaches} holding the in-process caches of generated repositories.</li>
+ * <li>Installs the {@link RpcCountingDelegate} and registers the {@link RpcBudgetFilter} to count datastore and search
+ * calls per-request, if {@code spring.contrib.gae.objectify.rpc-budget.enabled} is set.</li>
+ * <li>Registers the {@link WriteBehindFilter} to coalesce repository writes per-request, if
+ * {@code spring.contrib.gae.objectify.write-behind} is enabled.</li>
+ * <li>Registers {@link MicrometerRepositoryMetrics} to instrument generated repositories, if Micrometer is available.</li>
  * </ul>
  */
 @Configuration
 @ConditionalOnClass(Objectify.class)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 @ConditionalOnMissingBean(ObjectifyProxy.class)
+@EnableConfigurationProperties(RpcBudgetProperties.class)
 @Import(ObjectifyRepositoriesAutoConfigurationRegistrar.class)
 public class ObjectifyAutoConfiguration {
 
@@ -85,6 +104,15 @@ public class ObjectifyAutoConfiguration {
         return new EntityMetadataImpl(objectify);
     }
 
+    /**
+     * @return Register the registry of in-process caches shared by the repositories of each kind.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public EntityCaches entityCaches() {
+        return new EntityCaches();
+    }
+
     /**
      * @return Register the {@link ObjectifyFilter}.
      */
@@ -96,6 +124,34 @@ public class ObjectifyAutoConfiguration {
         return reg;
     }
 
+    /**
+     * @return Register the {@link WriteBehindFilter} inside the {@link ObjectifyFilter}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.contrib.gae.objectify.write-behind", havingValue = "true")
+    @ConditionalOnMissingBean(WriteBehindFilter.class)
+    public FilterRegistrationBean<WriteBehindFilter> registerWriteBehindFilter() {
+        FilterRegistrationBean<WriteBehindFilter> reg = new FilterRegistrationBean<>(new WriteBehindFilter());
+        reg.setOrder(Integer.MIN_VALUE + 2);  // must run within the objectify session so writes flush before it closes
+        return reg;
+    }
+
+    /**
+     * Also installs the {@link RpcCountingDelegate} the filter's counters rely on.
+     *
+     * @param properties Budget configuration.
+     * @return Register the {@link RpcBudgetFilter} inside the {@link ObjectifyFilter}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.contrib.gae.objectify.rpc-budget.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(RpcBudgetFilter.class)
+    public FilterRegistrationBean<RpcBudgetFilter> registerRpcBudgetFilter(RpcBudgetProperties properties) {
+        RpcCountingDelegate.install();  // once for the life of the instance, each request only binds its own counter
+        FilterRegistrationBean<RpcBudgetFilter> reg = new FilterRegistrationBean<>(new RpcBudgetFilter(properties.toBudget(), properties.getAction()));
+        reg.setOrder(Integer.MIN_VALUE + 1);  // outside the write-behind filter so flushed writes are counted
+        return reg;
+    }
+
     private void registerTranslators(Translators translators) {
         configurers.stream()
                 .flatMap(configurer -> configurer.registerObjectifyTranslators().stream())
@@ -108,4 +164,23 @@ public class ObjectifyAutoConfiguration {
     private void registerEntities(ObjectifyProxy objectify) {
         configurers.forEach(configurer -> objectify.register(configurer.registerObjectifyEntities()));
     }
+
+    /**
+     * Repository metrics exported through Micrometer.
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class RepositoryMetricsConfiguration {
+
+        /**
+         * @param registry Micrometer registry.
+         * @return Register the {@link RepositoryMetrics} used to instrument generated repositories.
+         */
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnMissingBean(RepositoryMetrics.class)
+        public RepositoryMetrics repositoryMetrics(MeterRegistry registry) {
+            return new MicrometerRepositoryMetrics(registry);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package org.springframework.contrib.gae.objectify.config;
+
+import com.google.appengine.api.taskqueue.QueueFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.reindex.ReindexCheckpoint;
+import org.springframework.contrib.gae.objectify.reindex.ReindexController;
+import org.springframework.contrib.gae.objectify.reindex.ReindexCoordinator;
+import org.springframework.contrib.gae.objectify.reindex.ReindexJob;
+import org.springframework.contrib.gae.objectify.reindex.ReindexService;
+import org.springframework.contrib.gae.objectify.repository.SearchRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Checkpointed reindex configuration.
+ * Registers the {@link ReindexService}, the {@link ReindexCoordinator} for distributed jobs and the task handler that chains
+ * reindex jobs across requests, if {@code spring.contrib.gae.objectify.reindex.enabled} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.contrib.gae.objectify.reindex.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReindexProperties.class)
+public class ReindexAutoConfiguration implements ObjectifyConfigurer {
+
+    private final ReindexProperties properties;
+
+    public ReindexAutoConfiguration(ReindexProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Collection<Class<?>> registerObjectifyEntities() {
+        return Arrays.asList(ReindexCheckpoint.class, ReindexJob.class);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReindexService reindexService(ObjectifyProxy objectify, ObjectProvider<SearchRepository<?, ?>> repositories) {
+        return new ReindexService(
+                objectify,
+                QueueFactory.getQueue(properties.getQueue()),
+                repositories.orderedStream().collect(Collectors.toList()),
+                properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReindexCoordinator reindexCoordinator(ObjectifyProxy objectify, ReindexService reindexService) {
+        return new ReindexCoordinator(objectify, reindexService);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(name = "org.springframework.web.servlet.DispatcherServlet")
+    public ReindexController reindexController(ReindexService reindexService) {
+        return new ReindexController(reindexService);
+    }
+}
@@ -0,0 +1,98 @@
+package org.springframework.contrib.gae.objectify.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.contrib.gae.objectify.repository.LoadRepository;
+
+import java.time.Duration;
+
+/**
+ * Checkpointed reindex configuration properties.
+ */
+@ConfigurationProperties("spring.contrib.gae.objectify.reindex")
+public class ReindexProperties {
+
+    /**
+     * Whether to register the checkpointed reindex service and its task handler.
+     */
+    private boolean enabled;
+
+    /**
+     * Queue used to chain reindex requests.
+     */
+    private String queue = "default";
+
+    /**
+     * Path of the task handler that continues a reindex job.
+     */
+    private String path = "/task/reindex";
+
+    /**
+     * Number of entities reindexed per batch. A checkpoint is saved after each batch.
+     */
+    private int batchSize = LoadRepository.BATCH_SIZE;
+
+    /**
+     * How long a single request may reindex before the job is continued in a new task.
+     * Must leave time for the last batch within the request deadline.
+     */
+    private Duration maxRequestDuration = Duration.ofMinutes(8);
+
+    /**
+     * Number of failed batches after which a job is marked as failed.
+     */
+    private int maxErrors = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ReindexProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public ReindexProperties setQueue(String queue) {
+        this.queue = queue;
+        return this;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public ReindexProperties setPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public ReindexProperties setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Duration getMaxRequestDuration() {
+        return maxRequestDuration;
+    }
+
+    public ReindexProperties setMaxRequestDuration(Duration maxRequestDuration) {
+        this.maxRequestDuration = maxRequestDuration;
+        return this;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public ReindexProperties setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+        return this;
+    }
+}
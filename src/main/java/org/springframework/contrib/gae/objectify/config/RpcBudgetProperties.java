@@ -0,0 +1,153 @@
+package org.springframework.contrib.gae.objectify.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.contrib.gae.objectify.rpc.RpcBudget;
+import org.springframework.contrib.gae.objectify.rpc.RpcBudgetFilter;
+import org.springframework.contrib.gae.objectify.rpc.RpcType;
+
+/**
+ * Per-request datastore and search call budget configuration properties.
+ */
+@ConfigurationProperties("spring.contrib.gae.objectify.rpc-budget")
+public class RpcBudgetProperties {
+
+    /**
+     * Whether to count the datastore and search calls of each request and check them against the budget.
+     */
+    private boolean enabled;
+
+    /**
+     * What to do when a request exceeds the budget.
+     */
+    private RpcBudgetFilter.Action action = RpcBudgetFilter.Action.LOG;
+
+    /**
+     * Maximum datastore gets per request. Unlimited if not set.
+     */
+    private Integer maxGets;
+
+    /**
+     * Maximum datastore puts per request. Unlimited if not set.
+     */
+    private Integer maxPuts;
+
+    /**
+     * Maximum datastore deletes per request. Unlimited if not set.
+     */
+    private Integer maxDeletes;
+
+    /**
+     * Maximum datastore queries per request, including fetching further batches of results. Unlimited if not set.
+     */
+    private Integer maxQueries;
+
+    /**
+     * Maximum search calls per request. Unlimited if not set.
+     */
+    private Integer maxSearches;
+
+    /**
+     * Maximum datastore and search calls of any type per request. Unlimited if not set.
+     */
+    private Integer maxTotal;
+
+    /**
+     * Maximum gets of a single key of the same kind per request, above which loads are reported as unbatched (N+1).
+     */
+    private Integer maxSingleGetsPerKind = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RpcBudgetProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public RpcBudgetFilter.Action getAction() {
+        return action;
+    }
+
+    public RpcBudgetProperties setAction(RpcBudgetFilter.Action action) {
+        this.action = action;
+        return this;
+    }
+
+    public Integer getMaxGets() {
+        return maxGets;
+    }
+
+    public RpcBudgetProperties setMaxGets(Integer maxGets) {
+        this.maxGets = maxGets;
+        return this;
+    }
+
+    public Integer getMaxPuts() {
+        return maxPuts;
+    }
+
+    public RpcBudgetProperties setMaxPuts(Integer maxPuts) {
+        this.maxPuts = maxPuts;
+        return this;
+    }
+
+    public Integer getMaxDeletes() {
+        return maxDeletes;
+    }
+
+    public RpcBudgetProperties setMaxDeletes(Integer maxDeletes) {
+        this.maxDeletes = maxDeletes;
+        return this;
+    }
+
+    public Integer getMaxQueries() {
+        return maxQueries;
+    }
+
+    public RpcBudgetProperties setMaxQueries(Integer maxQueries) {
+        this.maxQueries = maxQueries;
+        return this;
+    }
+
+    public Integer getMaxSearches() {
+        return maxSearches;
+    }
+
+    public RpcBudgetProperties setMaxSearches(Integer maxSearches) {
+        this.maxSearches = maxSearches;
+        return this;
+    }
+
+    public Integer getMaxTotal() {
+        return maxTotal;
+    }
+
+    public RpcBudgetProperties setMaxTotal(Integer maxTotal) {
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    public Integer getMaxSingleGetsPerKind() {
+        return maxSingleGetsPerKind;
+    }
+
+    public RpcBudgetProperties setMaxSingleGetsPerKind(Integer maxSingleGetsPerKind) {
+        this.maxSingleGetsPerKind = maxSingleGetsPerKind;
+        return this;
+    }
+
+    /**
+     * @return The configured per-request budget.
+     */
+    public RpcBudget toBudget() {
+        return new RpcBudget()
+                .setLimit(RpcType.GET, maxGets)
+                .setLimit(RpcType.PUT, maxPuts)
+                .setLimit(RpcType.DELETE, maxDeletes)
+                .setLimit(RpcType.QUERY, maxQueries)
+                .setLimit(RpcType.SEARCH, maxSearches)
+                .setMaxTotal(maxTotal)
+                .setMaxSingleGetsPerKind(maxSingleGetsPerKind);
+    }
+}
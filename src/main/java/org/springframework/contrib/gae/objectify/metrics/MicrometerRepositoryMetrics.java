@@ -0,0 +1,73 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RepositoryMetrics} exported through Micrometer.
+ * <p>
+ * Publishes the following meters, tagged with {@code kind}, {@code operation} and {@code method}:
+ * <ul>
+ * <li>{@value #CALL_TIMER} - duration of repository calls, also tagged with {@code outcome}.</li>
+ * <li>{@value #ASYNC_WAIT_TIMER} - time spent waiting on asynchronous results, also tagged with {@code outcome}.</li>
+ * <li>{@value #BATCH_SIZE_SUMMARY} - number of entities, keys or ids handled per call.</li>
+ * </ul>
+ */
+public class MicrometerRepositoryMetrics implements RepositoryMetrics {
+    /**
+     * Name of the repository call timer.
+     */
+    public static final String CALL_TIMER = "gae.repository.calls";
+
+    /**
+     * Name of the asynchronous wait timer.
+     */
+    public static final String ASYNC_WAIT_TIMER = "gae.repository.async.wait";
+
+    /**
+     * Name of the batch size distribution summary.
+     */
+    public static final String BATCH_SIZE_SUMMARY = "gae.repository.batch.size";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Create a new instance.
+     *
+     * @param registry Registry to publish meters to.
+     */
+    public MicrometerRepositoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordCall(String kind, RepositoryOperation operation, String method, long durationNanos, int batchSize, boolean success) {
+        Timer.builder(CALL_TIMER)
+                .description("Objectify repository calls")
+                .tags("kind", kind, "operation", operation.name().toLowerCase(), "method", method, "outcome", outcome(success))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        DistributionSummary.builder(BATCH_SIZE_SUMMARY)
+                .description("Entities, keys or ids handled per Objectify repository call")
+                .tags("kind", kind, "operation", operation.name().toLowerCase(), "method", method)
+                .register(registry)
+                .record(batchSize);
+    }
+
+    @Override
+    public void recordAsyncWait(String kind, RepositoryOperation operation, String method, long durationNanos, boolean success) {
+        Timer.builder(ASYNC_WAIT_TIMER)
+                .description("Time spent waiting on asynchronous Objectify repository operations")
+                .tags("kind", kind, "operation", operation.name().toLowerCase(), "method", method, "outcome", outcome(success))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "error";
+    }
+}
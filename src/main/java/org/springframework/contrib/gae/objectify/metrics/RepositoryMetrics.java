@@ -0,0 +1,31 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+/**
+ * Receives measurements of repository method calls, see {@link RepositoryMetricsInterceptor}.
+ */
+public interface RepositoryMetrics {
+
+    /**
+     * Record a completed repository call.
+     *
+     * @param kind          Entity kind.
+     * @param operation     Operation category.
+     * @param method        Repository method name.
+     * @param durationNanos Time taken by the call, excluding any time later spent waiting on an asynchronous result.
+     * @param batchSize     Number of entities, keys or ids passed to the call, or returned by it for loads and queries.
+     * @param success       Whether the call completed without throwing.
+     */
+    void recordCall(String kind, RepositoryOperation operation, String method, long durationNanos, int batchSize, boolean success);
+
+    /**
+     * Record time spent waiting for an asynchronous operation, i.e. in the {@code Supplier.get()} or {@code Runnable.run()}
+     * of the hook returned by an asynchronous repository method.
+     *
+     * @param kind          Entity kind.
+     * @param operation     Operation category.
+     * @param method        Repository method name.
+     * @param durationNanos Time spent waiting.
+     * @param success       Whether the operation completed without throwing.
+     */
+    void recordAsyncWait(String kind, RepositoryOperation operation, String method, long durationNanos, boolean success);
+}
@@ -0,0 +1,133 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Measures repository method calls and reports them to {@link RepositoryMetrics}.
+ * <p>
+ * Records the duration and batch size of each call that touches the datastore or search index, see
+ * {@link RepositoryOperation#of(Method)}. Asynchronous hooks ({@link Supplier} and {@link Runnable} results) are wrapped so the
+ * time callers spend waiting on them is recorded too. Repository default methods are invoked through the proxy, so calls
+ * they make to other methods of the same repository are intercepted as well; only the outermost of those is recorded.
+ * Calls to other repositories have their own interceptor and are recorded independently.
+ * <p>
+ * Methods returning a lazy {@link Stream}, {@link Iterator} or {@link Iterable} are not recorded, since the datastore is
+ * only read as the result is consumed. Calls they make while being consumed are recorded as usual.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+    private final RepositoryMetrics metrics;
+    private final String kind;
+    private final ThreadLocal<Boolean> inCall = new ThreadLocal<>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param metrics Metrics to report to.
+     * @param kind    Kind of the entity managed by the repository.
+     */
+    public RepositoryMetricsInterceptor(RepositoryMetrics metrics, String kind) {
+        this.metrics = metrics;
+        this.kind = kind;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        RepositoryOperation operation = RepositoryOperation.of(method);
+        if (operation == null || inCall.get() != null || isLazy(method.getReturnType())) {
+            return invocation.proceed();
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        Object result = null;
+        inCall.set(Boolean.TRUE);
+        try {
+            result = invocation.proceed();
+            success = true;
+        } finally {
+            inCall.remove();
+            int batchSize = batchSize(operation, invocation.getArguments(), result);
+            metrics.recordCall(kind, operation, method.getName(), System.nanoTime() - start, batchSize, success);
+        }
+        return wrapAsync(operation, method, result);
+    }
+
+    private Object wrapAsync(RepositoryOperation operation, Method method, Object result) {
+        if (Supplier.class.equals(method.getReturnType()) && result != null) {
+            Supplier<?> supplier = (Supplier<?>) result;
+            return (Supplier<Object>) () -> {
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    Object value = supplier.get();
+                    success = true;
+                    return value;
+                } finally {
+                    metrics.recordAsyncWait(kind, operation, method.getName(), System.nanoTime() - start, success);
+                }
+            };
+        }
+        if (Runnable.class.equals(method.getReturnType()) && result != null) {
+            Runnable runnable = (Runnable) result;
+            return (Runnable) () -> {
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    runnable.run();
+                    success = true;
+                } finally {
+                    metrics.recordAsyncWait(kind, operation, method.getName(), System.nanoTime() - start, success);
+                }
+            };
+        }
+        return result;
+    }
+
+    private static boolean isLazy(Class<?> returnType) {
+        return Stream.class.isAssignableFrom(returnType)
+                || Iterator.class.isAssignableFrom(returnType)
+                || (Iterable.class.isAssignableFrom(returnType) && !Collection.class.isAssignableFrom(returnType));
+    }
+
+    private static int batchSize(RepositoryOperation operation, Object[] arguments, Object result) {
+        if ((operation == RepositoryOperation.LOAD || operation == RepositoryOperation.QUERY) && result != null) {
+            int size = size(result);
+            if (size >= 0) {
+                return size;
+            }
+        }
+        if (arguments.length > 0) {
+            int size = size(arguments[0]);
+            if (size >= 0) {
+                return size;
+            }
+        }
+        return 1;
+    }
+
+    private static int size(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        if (value instanceof Object[]) {
+            return ((Object[]) value).length;
+        }
+        if (value instanceof Optional) {
+            return ((Optional<?>) value).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+import com.googlecode.objectify.Key;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+/**
+ * Instruments generated repositories with a {@link RepositoryMetricsInterceptor}.
+ */
+public class RepositoryMetricsPostProcessor implements RepositoryProxyPostProcessor {
+    private final RepositoryMetrics metrics;
+
+    /**
+     * Create a new instance.
+     *
+     * @param metrics Metrics to report to.
+     */
+    public RepositoryMetricsPostProcessor(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        String kind = Key.getKind(repositoryInformation.getDomainType());
+        factory.addAdvice(new RepositoryMetricsInterceptor(metrics, kind));
+    }
+}
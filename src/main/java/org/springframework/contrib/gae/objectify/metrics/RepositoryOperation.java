@@ -0,0 +1,72 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+import com.googlecode.objectify.Key;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+
+/**
+ * Category of a repository method, used to group repository metrics.
+ */
+public enum RepositoryOperation {
+    /**
+     * Load entities by key or id.
+     */
+    LOAD,
+    /**
+     * Query the datastore.
+     */
+    QUERY,
+    /**
+     * Save entities.
+     */
+    SAVE,
+    /**
+     * Delete entities.
+     */
+    DELETE,
+    /**
+     * Write to or remove from the search index.
+     */
+    INDEX,
+    /**
+     * Query the search index.
+     */
+    SEARCH;
+
+    /**
+     * Classify a repository method by its name and parameters.
+     *
+     * @param method Repository method.
+     * @return The operation, or null if the method does not touch the datastore or search index (e.g. accessors).
+     */
+    @Nullable
+    public static RepositoryOperation of(Method method) {
+        String name = method.getName();
+        if (name.startsWith("save")) {
+            return SAVE;
+        }
+        if (name.startsWith("delete")) {
+            return DELETE;
+        }
+        if (name.startsWith("index") || name.startsWith("unindex") || name.startsWith("unIndex")
+                || name.startsWith("reindex") || name.equals("clearSearchIndex")) {
+            return INDEX;
+        }
+        if (name.equals("execute")) {
+            return SEARCH;
+        }
+        if (name.startsWith("forEach") || name.endsWith("ByKey") || name.endsWith("ById")
+                || name.equals("findAllByWebSafeKey") || name.equals("findByWebSafeKey")) {
+            return LOAD;
+        }
+        if (name.equals("findAll") && method.getParameterCount() == 1
+                && (Iterable.class.isAssignableFrom(method.getParameterTypes()[0]) || Key[].class.equals(method.getParameterTypes()[0]))) {
+            return LOAD;
+        }
+        if (name.startsWith("find") || name.startsWith("iterate") || name.startsWith("stream")) {
+            return QUERY;
+        }
+        return null;
+    }
+}
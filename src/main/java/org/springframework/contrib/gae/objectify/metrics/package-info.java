@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package org.springframework.contrib.gae.objectify.metrics;
+
+import javax.annotation.ParametersAreNonnullByDefault;
\ No newline at end of file
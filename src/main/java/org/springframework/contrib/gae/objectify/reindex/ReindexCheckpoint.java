@@ -0,0 +1,224 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.googlecode.objectify.annotation.Entity;
+import com.googlecode.objectify.annotation.Id;
+import com.googlecode.objectify.annotation.Index;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of a checkpointed reindex job, saved after every batch so the job can resume from where it stopped.
+ */
+@Entity
+public class ReindexCheckpoint {
+
+    public enum Status {
+        RUNNING,
+        COMPLETE,
+        FAILED
+    }
+
+    @Id
+    private String id;
+
+    @Index
+    private String kind;
+
+    @Index
+    private Status status = Status.RUNNING;
+
+    @Index
+    private String jobId;
+
+    private String rangeStart;
+    private String rangeEnd;
+    private String cursor;
+    private boolean saveEntities;
+    private int batchSize;
+    private long count;
+    private int batches;
+    private int errors;
+    private String lastError;
+    private OffsetDateTime startTime;
+    private OffsetDateTime updateTime;
+    private OffsetDateTime endTime;
+
+    public ReindexCheckpoint() {
+    }
+
+    public ReindexCheckpoint(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ReindexCheckpoint setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public ReindexCheckpoint setKind(String kind) {
+        this.kind = kind;
+        return this;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public ReindexCheckpoint setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    /**
+     * @return Id of the distributed {@link ReindexJob} this checkpoint is a range of, or null for a standalone job.
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public ReindexCheckpoint setJobId(String jobId) {
+        this.jobId = jobId;
+        return this;
+    }
+
+    /**
+     * @return Web safe inclusive start key of the range reindexed, or null for no lower bound.
+     */
+    public String getRangeStart() {
+        return rangeStart;
+    }
+
+    public ReindexCheckpoint setRangeStart(String rangeStart) {
+        this.rangeStart = rangeStart;
+        return this;
+    }
+
+    /**
+     * @return Web safe exclusive end key of the range reindexed, or null for no upper bound.
+     */
+    public String getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public ReindexCheckpoint setRangeEnd(String rangeEnd) {
+        this.rangeEnd = rangeEnd;
+        return this;
+    }
+
+    /**
+     * @return Web safe cursor after the last completed batch, or null if no batch has completed yet.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public ReindexCheckpoint setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * @return Whether entities are re-saved to the datastore as well as reindexed in search.
+     */
+    public boolean isSaveEntities() {
+        return saveEntities;
+    }
+
+    public ReindexCheckpoint setSaveEntities(boolean saveEntities) {
+        this.saveEntities = saveEntities;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public ReindexCheckpoint setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @return Number of entities reindexed so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public ReindexCheckpoint setCount(long count) {
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * @return Number of batches completed so far, including failed batches.
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    public ReindexCheckpoint setBatches(int batches) {
+        this.batches = batches;
+        return this;
+    }
+
+    /**
+     * @return Number of batches that failed.
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    public ReindexCheckpoint setErrors(int errors) {
+        this.errors = errors;
+        return this;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public ReindexCheckpoint setLastError(String lastError) {
+        this.lastError = lastError;
+        return this;
+    }
+
+    public OffsetDateTime getStartTime() {
+        return startTime;
+    }
+
+    public ReindexCheckpoint setStartTime(OffsetDateTime startTime) {
+        this.startTime = startTime;
+        return this;
+    }
+
+    public OffsetDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public ReindexCheckpoint setUpdateTime(OffsetDateTime updateTime) {
+        this.updateTime = updateTime;
+        return this;
+    }
+
+    public OffsetDateTime getEndTime() {
+        return endTime;
+    }
+
+    public ReindexCheckpoint setEndTime(OffsetDateTime endTime) {
+        this.endTime = endTime;
+        return this;
+    }
+}
@@ -0,0 +1,25 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Task handler that continues reindex jobs queued by the {@link ReindexService}.
+ */
+@RestController
+public class ReindexController {
+
+    private final ReindexService reindexService;
+
+    public ReindexController(ReindexService reindexService) {
+        this.reindexService = reindexService;
+    }
+
+    @PostMapping("${spring.contrib.gae.objectify.reindex.path:/task/reindex}")
+    public String run(@RequestParam("jobId") String jobId) {
+        ReindexCheckpoint checkpoint = reindexService.run(jobId);
+        return String.format("Reindex job %s %s: %s entities reindexed, %s failed batches",
+                checkpoint.getId(), checkpoint.getStatus(), checkpoint.getCount(), checkpoint.getErrors());
+    }
+}
@@ -0,0 +1,137 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.googlecode.objectify.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.repository.KeyRange;
+import org.springframework.contrib.gae.objectify.repository.KeyRanges;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Distributes a reindex across instances by splitting a kind into key ranges and reindexing each range in its own chain of
+ * push tasks, see {@link ReindexService}. Because each range is an independent task, the queue's rate and concurrency
+ * settings determine how many instances work on a job at once.
+ * <p>
+ * A {@link ReindexJob} records the ranges of a job, and {@link #getSummary(String)} aggregates completion, failures and
+ * throughput from the range checkpoints. The job is saved as complete once every range has completed, or failed once every
+ * range has finished and at least one has failed, at which point {@link #retryFailedRanges(String)} resumes the failed
+ * ranges from their checkpoints, retrying their failed batches first.
+ */
+public class ReindexCoordinator {
+    private static final Logger LOG = LoggerFactory.getLogger(ReindexCoordinator.class);
+
+    private final ObjectifyProxy objectify;
+    private final ReindexService reindexService;
+
+    /**
+     * Create a new instance.
+     *
+     * @param objectify      Objectify proxy.
+     * @param reindexService Service that reindexes each range.
+     */
+    public ReindexCoordinator(ObjectifyProxy objectify, ReindexService reindexService) {
+        this.objectify = objectify;
+        this.reindexService = reindexService;
+    }
+
+    /**
+     * Split a kind into key ranges and queue a task to reindex each range.
+     *
+     * @param entityType   Entity class of the kind to reindex.
+     * @param saveEntities Whether to re-save entities to the datastore as well as reindexing them in search.
+     * @param rangeCount   Number of ranges to split the kind into. Fewer ranges are used if the kind cannot be split that finely.
+     * @return The new job.
+     */
+    @Nonnull
+    public ReindexJob start(Class<?> entityType, boolean saveEntities, int rangeCount) {
+        List<? extends KeyRange<?>> ranges = KeyRanges.split(entityType, rangeCount);
+        ReindexJob job = new ReindexJob(UUID.randomUUID().toString())
+                .setKind(Key.getKind(entityType))
+                .setSaveEntities(saveEntities)
+                .setStartTime(OffsetDateTime.now());
+        for (int i = 0; i < ranges.size(); i++) {
+            job.getRangeIds().add(job.getId() + "-" + i);
+        }
+        // save the job before any range task can run
+        save(job);
+
+        LOG.info("Starting distributed reindex job {} for kind {} over {} ranges", job.getId(), job.getKind(), ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            reindexService.start(job.getRangeIds().get(i), entityType, saveEntities, ranges.get(i), job.getId());
+        }
+        return job;
+    }
+
+    /**
+     * Aggregate the progress of a job from its range checkpoints.
+     *
+     * @param jobId Job id.
+     * @return Summary of the job.
+     */
+    @Nonnull
+    public ReindexSummary getSummary(String jobId) {
+        ReindexJob job = getJob(jobId)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Reindex job '%s' does not exist", jobId)));
+        List<ReindexCheckpoint> checkpoints = reindexService.getCheckpoints(job.getRangeIds());
+        // totals are only saved when a range finishes, so refresh them for ranges still in progress
+        job.refresh(checkpoints);
+
+        int running = job.getRangeIds().size() - checkpoints.size();
+        int complete = 0;
+        int failed = 0;
+        for (ReindexCheckpoint checkpoint : checkpoints) {
+            switch (checkpoint.getStatus()) {
+                case COMPLETE:
+                    complete++;
+                    break;
+                case FAILED:
+                    failed++;
+                    break;
+                default:
+                    running++;
+            }
+        }
+
+        OffsetDateTime end = job.getEndTime() == null ? OffsetDateTime.now() : job.getEndTime();
+        return new ReindexSummary(job, running, complete, failed, Duration.between(job.getStartTime(), end));
+    }
+
+    /**
+     * Resume the failed ranges of a job from their checkpoints.
+     *
+     * @param jobId Job id.
+     * @return Summary of the job after the failed ranges have been restarted.
+     */
+    @Nonnull
+    public ReindexSummary retryFailedRanges(String jobId) {
+        ReindexJob job = getJob(jobId)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Reindex job '%s' does not exist", jobId)));
+        reindexService.getCheckpoints(job.getRangeIds()).stream()
+                .filter(checkpoint -> checkpoint.getStatus() == ReindexCheckpoint.Status.FAILED)
+                .forEach(checkpoint -> {
+                    LOG.info("Retrying range {} of reindex job {}", checkpoint.getId(), jobId);
+                    reindexService.resume(checkpoint.getId());
+                });
+        return getSummary(jobId);
+    }
+
+    /**
+     * @param jobId Job id.
+     * @return The job, if it exists.
+     */
+    @Nonnull
+    public Optional<ReindexJob> getJob(String jobId) {
+        return Optional.ofNullable(objectify.ofy().load().key(Key.create(ReindexJob.class, jobId)).now());
+    }
+
+    private void save(ReindexJob job) {
+        objectify.ofy().save().entity(job).now();
+    }
+}
@@ -0,0 +1,155 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.googlecode.objectify.annotation.Entity;
+import com.googlecode.objectify.annotation.Id;
+import com.googlecode.objectify.annotation.Index;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Status of a distributed reindex job, whose key ranges are each reindexed by their own chain of tasks and tracked by
+ * their own {@link ReindexCheckpoint}. The status and totals are refreshed from the range checkpoints whenever a range
+ * finishes or is resumed.
+ */
+@Entity
+public class ReindexJob {
+
+    @Id
+    private String id;
+
+    @Index
+    private String kind;
+
+    @Index
+    private ReindexCheckpoint.Status status = ReindexCheckpoint.Status.RUNNING;
+
+    private boolean saveEntities;
+    private List<String> rangeIds = new ArrayList<>();
+    private long count;
+    private int errors;
+    private OffsetDateTime startTime;
+    private OffsetDateTime endTime;
+
+    public ReindexJob() {
+    }
+
+    public ReindexJob(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ReindexJob setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public ReindexJob setKind(String kind) {
+        this.kind = kind;
+        return this;
+    }
+
+    public ReindexCheckpoint.Status getStatus() {
+        return status;
+    }
+
+    public ReindexJob setStatus(ReindexCheckpoint.Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public boolean isSaveEntities() {
+        return saveEntities;
+    }
+
+    public ReindexJob setSaveEntities(boolean saveEntities) {
+        this.saveEntities = saveEntities;
+        return this;
+    }
+
+    /**
+     * @return Ids of the {@link ReindexCheckpoint} of each range, in key order.
+     */
+    public List<String> getRangeIds() {
+        return rangeIds;
+    }
+
+    public ReindexJob setRangeIds(List<String> rangeIds) {
+        this.rangeIds = rangeIds;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public ReindexJob setCount(long count) {
+        this.count = count;
+        return this;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public ReindexJob setErrors(int errors) {
+        this.errors = errors;
+        return this;
+    }
+
+    public OffsetDateTime getStartTime() {
+        return startTime;
+    }
+
+    public ReindexJob setStartTime(OffsetDateTime startTime) {
+        this.startTime = startTime;
+        return this;
+    }
+
+    public OffsetDateTime getEndTime() {
+        return endTime;
+    }
+
+    public ReindexJob setEndTime(OffsetDateTime endTime) {
+        this.endTime = endTime;
+        return this;
+    }
+
+    /**
+     * Refresh the status and totals of the job from its range checkpoints. The job is complete once every range has
+     * completed, or failed once every range has finished and at least one has failed.
+     *
+     * @param checkpoints Checkpoints of the ranges that have started.
+     * @return This job.
+     */
+    ReindexJob refresh(List<ReindexCheckpoint> checkpoints) {
+        boolean running = checkpoints.size() < rangeIds.size();
+        boolean failed = false;
+        long count = 0;
+        int errors = 0;
+        OffsetDateTime lastUpdate = startTime;
+        for (ReindexCheckpoint checkpoint : checkpoints) {
+            running |= checkpoint.isRunning();
+            failed |= checkpoint.getStatus() == ReindexCheckpoint.Status.FAILED;
+            count += checkpoint.getCount();
+            errors += checkpoint.getErrors();
+            if (checkpoint.getUpdateTime() != null && checkpoint.getUpdateTime().isAfter(lastUpdate)) {
+                lastUpdate = checkpoint.getUpdateTime();
+            }
+        }
+        this.status = running ? ReindexCheckpoint.Status.RUNNING
+                : failed ? ReindexCheckpoint.Status.FAILED : ReindexCheckpoint.Status.COMPLETE;
+        this.count = count;
+        this.errors = errors;
+        this.endTime = running ? null : lastUpdate;
+        return this;
+    }
+}
@@ -0,0 +1,291 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskAlreadyExistsException;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.Objectify;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.config.ReindexProperties;
+import org.springframework.contrib.gae.objectify.repository.KeyRange;
+import org.springframework.contrib.gae.objectify.repository.SearchRepository;
+import org.springframework.contrib.gae.util.Nulls;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.google.appengine.api.taskqueue.TaskOptions.Method.POST;
+
+/**
+ * Reindexes a kind in bounded memory across as many requests as it takes.
+ * <p>
+ * Keys are walked by datastore cursor one batch at a time, and a {@link ReindexCheckpoint} recording the cursor, the number
+ * of entities reindexed and any failures is saved after each batch. When a request has run for
+ * {@link ReindexProperties#getMaxRequestDuration()} the job is continued by a push task to {@link ReindexProperties#getPath()},
+ * which resumes from the last checkpoint. A batch that fails is recorded and retried, since the cursor only moves past a batch
+ * once it has been reindexed; the job is marked as failed once {@link ReindexProperties#getMaxErrors()} batches have failed,
+ * and can be restarted from its checkpoint with {@link #resume(String)}, which retries the failed batch first.
+ * <p>
+ * Entities implementing {@link org.springframework.contrib.gae.datastore.entity.IndexAware} are notified as they are reindexed,
+ * which is where per-entity transformations belong since a job may run across several requests.
+ */
+public class ReindexService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReindexService.class);
+
+    private final ObjectifyProxy objectify;
+    private final Queue queue;
+    private final ReindexProperties properties;
+    private final Map<String, SearchRepository<?, ?>> repositories = new LinkedHashMap<>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param objectify    Objectify proxy.
+     * @param queue        Queue used to chain requests.
+     * @param repositories Repositories of the kinds that can be reindexed.
+     * @param properties   Configuration properties.
+     */
+    public ReindexService(ObjectifyProxy objectify, Queue queue, List<? extends SearchRepository<?, ?>> repositories, ReindexProperties properties) {
+        this.objectify = objectify;
+        this.queue = queue;
+        this.properties = properties;
+        repositories.forEach(repository -> this.repositories.putIfAbsent(Key.getKind(repository.getEntityType()), repository));
+    }
+
+    /**
+     * Start a reindex job for a kind. The job runs in a task on the configured queue.
+     *
+     * @param entityType   Entity class of the kind to reindex.
+     * @param saveEntities Whether to re-save entities to the datastore as well as reindexing them in search.
+     * @return The checkpoint of the new job.
+     */
+    @Nonnull
+    public ReindexCheckpoint start(Class<?> entityType, boolean saveEntities) {
+        return start(UUID.randomUUID().toString(), entityType, saveEntities, KeyRange.all(), null);
+    }
+
+    /**
+     * Start reindexing a range of a kind as part of a distributed job, see {@link ReindexCoordinator}.
+     *
+     * @param checkpointId Id of the checkpoint tracking the range.
+     * @param entityType   Entity class of the kind to reindex.
+     * @param saveEntities Whether to re-save entities to the datastore as well as reindexing them in search.
+     * @param range        The key range to reindex.
+     * @param jobId        Id of the distributed job, or null for a standalone job.
+     * @return The checkpoint of the range.
+     */
+    @Nonnull
+    ReindexCheckpoint start(String checkpointId, Class<?> entityType, boolean saveEntities, KeyRange<?> range, @Nullable String jobId) {
+        String kind = Key.getKind(entityType);
+        getRepository(kind);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        ReindexCheckpoint checkpoint = new ReindexCheckpoint(checkpointId)
+                .setKind(kind)
+                .setJobId(jobId)
+                .setRangeStart(Nulls.ifNotNull(range.getStart(), Key::toWebSafeString))
+                .setRangeEnd(Nulls.ifNotNull(range.getEnd(), Key::toWebSafeString))
+                .setSaveEntities(saveEntities)
+                .setBatchSize(properties.getBatchSize())
+                .setStartTime(now)
+                .setUpdateTime(now);
+        save(checkpoint);
+
+        LOG.info("Starting reindex job {} for kind {} {}", checkpoint.getId(), kind, range);
+        enqueue(checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Continue a job from its last checkpoint, reindexing batches until the job completes or the request time budget is
+     * used up, in which case a task is queued to continue the job.
+     * Jobs that are not running are left as they are.
+     *
+     * @param jobId Job id.
+     * @return The checkpoint after the last batch processed.
+     */
+    @Nonnull
+    public ReindexCheckpoint run(String jobId) {
+        ReindexCheckpoint checkpoint = getCheckpoint(jobId)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Reindex job '%s' does not exist", jobId)));
+        if (!checkpoint.isRunning()) {
+            LOG.info("Reindex job {} is {}, nothing to do", jobId, checkpoint.getStatus());
+            return checkpoint;
+        }
+
+        SearchRepository<?, ?> repository = getRepository(checkpoint.getKind());
+        long deadline = System.currentTimeMillis() + properties.getMaxRequestDuration().toMillis();
+        boolean more;
+        do {
+            more = processBatch(repository, checkpoint);
+        } while (more && checkpoint.isRunning() && System.currentTimeMillis() < deadline);
+
+        if (more && checkpoint.isRunning()) {
+            LOG.info("Reindex job {} continuing in a new task after {} entities", jobId, checkpoint.getCount());
+            enqueue(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Restart a failed job from its last checkpoint. The job runs in a task on the configured queue.
+     *
+     * @param jobId Job id.
+     * @return The checkpoint of the restarted job.
+     */
+    @Nonnull
+    public ReindexCheckpoint resume(String jobId) {
+        ReindexCheckpoint checkpoint = getCheckpoint(jobId)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Reindex job '%s' does not exist", jobId)));
+        if (checkpoint.getStatus() == ReindexCheckpoint.Status.FAILED) {
+            checkpoint.setStatus(ReindexCheckpoint.Status.RUNNING)
+                    .setErrors(0)
+                    .setEndTime(null)
+                    .setUpdateTime(OffsetDateTime.now());
+            save(checkpoint);
+            updateJob(checkpoint);
+            enqueue(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @param jobId Job id.
+     * @return The checkpoint of the job, if it exists.
+     */
+    @Nonnull
+    public Optional<ReindexCheckpoint> getCheckpoint(String jobId) {
+        return Optional.ofNullable(objectify.ofy().load().key(Key.create(ReindexCheckpoint.class, jobId)).now());
+    }
+
+    private <E> boolean processBatch(SearchRepository<E, ?> repository, ReindexCheckpoint checkpoint) {
+        KeyRange<E> range = new KeyRange<>(
+                Nulls.ifNotNull(checkpoint.getRangeStart(), Key::<E>create),
+                Nulls.ifNotNull(checkpoint.getRangeEnd(), Key::<E>create));
+        com.googlecode.objectify.cmd.Query<E> query = range.filter(objectify.ofy().load().type(repository.getEntityType())).limit(checkpoint.getBatchSize());
+        if (checkpoint.getCursor() != null) {
+            query = query.startAt(Cursor.fromWebSafeString(checkpoint.getCursor()));
+        }
+        QueryResultIterator<Key<E>> iterator = query.keys().iterator();
+        List<Key<E>> keys = new ArrayList<>();
+        iterator.forEachRemaining(keys::add);
+        boolean more = keys.size() == checkpoint.getBatchSize();
+
+        boolean failed = false;
+        if (!keys.isEmpty()) {
+            Function<List<E>, List<E>> reindexOperation = checkpoint.isSaveEntities() ? batch -> batch : null;
+            try {
+                int count = repository.reindex(keys, checkpoint.getBatchSize(), reindexOperation);
+                checkpoint.setCount(checkpoint.getCount() + count);
+            } catch (RuntimeException e) {
+                LOG.warn("Reindex job {} failed batch after cursor {}", checkpoint.getId(), checkpoint.getCursor(), e);
+                checkpoint.setErrors(checkpoint.getErrors() + 1)
+                        .setLastError(e.toString());
+                failed = true;
+            }
+            checkpoint.setBatches(checkpoint.getBatches() + 1);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        checkpoint.setUpdateTime(now);
+        if (!failed) {
+            checkpoint.setCursor(iterator.getCursor().toWebSafeString());
+        }
+        if (checkpoint.getErrors() >= properties.getMaxErrors()) {
+            LOG.error("Reindex job {} failed after {} failed batches", checkpoint.getId(), checkpoint.getErrors());
+            checkpoint.setStatus(ReindexCheckpoint.Status.FAILED).setEndTime(now);
+        } else if (failed) {
+            // the cursor was left before the failed batch, so the next batch retries it
+            more = true;
+        } else if (!more) {
+            LOG.info("Reindex job {} complete: {} entities reindexed, {} failed batches", checkpoint.getId(), checkpoint.getCount(), checkpoint.getErrors());
+            checkpoint.setStatus(ReindexCheckpoint.Status.COMPLETE).setEndTime(now);
+        }
+        save(checkpoint);
+        if (!checkpoint.isRunning()) {
+            updateJob(checkpoint);
+        }
+        return more;
+    }
+
+    /**
+     * @param checkpointIds Checkpoint ids.
+     * @return The checkpoints that exist, in the given order.
+     */
+    @Nonnull
+    List<ReindexCheckpoint> getCheckpoints(List<String> checkpointIds) {
+        return getCheckpoints(objectify.ofy(), checkpointIds);
+    }
+
+    private List<ReindexCheckpoint> getCheckpoints(Objectify ofy, List<String> checkpointIds) {
+        List<Key<ReindexCheckpoint>> keys = checkpointIds.stream()
+                .map(id -> Key.create(ReindexCheckpoint.class, id))
+                .collect(Collectors.toList());
+        Map<Key<ReindexCheckpoint>, ReindexCheckpoint> checkpoints = ofy.load().keys(keys);
+        return keys.stream()
+                .map(checkpoints::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Refresh the distributed job of a range after the range has finished or been resumed. Each range saves its checkpoint
+     * before refreshing the job, and the job is updated transactionally, so the range that finishes last always leaves the
+     * job with its final status.
+     */
+    private void updateJob(ReindexCheckpoint checkpoint) {
+        if (checkpoint.getJobId() == null) {
+            return;
+        }
+        objectify.ofy().transact(() -> {
+            ReindexJob job = objectify.ofy().load().key(Key.create(ReindexJob.class, checkpoint.getJobId())).now();
+            if (job != null) {
+                // checkpoints are in other entity groups, so read them outside the transaction
+                job.refresh(getCheckpoints(objectify.ofy().transactionless(), job.getRangeIds()));
+                objectify.ofy().save().entity(job).now();
+            }
+            return null;
+        });
+    }
+
+    private void enqueue(ReindexCheckpoint checkpoint) {
+        TaskOptions taskOptions = TaskOptions.Builder
+                .withUrl(properties.getPath())
+                .param("jobId", checkpoint.getId())
+                .taskName(String.format("reindex-%s-%s", checkpoint.getId(), checkpoint.getBatches()))
+                .method(POST);
+        try {
+            queue.add(taskOptions);
+        } catch (TaskAlreadyExistsException e) {
+            // a retried request has already chained the job from this checkpoint
+            LOG.info("Reindex job {} already continued from batch {}", checkpoint.getId(), checkpoint.getBatches());
+        }
+    }
+
+    private void save(ReindexCheckpoint checkpoint) {
+        objectify.ofy().save().entity(checkpoint).now();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> SearchRepository<E, ?> getRepository(String kind) {
+        SearchRepository<?, ?> repository = repositories.get(kind);
+        if (repository == null) {
+            throw new IllegalArgumentException(String.format("No search repository registered for kind %s", kind));
+        }
+        return (SearchRepository<E, ?>) repository;
+    }
+}
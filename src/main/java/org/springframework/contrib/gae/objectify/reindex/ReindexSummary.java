@@ -0,0 +1,94 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of a distributed reindex job aggregated over its ranges.
+ */
+public class ReindexSummary {
+    private final ReindexJob job;
+    private final int runningRanges;
+    private final int completeRanges;
+    private final int failedRanges;
+    private final Duration elapsed;
+
+    ReindexSummary(ReindexJob job, int runningRanges, int completeRanges, int failedRanges, Duration elapsed) {
+        this.job = job;
+        this.runningRanges = runningRanges;
+        this.completeRanges = completeRanges;
+        this.failedRanges = failedRanges;
+        this.elapsed = elapsed;
+    }
+
+    public String getJobId() {
+        return job.getId();
+    }
+
+    public String getKind() {
+        return job.getKind();
+    }
+
+    public ReindexCheckpoint.Status getStatus() {
+        return job.getStatus();
+    }
+
+    public int getRanges() {
+        return job.getRangeIds().size();
+    }
+
+    public int getRunningRanges() {
+        return runningRanges;
+    }
+
+    public int getCompleteRanges() {
+        return completeRanges;
+    }
+
+    public int getFailedRanges() {
+        return failedRanges;
+    }
+
+    /**
+     * @return Number of entities reindexed across all ranges.
+     */
+    public long getCount() {
+        return job.getCount();
+    }
+
+    /**
+     * @return Number of failed batches across all ranges.
+     */
+    public int getErrors() {
+        return job.getErrors();
+    }
+
+    public OffsetDateTime getStartTime() {
+        return job.getStartTime();
+    }
+
+    public OffsetDateTime getEndTime() {
+        return job.getEndTime();
+    }
+
+    /**
+     * @return Time from the start of the job until it ended, or until now if it is still running.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return Entities reindexed per second over the elapsed time.
+     */
+    public double getThroughput() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : job.getCount() * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reindex job %s for kind %s %s: %s of %s ranges complete, %s failed, %s entities reindexed (%.1f/s), %s failed batches",
+                getJobId(), getKind(), getStatus(), completeRanges, getRanges(), failedRanges, getCount(), getThroughput(), getErrors());
+    }
+}
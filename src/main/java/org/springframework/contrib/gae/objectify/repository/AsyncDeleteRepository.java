@@ -1,27 +1,37 @@
 package org.springframework.contrib.gae.objectify.repository;
 
 import com.googlecode.objectify.Key;
-import com.googlecode.objectify.ObjectifyService;
 import com.googlecode.objectify.Result;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindBuffer;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Objectify repository for asynchronously deleting entities.
  * Each call returns a hook to the asynchronous operation that can be used to complete the operation at a later time. The operation
  * will eventually complete (or fail) regardless of whether the hook is used or not, it simply provides a mechanism for callers to
  * optionally wait for the operation to complete (i.e. treat the operation as synchronous) if required.
+ * <p>
+ * While a {@link WriteBehind} buffer is active, deletes are buffered and applied when the buffer is flushed. The returned
+ * hooks then complete immediately.
+ * <p>
+ * Deleted entities are removed from the {@link #getEntityCache() entity cache} and the
+ * {@link #getMissingKeyCache() missing key cache}, if there are any, when the delete is issued and again when the hook
+ * completes it, so a lookup racing the delete cannot leave the entity cached.
  *
  * @param <E> Entity type.
  * @param <I> Entity id type.
  */
 @NoRepositoryBean
-public interface AsyncDeleteRepository<E, I extends Serializable> extends ObjectifyAware, Repository<E, I> {
+public interface AsyncDeleteRepository<E, I extends Serializable> extends ObjectifyAware, EntityCacheAware<E>, Repository<E, I> {
     /**
      * Delete the given entity asynchronously.
      *
@@ -30,20 +40,50 @@ public interface AsyncDeleteRepository<E, I extends Serializable> extends Object
      */
     @Nonnull
     default Runnable deleteAsync(E entity) {
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.delete(entity, this)) {
+            return () -> {
+            };
+        }
+
         final Result<Void> deleteOperation = ofy().delete().entity(entity);
-        return deleteOperation::now;
+        invalidateCached(Collections.singletonList(entity));
+        return () -> {
+            deleteOperation.now();
+            invalidateCached(Collections.singletonList(entity));
+        };
     }
 
     /**
      * Delete the given entities asynchronously.
+     * Large collections are split into chunks of up to {@value ChunkedOperation#MAX_DELETE_SIZE} entities which are deleted
+     * concurrently.
      *
      * @param entities The entities to delete.
      * @return Callback that can be used to complete the delete operation later.
      */
     @Nonnull
     default Runnable deleteAsync(Collection<E> entities) {
-        final Result<Void> deleteOperation = ofy().delete().entities(entities);
-        return deleteOperation::now;
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.delete(entities, this)) {
+            return () -> {
+            };
+        }
+
+        final ChunkedOperation<Void> deleteOperation = ChunkedOperation.start(
+                new ArrayList<>(entities),
+                ChunkedOperation.MAX_DELETE_SIZE,
+                ChunkedOperation.MAX_IN_FLIGHT,
+                chunk -> {
+                    Result<Void> result = ofy().delete().entities(chunk);
+                    return () -> {
+                        result.now();
+                        invalidateCached(chunk);
+                        return null;
+                    };
+                });
+        invalidateCached(entities);
+        return deleteOperation::get;
     }
 
     /**
@@ -66,20 +106,50 @@ public interface AsyncDeleteRepository<E, I extends Serializable> extends Object
      */
     @Nonnull
     default Runnable deleteByKeyAsync(Key<E> key) {
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.deleteByKey(key, this)) {
+            return () -> {
+            };
+        }
+
         Result<Void> deleteOperation = ofy().delete().key(key);
-        return deleteOperation::now;
+        invalidateCachedKeys(Collections.singletonList(key));
+        return () -> {
+            deleteOperation.now();
+            invalidateCachedKeys(Collections.singletonList(key));
+        };
     }
 
     /**
      * Delete the entities with the given keys asynchronously.
+     * Large collections are split into chunks of up to {@value ChunkedOperation#MAX_DELETE_SIZE} keys which are deleted
+     * concurrently.
      *
      * @param keys Keys of the entities to delete.
      * @return Callback that can be used to complete the delete operation later.
      */
     @Nonnull
     default Runnable deleteByKeyAsync(Collection<Key<E>> keys) {
-        Result<Void> deleteOperation = ObjectifyService.ofy().delete().keys(keys);
-        return deleteOperation::now;
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.deleteByKey(keys, this)) {
+            return () -> {
+            };
+        }
+
+        final ChunkedOperation<Void> deleteOperation = ChunkedOperation.start(
+                new ArrayList<>(keys),
+                ChunkedOperation.MAX_DELETE_SIZE,
+                ChunkedOperation.MAX_IN_FLIGHT,
+                chunk -> {
+                    Result<Void> result = ofy().delete().keys(chunk);
+                    return () -> {
+                        result.now();
+                        invalidateCachedKeys(chunk);
+                        return null;
+                    };
+                });
+        invalidateCachedKeys(keys);
+        return deleteOperation::get;
     }
 
     /**
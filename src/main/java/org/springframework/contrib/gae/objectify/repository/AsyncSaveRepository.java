@@ -2,6 +2,8 @@ package org.springframework.contrib.gae.objectify.repository;
 
 import com.googlecode.objectify.Key;
 import com.googlecode.objectify.Result;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindBuffer;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 
@@ -10,6 +12,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -19,12 +22,19 @@ import java.util.function.Supplier;
  * Each call returns a hook to the asynchronous operation that can be used to complete the operation at a later time. The operation
  * will eventually complete (or fail) regardless of whether the hook is used or not, it simply provides a mechanism for callers to
  * optionally wait for the operation to complete (i.e. treat the operation as synchronous) if required.
+ * <p>
+ * While a {@link WriteBehind} buffer is active, saves of entities that already have ids are buffered and applied when the
+ * buffer is flushed. The returned hooks then complete immediately.
+ * <p>
+ * Saved entities are removed from the {@link #getEntityCache() entity cache} and the
+ * {@link #getMissingKeyCache() missing key cache}, if there are any, when the save is issued and again when the hook
+ * completes it, so a lookup racing the write cannot leave the previous version cached.
  *
  * @param <E> The entity type
  * @param <I> Entity id type.
  */
 @NoRepositoryBean
-public interface AsyncSaveRepository<E, I extends Serializable> extends ObjectifyAware, Repository<E, I> {
+public interface AsyncSaveRepository<E, I extends Serializable> extends ObjectifyAware, EntityCacheAware<E>, Repository<E, I> {
 
     /**
      * Put an entity asynchronously asynchronously.
@@ -34,24 +44,50 @@ public interface AsyncSaveRepository<E, I extends Serializable> extends Objectif
      */
     @Nonnull
     default Supplier<E> saveAsync(final E entity) {
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.save(entity, this)) {
+            return () -> entity;
+        }
+
         final Result<Key<E>> saveOperation = ofy().save().entity(entity);
+        invalidateCached(Collections.singletonList(entity));
         return () -> {
             saveOperation.now();
+            invalidateCached(Collections.singletonList(entity));
             return entity;
         };
     }
 
     /**
      * Save the given entities asynchronously.
+     * Large collections are split into chunks of up to {@value ChunkedOperation#MAX_PUT_SIZE} entities which are saved
+     * concurrently.
      *
      * @param entities Collection of entities to save.
      * @return Supplier that can be used to return the collection of saved entities later.
      */
     @Nonnull
     default Supplier<List<E>> saveAsync(final Collection<E> entities) {
-        final Result<Map<Key<E>, E>> saveOperation = ofy().save().entities(entities);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.save(entities, this)) {
+            return () -> new ArrayList<>(entities);
+        }
+
+        final ChunkedOperation<Map<Key<E>, E>> saveOperation = ChunkedOperation.start(
+                new ArrayList<>(entities),
+                ChunkedOperation.MAX_PUT_SIZE,
+                ChunkedOperation.MAX_IN_FLIGHT,
+                chunk -> {
+                    Result<Map<Key<E>, E>> result = ofy().save().entities(chunk);
+                    return () -> {
+                        Map<Key<E>, E> saved = result.now();
+                        invalidateCached(chunk);
+                        return saved;
+                    };
+                });
+        invalidateCached(entities);
         return () -> {
-            saveOperation.now();
+            saveOperation.get();
             return new ArrayList<>(entities);
         };
     }
@@ -0,0 +1,119 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.common.collect.Lists;
+import org.springframework.util.Assert;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A bulk operation split into chunks that are issued as concurrent asynchronous operations.
+ * <p>
+ * Chunks are issued immediately on {@link #start(List, int, int, Function)}, with at most {@code maxInFlight} chunks
+ * outstanding at a time: once the limit is reached the oldest outstanding chunk is completed before the next one is issued.
+ * Calling {@link #get()} completes all remaining chunks and returns the per-chunk results in order.
+ * <p>
+ * A failure in one chunk does not prevent the remaining chunks from completing. Failures are collected and reported
+ * together as a {@link ChunkedOperationException}, unless the operation consisted of a single chunk, in which case the
+ * original exception is thrown.
+ *
+ * @param <R> Chunk result type.
+ */
+public class ChunkedOperation<R> implements Supplier<List<R>> {
+    /**
+     * Maximum number of keys per datastore get.
+     */
+    public static final int MAX_GET_SIZE = 1000;
+
+    /**
+     * Maximum number of entities per datastore put.
+     */
+    public static final int MAX_PUT_SIZE = 500;
+
+    /**
+     * Maximum number of keys per datastore delete.
+     */
+    public static final int MAX_DELETE_SIZE = 500;
+
+    /**
+     * Default maximum number of chunks in flight at once.
+     */
+    public static final int MAX_IN_FLIGHT = 10;
+
+    private final List<Supplier<R>> operations = new ArrayList<>();
+    private final List<R> results = new ArrayList<>();
+    private final Map<Integer, RuntimeException> failures = new LinkedHashMap<>();
+    private int completed;
+
+    private ChunkedOperation() {
+    }
+
+    /**
+     * Split the items into chunks and start the operation for each chunk.
+     *
+     * @param items       Items to operate on.
+     * @param chunkSize   Maximum number of items per chunk.
+     * @param maxInFlight Maximum number of chunks outstanding at a time.
+     * @param operation   Starts the asynchronous operation for a chunk, returning a hook used to complete it.
+     * @param <T>         Item type.
+     * @param <R>         Chunk result type.
+     * @return The chunked operation.
+     */
+    @Nonnull
+    public static <T, R> ChunkedOperation<R> start(List<T> items, int chunkSize, int maxInFlight, Function<List<T>, Supplier<R>> operation) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero");
+        Assert.isTrue(maxInFlight > 0, "Max in flight must be greater than zero");
+
+        ChunkedOperation<R> result = new ChunkedOperation<>();
+        for (List<T> chunk : Lists.partition(items, chunkSize)) {
+            if (result.operations.size() - result.completed >= maxInFlight) {
+                result.completeNext();
+            }
+            result.operations.add(operation.apply(chunk));
+        }
+        return result;
+    }
+
+    /**
+     * Complete all chunks.
+     *
+     * @return The result of each chunk, in chunk order.
+     * @throws ChunkedOperationException If more than one chunk was issued and any of them failed.
+     */
+    @Override
+    public List<R> get() {
+        while (completed < operations.size()) {
+            completeNext();
+        }
+
+        if (failures.isEmpty()) {
+            return results;
+        }
+        if (operations.size() == 1) {
+            throw failures.get(0);
+        }
+        throw new ChunkedOperationException(operations.size(), failures);
+    }
+
+    /**
+     * @return The number of chunks the operation was split into.
+     */
+    public int getChunkCount() {
+        return operations.size();
+    }
+
+    private void completeNext() {
+        int index = completed++;
+        try {
+            results.add(operations.get(index).get());
+        } catch (RuntimeException e) {
+            results.add(null);
+            failures.put(index, e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Exception thrown when one or more chunks of a {@link ChunkedOperation} have failed.
+ * Each chunk failure is available via {@link #getFailures()} and is also attached as a suppressed exception.
+ */
+public class ChunkedOperationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int chunkCount;
+    private final Map<Integer, RuntimeException> failures;
+
+    /**
+     * Create a new instance.
+     *
+     * @param chunkCount Total number of chunks in the operation.
+     * @param failures   Failures keyed by chunk index.
+     */
+    public ChunkedOperationException(int chunkCount, Map<Integer, RuntimeException> failures) {
+        super(String.format("%s of %s chunks failed: %s", failures.size(), chunkCount, failures.keySet()),
+                failures.values().iterator().next());
+        this.chunkCount = chunkCount;
+        this.failures = Collections.unmodifiableMap(failures);
+
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    /**
+     * @return Total number of chunks in the operation.
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * @return Failures keyed by the index of the chunk that failed.
+     */
+    public Map<Integer, RuntimeException> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,84 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import org.springframework.util.Assert;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator that walks a query in fixed size chunks, re-issuing the query from the datastore cursor at the end of each chunk.
+ * Only a single chunk of results is held by the underlying query at any time, and the given chunk callback can be used to
+ * release anything retained by the previous chunk (e.g. the Objectify session cache).
+ *
+ * @param <T> Result type.
+ */
+public class CursorIterator<T> implements Iterator<T> {
+    private final Function<Cursor, QueryResultIterator<T>> chunkQuery;
+    private final int chunkSize;
+    private final Runnable onChunkComplete;
+
+    private QueryResultIterator<T> current;
+    private int currentCount;
+
+    /**
+     * Create a new instance.
+     *
+     * @param chunkQuery      Function returning the result iterator for a chunk of at most {@code chunkSize} results starting
+     *                        at the given cursor. The cursor will be null for the first chunk.
+     * @param chunkSize       The limit applied to each chunk query.
+     * @param onChunkComplete Callback invoked after each full chunk has been consumed, before the next chunk is queried.
+     */
+    public CursorIterator(Function<Cursor, QueryResultIterator<T>> chunkQuery, int chunkSize, Runnable onChunkComplete) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero");
+
+        this.chunkQuery = chunkQuery;
+        this.chunkSize = chunkSize;
+        this.onChunkComplete = onChunkComplete;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current == null) {
+            nextChunk(null);
+        }
+        if (current.hasNext()) {
+            return true;
+        }
+        if (currentCount < chunkSize) {
+            // A short chunk means the query has been exhausted.
+            return false;
+        }
+
+        Cursor cursor = current.getCursor();
+        onChunkComplete.run();
+        nextChunk(cursor);
+
+        return current.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        currentCount++;
+        return current.next();
+    }
+
+    /**
+     * @return The cursor pointing after the last returned result, or null if iteration has not started.
+     */
+    @Nullable
+    public Cursor getCursor() {
+        return current == null ? null : current.getCursor();
+    }
+
+    private void nextChunk(@Nullable Cursor cursor) {
+        current = chunkQuery.apply(cursor);
+        currentCount = 0;
+    }
+}
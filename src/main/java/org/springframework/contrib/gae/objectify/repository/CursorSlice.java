@@ -0,0 +1,95 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.googlecode.objectify.cmd.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link org.springframework.data.domain.Slice} of query results that also carries the datastore cursor pointing to the
+ * start of the next slice.
+ * The cursor is exposed as an opaque web-safe page token so it can be handed to clients and passed back to continue paging.
+ *
+ * @param <E> Entity type.
+ */
+public class CursorSlice<E> extends SliceImpl<E> {
+    private static final long serialVersionUID = 1L;
+
+    private final Cursor nextCursor;
+
+    /**
+     * Create a new instance.
+     *
+     * @param content    The slice content.
+     * @param pageable   The paging information used to request the slice.
+     * @param nextCursor Cursor pointing to the start of the next slice, or null if this is the last slice.
+     */
+    public CursorSlice(List<E> content, Pageable pageable, @Nullable Cursor nextCursor) {
+        super(content, pageable, nextCursor != null);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return Cursor pointing to the start of the next slice.
+     */
+    @Nonnull
+    public Optional<Cursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+    /**
+     * @return Opaque token that can be used to request the next slice.
+     */
+    @Nonnull
+    public Optional<String> getNextPageToken() {
+        return getNextCursor().map(Cursor::toWebSafeString);
+    }
+
+    /**
+     * Load a slice of results from the given query.
+     * One more result than the page size is requested so we can tell whether a next slice exists without a second query.
+     *
+     * @param query    The query, already positioned at the start of the slice.
+     * @param pageable Paging information.
+     * @param <E>      Entity type.
+     * @return Slice of results.
+     */
+    @Nonnull
+    public static <E> CursorSlice<E> load(Query<E> query, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        QueryResultIterator<E> iterator = query.limit(pageSize + 1).iterator();
+
+        List<E> content = new ArrayList<>(pageSize);
+        while (content.size() < pageSize && iterator.hasNext()) {
+            content.add(iterator.next());
+        }
+
+        Cursor cursor = iterator.getCursor();
+        return new CursorSlice<>(content, pageable, iterator.hasNext() ? cursor : null);
+    }
+
+    /**
+     * Apply the given sort to a query.
+     *
+     * @param query The query.
+     * @param sort  Sort to apply.
+     * @param <E>   Entity type.
+     * @return The sorted query.
+     */
+    @Nonnull
+    public static <E> Query<E> sort(Query<E> query, Sort sort) {
+        Query<E> result = query;
+        for (Sort.Order order : sort) {
+            result = result.order(order.isAscending() ? order.getProperty() : "-" + order.getProperty());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.appengine.api.datastore.Entity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.Objectify;
+import org.springframework.contrib.gae.objectify.Refs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, in-process cache of entities of a single kind, consulted by repository key lookups before Objectify.
+ * <p>
+ * Entities are held in their datastore form and translated into a new instance on every hit, so callers never share
+ * (or mutate) a cached instance. Entries expire a fixed time after they are written and the least recently used entries are
+ * evicted once the maximum size is reached. Hit and miss counts are available from {@link #getStats()}.
+ * <p>
+ * Enable for a kind by annotating the entity class with {@link EntityCached}. The cache is shared by every repository of
+ * the kind (see {@link EntityCaches}), so a write through any of them invalidates it. Repositories invalidate cached entities when a write is issued
+ * and again when it completes, and do not use the cache inside Objectify transactions.
+ *
+ * @param <E> Entity type.
+ */
+public class EntityCache<E> {
+    /**
+     * Default maximum number of entities held by a cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    /**
+     * Default time after which cached entities expire.
+     */
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE_SECONDS = 300;
+
+    private final Cache<Key<?>, Entity> entities;
+
+    /**
+     * Create a new instance.
+     *
+     * @param maximumSize      Maximum number of entities to hold.
+     * @param expireAfterWrite Time after which a cached entity expires.
+     * @param timeUnit         Unit of {@code expireAfterWrite}.
+     */
+    public EntityCache(int maximumSize, long expireAfterWrite, TimeUnit timeUnit) {
+        this.entities = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, timeUnit)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a cached entity.
+     *
+     * @param ofy Objectify used to translate the cached entity.
+     * @param key Entity key.
+     * @return New instance of the cached entity, or null if it is not cached.
+     */
+    @Nullable
+    public E get(Objectify ofy, Key<E> key) {
+        Entity entity = entities.getIfPresent(key);
+        return entity == null ? null : ofy.load().fromEntity(entity);
+    }
+
+    /**
+     * Get the cached entities for a collection of keys.
+     *
+     * @param ofy  Objectify used to translate the cached entities.
+     * @param keys Entity keys.
+     * @return New instances of the cached entities, keyed by entity key. Keys that are not cached are omitted.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public Map<Key<E>, E> getAll(Objectify ofy, Collection<Key<E>> keys) {
+        Map<Key<E>, E> result = new LinkedHashMap<>();
+        entities.getAllPresent(keys).forEach((key, entity) -> result.put((Key<E>) key, ofy.load().fromEntity(entity)));
+        return result;
+    }
+
+    /**
+     * Cache an entity.
+     *
+     * @param ofy    Objectify used to translate the entity.
+     * @param entity The entity.
+     */
+    public void put(Objectify ofy, E entity) {
+        entities.put(Key.create(entity), ofy.save().toEntity(entity));
+    }
+
+    /**
+     * Cache a collection of entities.
+     *
+     * @param ofy    Objectify used to translate the entities.
+     * @param values The entities.
+     */
+    public void putAll(Objectify ofy, Collection<E> values) {
+        values.forEach(entity -> put(ofy, entity));
+    }
+
+    /**
+     * Remove an entity from the cache.
+     *
+     * @param key Entity key.
+     */
+    public void invalidate(Key<?> key) {
+        entities.invalidate(key);
+    }
+
+    /**
+     * Remove entities from the cache.
+     *
+     * @param keys Entity keys.
+     */
+    public void invalidateAll(Iterable<? extends Key<?>> keys) {
+        entities.invalidateAll(keys);
+    }
+
+    /**
+     * Remove an entity from the cache.
+     * Entities without an id cannot have been cached and are ignored.
+     *
+     * @param entity The entity.
+     */
+    public void invalidateEntity(Object entity) {
+        Key<?> key = Refs.keyIfIdentified(entity);
+        if (key != null) {
+            entities.invalidate(key);
+        }
+    }
+
+    /**
+     * Remove entities from the cache.
+     * Entities without an id cannot have been cached and are ignored.
+     *
+     * @param values The entities.
+     */
+    public void invalidateEntities(Collection<?> values) {
+        values.forEach(this::invalidateEntity);
+    }
+
+    /**
+     * Remove all entities from the cache.
+     */
+    public void clear() {
+        entities.invalidateAll();
+    }
+
+    /**
+     * @return Number of cached entities.
+     */
+    public long size() {
+        return entities.size();
+    }
+
+    /**
+     * @return Hit, miss and eviction counts.
+     */
+    @Nonnull
+    public CacheStats getStats() {
+        return entities.stats();
+    }
+}
@@ -0,0 +1,68 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.googlecode.objectify.Key;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Mark a class as using optional in-process caches for its entities, see {@link EntityCache} and {@link MissingKeyCache}.
+ *
+ * @param <E> Entity type.
+ */
+public interface EntityCacheAware<E> {
+
+    /**
+     * In-process cache consulted by key lookups and invalidated by saves and deletes.
+     * The default implementation does not cache, implementations should return a shared instance to enable caching.
+     *
+     * @return Entity cache or null if caching is disabled.
+     */
+    @Nullable
+    default EntityCache<E> getEntityCache() {
+        return null;
+    }
+
+    /**
+     * In-process cache of keys found not to exist, consulted by key lookups and invalidated by saves.
+     * The default implementation does not cache, implementations should return a shared instance to enable caching.
+     *
+     * @return Missing key cache or null if caching is disabled.
+     */
+    @Nullable
+    default MissingKeyCache getMissingKeyCache() {
+        return null;
+    }
+
+    /**
+     * Remove the given entities from the in-process caches, e.g. because they have been written.
+     *
+     * @param entities The entities.
+     */
+    default void invalidateCached(Collection<E> entities) {
+        EntityCache<E> entityCache = getEntityCache();
+        if (entityCache != null) {
+            entityCache.invalidateEntities(entities);
+        }
+        MissingKeyCache missingKeyCache = getMissingKeyCache();
+        if (missingKeyCache != null) {
+            missingKeyCache.invalidateEntities(entities);
+        }
+    }
+
+    /**
+     * Remove the entities with the given keys from the in-process caches, e.g. because they have been written.
+     *
+     * @param keys Entity keys.
+     */
+    default void invalidateCachedKeys(Collection<Key<E>> keys) {
+        EntityCache<E> entityCache = getEntityCache();
+        if (entityCache != null) {
+            entityCache.invalidateAll(keys);
+        }
+        MissingKeyCache missingKeyCache = getMissingKeyCache();
+        if (missingKeyCache != null) {
+            missingKeyCache.invalidateAll(keys);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enable the in-process {@link EntityCache} for an entity kind.
+ * Repositories for annotated entity classes serve key lookups from the cache before going to Objectify.
+ * <p>
+ * Best suited to hot, rarely changing reference data. Each application instance holds its own cache, so changes made by
+ * other instances can be served stale for up to {@link #expireAfterWrite()}.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EntityCached {
+    /**
+     * @return Maximum number of entities held. Least recently used entities are evicted first.
+     */
+    int maximumSize() default EntityCache.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * @return Time after which a cached entity expires, in {@link #timeUnit()}.
+     */
+    long expireAfterWrite() default EntityCache.DEFAULT_EXPIRE_AFTER_WRITE_SECONDS;
+
+    /**
+     * @return Unit of {@link #expireAfterWrite()}.
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
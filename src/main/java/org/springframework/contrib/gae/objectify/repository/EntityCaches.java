@@ -0,0 +1,84 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the in-process caches shared by every repository of a kind: the {@link PageCursorCache}, and the
+ * {@link EntityCache} and {@link MissingKeyCache} of kinds annotated with {@link EntityCached} or {@link MissingKeysCached}.
+ * Caches are created on first use.
+ * <p>
+ * A registry is registered as a bean by the Objectify auto configuration, so caches live as long as the application
+ * context. Repositories created outside a context use the {@link #shared() registry shared by the JVM}.
+ */
+public class EntityCaches {
+    private static final EntityCaches SHARED = new EntityCaches();
+
+    private final Map<Class<?>, EntityCache<?>> entityCaches = new ConcurrentHashMap<>();
+    private final Map<Class<?>, MissingKeyCache> missingKeyCaches = new ConcurrentHashMap<>();
+    private final Map<Class<?>, PageCursorCache> pageCursorCaches = new ConcurrentHashMap<>();
+
+    /**
+     * @return Registry used by repositories that are not given one.
+     */
+    @Nonnull
+    public static EntityCaches shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the entity cache of an entity type, as configured by its {@link EntityCached} annotation.
+     *
+     * @param entityType Entity class.
+     * @param <E>        Entity type.
+     * @return Entity cache or null if the entity type is not annotated.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <E> EntityCache<E> getEntityCache(Class<E> entityType) {
+        EntityCached config = entityType.getAnnotation(EntityCached.class);
+        if (config == null) {
+            return null;
+        }
+        return (EntityCache<E>) entityCaches.computeIfAbsent(entityType,
+                type -> new EntityCache<>(config.maximumSize(), config.expireAfterWrite(), config.timeUnit()));
+    }
+
+    /**
+     * Get the missing key cache of an entity type, as configured by its {@link MissingKeysCached} annotation.
+     *
+     * @param entityType Entity class.
+     * @return Missing key cache or null if the entity type is not annotated.
+     */
+    @Nullable
+    public MissingKeyCache getMissingKeyCache(Class<?> entityType) {
+        MissingKeysCached config = entityType.getAnnotation(MissingKeysCached.class);
+        if (config == null) {
+            return null;
+        }
+        return missingKeyCaches.computeIfAbsent(entityType,
+                type -> new MissingKeyCache(config.maximumSize(), config.expireAfterWrite(), config.timeUnit()));
+    }
+
+    /**
+     * Get the page cursor cache of an entity type.
+     *
+     * @param entityType Entity class.
+     * @return Page cursor cache.
+     */
+    @Nonnull
+    public PageCursorCache getPageCursorCache(Class<?> entityType) {
+        return pageCursorCaches.computeIfAbsent(entityType, type -> new PageCursorCache());
+    }
+
+    /**
+     * Remove every entry from every cache.
+     */
+    public void clear() {
+        entityCaches.values().forEach(EntityCache::clear);
+        missingKeyCaches.values().forEach(MissingKeyCache::clear);
+        pageCursorCaches.values().forEach(PageCursorCache::clear);
+    }
+}
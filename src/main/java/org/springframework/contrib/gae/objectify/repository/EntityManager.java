@@ -2,6 +2,7 @@ package org.springframework.contrib.gae.objectify.repository;
 
 import com.googlecode.objectify.Key;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.springframework.contrib.gae.objectify.IdAccessor;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Field;
@@ -30,6 +31,20 @@ public interface EntityManager<E, I> extends ObjectifyAware {
     @Nonnull
     Class<I> getIdType();
 
+    /**
+     * Return the compiled id accessor for the managed entity type.
+     * The accessor is resolved from Objectify metadata on first use and shared thereafter.
+     *
+     * @return Managed entity id accessor.
+     */
+    @Nonnull
+    default IdAccessor<E, I> getIdAccessor() {
+        return IdAccessor.of(getEntityType(), entityType -> {
+            String idFieldName = ofy().factory().getMetadata(entityType).getKeyMetadata().getIdFieldName();
+            return FieldUtils.getField(entityType, idFieldName, true);
+        });
+    }
+
     /**
      * Return the id field for the managed entity type.
      *
@@ -37,10 +52,7 @@ public interface EntityManager<E, I> extends ObjectifyAware {
      */
     @Nonnull
     default Field getIdField() {
-        Class<E> entityType = getEntityType();
-
-        String idFieldName = ofy().factory().getMetadata(entityType).getKeyMetadata().getIdFieldName();
-        return FieldUtils.getField(entityType, idFieldName, true);
+        return getIdAccessor().getField();
     }
 
     /**
@@ -60,7 +72,7 @@ public interface EntityManager<E, I> extends ObjectifyAware {
      */
     @Nonnull
     default Key<E> getKey(E entity) {
-        return Key.create(entity);
+        return getIdAccessor().getKey(entity);
     }
 
     /**
@@ -71,8 +83,9 @@ public interface EntityManager<E, I> extends ObjectifyAware {
      */
     @Nonnull
     default List<Key<E>> getKey(Collection<E> entities) {
+        IdAccessor<E, I> idAccessor = getIdAccessor();
         return entities.stream()
-                .map(this::getKey)
+                .map(idAccessor::getKey)
                 .collect(Collectors.toList());
     }
 
@@ -105,13 +118,8 @@ public interface EntityManager<E, I> extends ObjectifyAware {
      * @param entity The entity to get the id of.
      * @return Entity id.
      */
-    @SuppressWarnings("unchecked")
     default I getId(E entity) {
-        try {
-            return (I) getIdField().get(entity);
-        } catch (IllegalAccessException e) {
-            throw new IllegalArgumentException(String.format("Cannot get id for entity type %s - %s", getEntityType().getSimpleName(), entity), e);
-        }
+        return getIdAccessor().get(entity);
     }
 
     /**
@@ -122,7 +130,8 @@ public interface EntityManager<E, I> extends ObjectifyAware {
      */
     @Nonnull
     default List<I> getId(Collection<E> entities) {
-        return entities.stream().map(this::getId).collect(Collectors.toList());
+        IdAccessor<E, I> idAccessor = getIdAccessor();
+        return entities.stream().map(idAccessor::get).collect(Collectors.toList());
     }
 
     /**
@@ -0,0 +1,103 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.cmd.Query;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * A range of keys of a kind, from an inclusive start key to an exclusive end key.
+ * A null start or end leaves the range unbounded at that end.
+ *
+ * @param <E> Entity type.
+ */
+public class KeyRange<E> {
+    private final Key<E> start;
+    private final Key<E> end;
+
+    /**
+     * Create a new instance.
+     *
+     * @param start Inclusive start key, or null for no lower bound.
+     * @param end   Exclusive end key, or null for no upper bound.
+     */
+    public KeyRange(@Nullable Key<E> start, @Nullable Key<E> end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param <E> Entity type.
+     * @return A range covering every key of a kind.
+     */
+    @Nonnull
+    public static <E> KeyRange<E> all() {
+        return new KeyRange<>(null, null);
+    }
+
+    /**
+     * @return Inclusive start key, or null for no lower bound.
+     */
+    @Nullable
+    public Key<E> getStart() {
+        return start;
+    }
+
+    /**
+     * @return Exclusive end key, or null for no upper bound.
+     */
+    @Nullable
+    public Key<E> getEnd() {
+        return end;
+    }
+
+    /**
+     * Restrict a query to this range.
+     *
+     * @param query The query.
+     * @return The query filtered to keys in this range.
+     */
+    @Nonnull
+    public Query<E> filter(Query<E> query) {
+        Query<E> result = query;
+        if (start != null) {
+            result = result.filterKey(">=", start);
+        }
+        if (end != null) {
+            result = result.filterKey("<", end);
+        }
+        return result;
+    }
+
+    /**
+     * @param key A key of the same kind.
+     * @return Whether the key is in this range.
+     */
+    public boolean contains(Key<E> key) {
+        return (start == null || key.compareTo(start) >= 0) && (end == null || key.compareTo(end) < 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeyRange<?> keyRange = (KeyRange<?>) o;
+        return Objects.equals(start, keyRange.start) && Objects.equals(end, keyRange.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (start == null ? "" : start) + ", " + (end == null ? "" : end) + ")";
+    }
+}
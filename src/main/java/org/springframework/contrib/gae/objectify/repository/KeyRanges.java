@@ -0,0 +1,209 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.appengine.api.datastore.Entity;
+import com.google.common.collect.Iterators;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import org.springframework.contrib.gae.objectify.rpc.RpcTracker;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.util.RequestThreads;
+import org.springframework.util.Assert;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a kind into disjoint {@link KeyRange}s and processes ranges concurrently.
+ * <p>
+ * Split points are chosen from a sample of keys ordered by the datastore's reserved {@code __scatter__} property, which is
+ * set on a random subset of entities and so gives evenly distributed split points without reading the whole kind.
+ * When the sample is too small (e.g. a small kind, or the local development datastore), root kinds with numeric ids are
+ * split by bisecting the range between the lowest and highest id instead. Kinds that can be split neither way are returned
+ * as a single range.
+ */
+public final class KeyRanges {
+    /**
+     * Number of scatter samples taken per requested range.
+     */
+    public static final int OVERSAMPLING_FACTOR = 32;
+
+    /**
+     * Default maximum number of ranges processed at once.
+     */
+    public static final int MAX_CONCURRENT_RANGES = 10;
+
+    private static final String SCATTER_PROPERTY = "__scatter__";
+
+    private KeyRanges() {
+    }
+
+    /**
+     * Split a kind into at most {@code count} disjoint ranges that together cover every key of the kind.
+     * Fewer ranges are returned if there are not enough distinct split points.
+     *
+     * @param entityType Entity class.
+     * @param count      Number of ranges.
+     * @param <E>        Entity type.
+     * @return Ranges in key order.
+     */
+    @Nonnull
+    public static <E> List<KeyRange<E>> split(Class<E> entityType, int count) {
+        Assert.isTrue(count > 0, "Range count must be greater than zero");
+        if (count == 1) {
+            return Collections.singletonList(KeyRange.all());
+        }
+
+        List<Key<E>> splitPoints = scatterSplitPoints(entityType, count);
+        if (splitPoints.isEmpty()) {
+            splitPoints = bisectSplitPoints(entityType, count);
+        }
+        return toRanges(splitPoints);
+    }
+
+    /**
+     * Process ranges concurrently.
+     * Each range is processed on its own thread inside its own Objectify context, so session caches are not shared between
+     * ranges. The {@link WriteBehind} buffer and {@link RpcTracker} counter of the calling thread, if any, are shared with
+     * the range threads, so their writes are buffered and their calls counted as if they were made by the caller.
+     * Failures do not stop other ranges from completing, and are reported together as a {@link ChunkedOperationException}
+     * keyed by range index, unless there was only a single range, in which case the original exception is thrown.
+     *
+     * @param ranges        Ranges to process.
+     * @param maxConcurrent Maximum number of ranges processed at once.
+     * @param rangeWork     Processes a range, returning the number of items processed.
+     * @param <E>           Entity type.
+     * @return The total number of items processed.
+     */
+    public static <E> int process(List<KeyRange<E>> ranges, int maxConcurrent, ToIntFunction<KeyRange<E>> rangeWork) {
+        Assert.isTrue(maxConcurrent > 0, "Max concurrent ranges must be greater than zero");
+        if (ranges.size() == 1) {
+            return rangeWork.applyAsInt(ranges.get(0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrent, ranges.size()), RequestThreads.factory());
+        try {
+            List<Future<Integer>> futures = ranges.stream()
+                    .map(range -> {
+                        Supplier<Integer> work = () -> ObjectifyService.run(() -> rangeWork.applyAsInt(range));
+                        return executor.submit(WriteBehind.propagate(RpcTracker.propagate(work))::get);
+                    })
+                    .collect(Collectors.toList());
+
+            int total = 0;
+            Map<Integer, RuntimeException> failures = new LinkedHashMap<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    total += futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failures.put(i, e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while processing key ranges", e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new ChunkedOperationException(ranges.size(), failures);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Pass the items of an iterator to a consumer in batches.
+     *
+     * @param iterator      Items.
+     * @param batchSize     Maximum number of items per batch.
+     * @param batchConsumer Batch consumer.
+     * @param <T>           Item type.
+     * @return The number of items consumed.
+     */
+    static <T> int consumeBatches(Iterator<T> iterator, int batchSize, Consumer<List<T>> batchConsumer) {
+        int count = 0;
+        Iterator<List<T>> batches = Iterators.partition(iterator, batchSize);
+        while (batches.hasNext()) {
+            List<T> batch = batches.next();
+            batchConsumer.accept(batch);
+            count += batch.size();
+        }
+        return count;
+    }
+
+    private static <E> List<Key<E>> scatterSplitPoints(Class<E> entityType, int count) {
+        List<Key<E>> keys = ObjectifyService.ofy().load().type(entityType)
+                .order(SCATTER_PROPERTY)
+                .limit(count * OVERSAMPLING_FACTOR)
+                .keys()
+                .list();
+        TreeSet<Key<E>> sample = new TreeSet<>(keys);
+        if (sample.size() < count) {
+            return Collections.emptyList();
+        }
+
+        List<Key<E>> sorted = new ArrayList<>(sample);
+        TreeSet<Key<E>> splitPoints = new TreeSet<>();
+        for (int i = 1; i < count; i++) {
+            splitPoints.add(sorted.get(i * sorted.size() / count));
+        }
+        return new ArrayList<>(splitPoints);
+    }
+
+    private static <E> List<Key<E>> bisectSplitPoints(Class<E> entityType, int count) {
+        Key<E> min = boundary(entityType, Entity.KEY_RESERVED_PROPERTY);
+        Key<E> max = boundary(entityType, "-" + Entity.KEY_RESERVED_PROPERTY);
+        if (min == null || max == null || min.getParent() != null || max.getParent() != null || min.getName() != null || max.getName() != null) {
+            // named and parented keys cannot be bisected numerically, fall back to a single range
+            return Collections.emptyList();
+        }
+
+        long low = min.getId();
+        long span = max.getId() - low;
+        TreeSet<Long> ids = new TreeSet<>();
+        for (int i = 1; i < count; i++) {
+            long id = low + Math.round((double) span * i / count);
+            if (id > low) {
+                ids.add(id);
+            }
+        }
+        return ids.stream()
+                .map(id -> Key.create(entityType, id))
+                .collect(Collectors.toList());
+    }
+
+    @Nullable
+    private static <E> Key<E> boundary(Class<E> entityType, String order) {
+        return ObjectifyService.ofy().load().type(entityType)
+                .order(order)
+                .limit(1)
+                .keys()
+                .first()
+                .now();
+    }
+
+    private static <E> List<KeyRange<E>> toRanges(List<Key<E>> splitPoints) {
+        List<KeyRange<E>> ranges = new ArrayList<>();
+        Key<E> start = null;
+        for (Key<E> splitPoint : splitPoints) {
+            ranges.add(new KeyRange<>(start, splitPoint));
+            start = splitPoint;
+        }
+        ranges.add(new KeyRange<>(start, null));
+        return ranges;
+    }
+}
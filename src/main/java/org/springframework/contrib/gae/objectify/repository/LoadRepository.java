@@ -1,30 +1,55 @@
 package org.springframework.contrib.gae.objectify.repository;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.Query;
 import com.google.common.collect.Lists;
 import com.googlecode.objectify.Key;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindBuffer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
+import org.springframework.util.Assert;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Objectify repository for loading entities.
+ * <p>
+ * Methods that load every entity of a kind or a large list of keys in chunks ({@link #iterateAll()},
+ * {@link #iterateRange(KeyRange, int)}, {@link #streamAll()} and {@link #forEachBatch(List, int, int, Consumer)}) keep
+ * memory use bounded by clearing the Objectify session between chunks. Objectify cannot evict single entities from the
+ * session, so this clears the whole session of the calling context, including entities the caller loaded before. Later
+ * loads of those entities read them again and return new instances. To keep the session, call these methods inside
+ * {@link com.googlecode.objectify.ObjectifyService#run(com.googlecode.objectify.Work)}, which gives them a session of
+ * their own. Keys are iterated without clearing the session.
  *
  * @param <E> Entity type.
  * @param <I> Entity id type.
  */
 @NoRepositoryBean
-public interface LoadRepository<E, I extends Serializable> extends ObjectifyAware, EntityManager<E, I>, Repository<E, I> {
+public interface LoadRepository<E, I extends Serializable> extends ObjectifyAware, EntityManager<E, I>, EntityCacheAware<E>, Repository<E, I> {
     int BATCH_SIZE = 200;
 
     /**
@@ -55,6 +80,183 @@ public interface LoadRepository<E, I extends Serializable> extends ObjectifyAwar
                 .list();
     }
 
+    /**
+     * Iterate over all entities.
+     * Entities are queried in chunks of {@value BATCH_SIZE} using datastore cursors, and the whole Objectify session is
+     * cleared between chunks so memory use is bounded by the chunk size rather than the size of the kind.
+     *
+     * @return Iterator over all entities.
+     */
+    @Nonnull
+    default Iterator<E> iterateAll() {
+        return iterateAll(BATCH_SIZE);
+    }
+
+    /**
+     * Iterate over all entities.
+     * Entities are queried in chunks of {@code chunkSize} using datastore cursors, and the whole Objectify session is
+     * cleared between chunks so memory use is bounded by the chunk size rather than the size of the kind.
+     *
+     * @param chunkSize Number of entities to query per chunk.
+     * @return Iterator over all entities.
+     */
+    @Nonnull
+    default Iterator<E> iterateAll(int chunkSize) {
+        return iterateRange(KeyRange.all(), chunkSize);
+    }
+
+    /**
+     * Iterate over the keys of all entities.
+     * Keys are queried in chunks of {@value BATCH_SIZE} using datastore cursors.
+     *
+     * @return Iterator over the keys of all entities.
+     */
+    @Nonnull
+    default Iterator<Key<E>> iterateAllKeys() {
+        return iterateAllKeys(BATCH_SIZE);
+    }
+
+    /**
+     * Iterate over the keys of all entities.
+     * Keys are queried in chunks of {@code chunkSize} using datastore cursors.
+     *
+     * @param chunkSize Number of keys to query per chunk.
+     * @return Iterator over the keys of all entities.
+     */
+    @Nonnull
+    default Iterator<Key<E>> iterateAllKeys(int chunkSize) {
+        return iterateRangeKeys(KeyRange.all(), chunkSize);
+    }
+
+    /**
+     * Stream all entities.
+     * Unlike {@link #findAll()} entities are only loaded as the stream is consumed, see {@link #iterateAll()}.
+     *
+     * @return Stream of all entities.
+     */
+    @Nonnull
+    default Stream<E> streamAll() {
+        return streamAll(BATCH_SIZE);
+    }
+
+    /**
+     * Stream all entities.
+     * Unlike {@link #findAll()} entities are only loaded as the stream is consumed, see {@link #iterateAll(int)}.
+     *
+     * @param chunkSize Number of entities to query per chunk.
+     * @return Stream of all entities.
+     */
+    @Nonnull
+    default Stream<E> streamAll(int chunkSize) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterateAll(chunkSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Stream the keys of all entities.
+     * Unlike {@link #findAllKeys()} keys are only loaded as the stream is consumed, see {@link #iterateAllKeys()}.
+     *
+     * @return Stream of keys belonging to all entities.
+     */
+    @Nonnull
+    default Stream<Key<E>> streamAllKeys() {
+        return streamAllKeys(BATCH_SIZE);
+    }
+
+    /**
+     * Stream the keys of all entities.
+     * Unlike {@link #findAllKeys()} keys are only loaded as the stream is consumed, see {@link #iterateAllKeys(int)}.
+     *
+     * @param chunkSize Number of keys to query per chunk.
+     * @return Stream of keys belonging to all entities.
+     */
+    @Nonnull
+    default Stream<Key<E>> streamAllKeys(int chunkSize) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterateAllKeys(chunkSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterate over the entities in a range of keys.
+     * Entities are queried in chunks of {@code chunkSize} using datastore cursors, and the whole Objectify session is
+     * cleared between chunks.
+     *
+     * @param range     The key range.
+     * @param chunkSize Number of entities to query per chunk.
+     * @return Iterator over the entities in the range.
+     */
+    @Nonnull
+    default Iterator<E> iterateRange(KeyRange<E> range, int chunkSize) {
+        return new CursorIterator<>(
+                cursor -> {
+                    com.googlecode.objectify.cmd.Query<E> query = range.filter(ofy().load().type(getEntityType())).limit(chunkSize);
+                    return (cursor == null ? query : query.startAt(cursor)).iterator();
+                },
+                chunkSize,
+                () -> ofy().clear()
+        );
+    }
+
+    /**
+     * Iterate over the keys in a range.
+     * Keys are queried in chunks of {@code chunkSize} using datastore cursors.
+     *
+     * @param range     The key range.
+     * @param chunkSize Number of keys to query per chunk.
+     * @return Iterator over the keys in the range.
+     */
+    @Nonnull
+    default Iterator<Key<E>> iterateRangeKeys(KeyRange<E> range, int chunkSize) {
+        return new CursorIterator<>(
+                cursor -> {
+                    com.googlecode.objectify.cmd.Query<E> query = range.filter(ofy().load().type(getEntityType())).limit(chunkSize);
+                    return (cursor == null ? query : query.startAt(cursor)).keys().iterator();
+                },
+                chunkSize,
+                () -> {
+                    // keys only queries add nothing to the session
+                }
+        );
+    }
+
+    /**
+     * Split all entities into at most {@code count} disjoint key ranges of similar size, see {@link KeyRanges#split(Class, int)}.
+     *
+     * @param count Number of ranges.
+     * @return Ranges covering all entities, in key order.
+     */
+    @Nonnull
+    default List<KeyRange<E>> splitKeyRanges(int count) {
+        return KeyRanges.split(getEntityType(), count);
+    }
+
+    /**
+     * Process all entities in batches, splitting the kind into {@code rangeCount} key ranges that are scanned concurrently.
+     * Each range is walked by its own cursor on its own thread and Objectify context, see {@link KeyRanges#process(List, int, java.util.function.ToIntFunction)}.
+     * The consumer is called concurrently from several threads, and batches are not in key order.
+     *
+     * @param rangeCount    Number of ranges to split the kind into.
+     * @param batchSize     Number of entities per batch.
+     * @param batchConsumer Batch consumer.
+     * @return The number of entities processed.
+     */
+    default int forEachBatchInRanges(int rangeCount, int batchSize, Consumer<List<E>> batchConsumer) {
+        return KeyRanges.process(splitKeyRanges(rangeCount), KeyRanges.MAX_CONCURRENT_RANGES,
+                range -> KeyRanges.consumeBatches(iterateRange(range, batchSize), batchSize, batchConsumer));
+    }
+
+    /**
+     * Process the keys of all entities in batches, splitting the kind into {@code rangeCount} key ranges that are scanned
+     * concurrently. See {@link #forEachBatchInRanges(int, int, Consumer)}.
+     *
+     * @param rangeCount    Number of ranges to split the kind into.
+     * @param batchSize     Number of keys per batch.
+     * @param batchConsumer Batch consumer.
+     * @return The number of keys processed.
+     */
+    default int forEachKeyBatchInRanges(int rangeCount, int batchSize, Consumer<List<Key<E>>> batchConsumer) {
+        return KeyRanges.process(splitKeyRanges(rangeCount), KeyRanges.MAX_CONCURRENT_RANGES,
+                range -> KeyRanges.consumeBatches(iterateRangeKeys(range, batchSize), batchSize, batchConsumer));
+    }
+
     /**
      * List {@code limit} entities.
      * This will load all entities into memory, so should only be used where the number of entities is constrained.
@@ -87,20 +289,133 @@ public interface LoadRepository<E, I extends Serializable> extends ObjectifyAwar
                 .list();
     }
 
+    /**
+     * Get a slice of entities.
+     * Slices are read using datastore cursors. The cursor marking the start of each page is remembered in the
+     * {@link #getPageCursorCache() page cursor cache}, so requesting page N after page N-1 does not re-read the entities of
+     * earlier pages. The returned slice also carries an opaque token that can be passed to {@link #findAll(Pageable, String)}.
+     *
+     * @param pageable Paging and sorting information.
+     * @return Slice of entities.
+     */
+    @Nonnull
+    default CursorSlice<E> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new CursorSlice<>(findAll(), pageable, null);
+        }
+
+        PageCursorCache cursorCache = getPageCursorCache();
+        String queryShape = String.format("%s|%s|%s", getEntityType().getName(), pageable.getSort(), pageable.getPageSize());
+        int page = pageable.getPageNumber();
+
+        int startPage = page;
+        Cursor startCursor = null;
+        while (startPage > 0 && (startCursor = cursorCache.get(queryShape, startPage)) == null) {
+            startPage--;
+        }
+
+        com.googlecode.objectify.cmd.Query<E> query = CursorSlice.sort(ofy().load().type(getEntityType()), pageable.getSort());
+        if (startCursor != null) {
+            query = query.startAt(startCursor);
+        }
+        int offset = (page - startPage) * pageable.getPageSize();
+        if (offset > 0) {
+            query = query.offset(offset);
+        }
+
+        CursorSlice<E> slice = CursorSlice.load(query, pageable);
+        slice.getNextCursor().ifPresent(cursor -> cursorCache.put(queryShape, page + 1, cursor));
+        return slice;
+    }
+
+    /**
+     * Get the slice of entities following the given page token.
+     *
+     * @param pageable  Page size and sorting information. The sort must match the one used to obtain the token.
+     * @param pageToken Token from {@link CursorSlice#getNextPageToken()}, or null to start from the first entity.
+     * @return Slice of entities.
+     */
+    @Nonnull
+    default CursorSlice<E> findAll(Pageable pageable, @Nullable String pageToken) {
+        com.googlecode.objectify.cmd.Query<E> query = CursorSlice.sort(ofy().load().type(getEntityType()), pageable.getSort());
+        if (pageToken != null) {
+            query = query.startAt(Cursor.fromWebSafeString(pageToken));
+        }
+        return CursorSlice.load(query, pageable);
+    }
+
+    /**
+     * Cache used by {@link #findAll(Pageable)} to remember page cursors.
+     * The default implementation returns the cache of the entity type from the {@link EntityCaches#shared() shared registry}.
+     *
+     * @return Page cursor cache.
+     */
+    @Nonnull
+    default PageCursorCache getPageCursorCache() {
+        return EntityCaches.shared().getPageCursorCache(getEntityType());
+    }
+
     /**
      * Get the entities with the given keys, if they exist.
+     * Large key collections are split into chunks of up to {@value ChunkedOperation#MAX_GET_SIZE} keys which are loaded
+     * concurrently. Duplicate keys are loaded, and returned, once. Keys with a pending write in the {@link WriteBehind}
+     * buffer reflect that write, and keys held by the {@link #getEntityCache() entity cache} or
+     * {@link #getMissingKeyCache() missing key cache}, if there are any and no transaction is in progress, are not loaded.
      *
      * @param keys keys to load.
      * @return A list of loaded entities keyed by the entity key.
      */
     @Nonnull
     default List<E> findAll(Iterable<Key<E>> keys) {
-        return new ArrayList<>(
-                ofy()
-                        .load()
-                        .keys(keys)
-                        .values()
-        );
+        Set<Key<E>> keySet = new LinkedHashSet<>(Lists.newArrayList(keys));
+        Map<Key<E>, E> found = new HashMap<>();
+        Set<Key<E>> unbuffered = keySet;
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null) {
+            unbuffered = new LinkedHashSet<>();
+            for (Key<E> key : keySet) {
+                if (!buffer.isPending(key)) {
+                    unbuffered.add(key);
+                } else if (buffer.getPendingEntity(key) != null) {
+                    found.put(key, buffer.getPendingEntity(key));
+                }
+            }
+        }
+
+        boolean cacheable = ofy().getTransaction() == null;
+        EntityCache<E> entityCache = cacheable ? getEntityCache() : null;
+        MissingKeyCache missingKeyCache = cacheable ? getMissingKeyCache() : null;
+        if (entityCache != null) {
+            found.putAll(entityCache.getAll(ofy(), unbuffered));
+        }
+        List<Key<E>> toLoad = unbuffered.stream()
+                .filter(key -> !found.containsKey(key))
+                .filter(key -> missingKeyCache == null || !missingKeyCache.isMissing(key))
+                .collect(Collectors.toList());
+        ChunkedOperation<Map<Key<E>, E>> loadOperation = ChunkedOperation.start(
+                toLoad,
+                ChunkedOperation.MAX_GET_SIZE,
+                ChunkedOperation.MAX_IN_FLIGHT,
+                chunk -> {
+                    Map<Key<E>, E> result = ofy().load().keys(chunk);
+                    return () -> result;
+                });
+        loadOperation.get().forEach(loaded -> {
+            if (entityCache != null) {
+                entityCache.putAll(ofy(), loaded.values());
+            }
+            found.putAll(loaded);
+        });
+        if (missingKeyCache != null) {
+            toLoad.stream()
+                    .filter(key -> !found.containsKey(key))
+                    .forEach(missingKeyCache::markMissing);
+        }
+
+        return keySet.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -128,12 +443,7 @@ public interface LoadRepository<E, I extends Serializable> extends ObjectifyAwar
                 .map(string -> (Key<E>) Key.create(string))
                 .collect(Collectors.toList());
 
-        return new ArrayList<>(
-                ofy()
-                        .load()
-                        .keys(keys)
-                        .values()
-        );
+        return findAll(keys);
     }
 
     /**
@@ -200,18 +510,41 @@ public interface LoadRepository<E, I extends Serializable> extends ObjectifyAwar
 
     /**
      * Get the entity with the given key.
+     * If a {@link WriteBehind} buffer holds a pending write for the key, the result reflects that write.
+     * Otherwise the {@link #getEntityCache() entity cache} and {@link #getMissingKeyCache() missing key cache} are consulted,
+     * if there are any, before loading from Objectify. The caches are not used inside a transaction.
      *
      * @param key The key.
      * @return The entity or an empty {@link Optional} if none exists.
      */
     @Nonnull
     default Optional<E> findByKey(Key<E> key) {
-        return Optional.ofNullable(
-                ofy()
-                        .load()
-                        .key(key)
-                        .now()
-        );
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.isPending(key)) {
+            return Optional.ofNullable(buffer.getPendingEntity(key));
+        }
+
+        boolean cacheable = ofy().getTransaction() == null;
+        EntityCache<E> entityCache = cacheable ? getEntityCache() : null;
+        E cached = entityCache == null ? null : entityCache.get(ofy(), key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        MissingKeyCache missingKeyCache = cacheable ? getMissingKeyCache() : null;
+        if (missingKeyCache != null && missingKeyCache.isMissing(key)) {
+            return Optional.empty();
+        }
+
+        E entity = ofy()
+                .load()
+                .key(key)
+                .now();
+        if (entity == null && missingKeyCache != null) {
+            missingKeyCache.markMissing(key);
+        } else if (entity != null && entityCache != null) {
+            entityCache.put(ofy(), entity);
+        }
+        return Optional.ofNullable(entity);
     }
 
     /**
@@ -252,16 +585,79 @@ public interface LoadRepository<E, I extends Serializable> extends ObjectifyAwar
         forEachBatch(keys, batchSize, batch -> batch.forEach(consumer));
     }
 
+    /**
+     * Allows a {@link Consumer} to operate on each hydrated entity within the list of keys, while
+     * the internal mechanics retrieve entities in batches, loading up to {@code prefetchDepth} batches ahead of the consumer.
+     *
+     * @param keys The list of keys (potentially large).
+     * @param batchSize The batch size to retrieve entities in.
+     * @param prefetchDepth The number of batches to load ahead of the batch being consumed.
+     * @param consumer The operation to perform on each entity.
+     * @see #forEachBatch(List, int, int, Consumer)
+     */
+    default void forEachEntity(List<Key<E>> keys, int batchSize, int prefetchDepth, Consumer<E> consumer) {
+        forEachBatch(keys, batchSize, prefetchDepth, batch -> batch.forEach(consumer));
+    }
+
+    /**
+     * Allows a {@link Consumer} to operate on each batch of hydrated entities within the list of keys.
+     *
+     * Uses a the default batch size of {@value BATCH_SIZE}.
+     *
+     * @param keys The list of keys (potentially large).
+     * @param batchConsumer The operation to perform on each batch.
+     */
     default void forEachBatch(List<Key<E>> keys, Consumer<Collection<E>> batchConsumer) {
         forEachBatch(keys, BATCH_SIZE, batchConsumer);
     }
 
+    /**
+     * Allows a {@link Consumer} to operate on each batch of hydrated entities within the list of keys.
+     * Each batch is loaded once the previous batch has been consumed, and the Objectify session cache is not cleared.
+     *
+     * @param keys The list of keys (potentially large).
+     * @param batchSize The batch size to retrieve entities in.
+     * @param batchConsumer The operation to perform on each batch.
+     * @see #forEachBatch(List, int, int, Consumer)
+     */
     default void forEachBatch(List<Key<E>> keys, int batchSize, Consumer<Collection<E>> batchConsumer) {
         Lists.partition(keys, batchSize).stream()
                 .map(batchKeys -> ofy().load().keys(batchKeys).values())
                 .forEach(batchConsumer);
     }
 
+    /**
+     * Allows a {@link Consumer} to operate on each batch of hydrated entities within the list of keys, with datastore
+     * loads pipelined against the consumer.
+     * <p>
+     * The asynchronous loads for the next {@code prefetchDepth} batches are issued before each batch is handed to the
+     * consumer, so datastore latency overlaps with consumer processing. A depth of zero loads each batch only once the
+     * previous batch has been consumed. The whole Objectify session is cleared after each batch is consumed so memory use
+     * is bounded by {@code batchSize * (prefetchDepth + 1)} rather than the number of keys.
+     *
+     * @param keys The list of keys (potentially large).
+     * @param batchSize The batch size to retrieve entities in.
+     * @param prefetchDepth The number of batches to load ahead of the batch being consumed.
+     * @param batchConsumer The operation to perform on each batch.
+     * @throws IllegalArgumentException If the batch size is not positive or the prefetch depth is negative.
+     */
+    default void forEachBatch(List<Key<E>> keys, int batchSize, int prefetchDepth, Consumer<Collection<E>> batchConsumer) {
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+        Assert.isTrue(prefetchDepth >= 0, "Prefetch depth must not be negative");
+
+        Iterator<List<Key<E>>> batches = Lists.partition(keys, batchSize).iterator();
+        Deque<Map<Key<E>, E>> pending = new ArrayDeque<>();
+
+        while (batches.hasNext() || !pending.isEmpty()) {
+            while (pending.size() <= prefetchDepth && batches.hasNext()) {
+                pending.add(ofy().load().keys(batches.next())); // issues the load asynchronously
+            }
+
+            Collection<E> batch = new ArrayList<>(pending.poll().values());
+            batchConsumer.accept(batch);
+            ofy().clear(); // Clear the Objectify cache to free memory for next batch
+        }
+    }
 
     /**
      * Find an entity by its web-safe key string.
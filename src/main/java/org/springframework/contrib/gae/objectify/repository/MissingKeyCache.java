@@ -0,0 +1,132 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.googlecode.objectify.Key;
+import org.springframework.contrib.gae.objectify.Refs;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, in-process cache of keys that were recently looked up and found not to exist.
+ * <p>
+ * Objectify does not cache misses, so repeatedly probing for an entity that does not exist (e.g. tokens, optional
+ * configuration or user lookups) costs a datastore get every time. Remembering the miss lets those probes be answered
+ * without a read. Keys are forgotten when an entity with the key is saved, a fixed time after they were recorded, or when
+ * the maximum size is reached (least recently used first). Hit and miss counts are available from {@link #getStats()}.
+ * <p>
+ * Enable for a kind by annotating the entity class with {@link MissingKeysCached}. The cache is shared by every repository
+ * (and {@link org.springframework.contrib.gae.security.GaeUserDetailsManager}) of the kind (see {@link EntityCaches}), so a save through any of them
+ * invalidates it. Lookups inside Objectify transactions do not use the cache.
+ */
+public class MissingKeyCache {
+    /**
+     * Default maximum number of keys held by a cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    /**
+     * Default time after which missing keys are forgotten.
+     */
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE_SECONDS = 60;
+
+    private final Cache<Key<?>, Boolean> keys;
+
+    /**
+     * Create a new instance.
+     *
+     * @param maximumSize      Maximum number of keys to hold.
+     * @param expireAfterWrite Time after which a missing key is forgotten.
+     * @param timeUnit         Unit of {@code expireAfterWrite}.
+     */
+    public MissingKeyCache(int maximumSize, long expireAfterWrite, TimeUnit timeUnit) {
+        this.keys = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, timeUnit)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param key Entity key.
+     * @return Whether the key was recently found not to exist.
+     */
+    public boolean isMissing(Key<?> key) {
+        return keys.getIfPresent(key) != null;
+    }
+
+    /**
+     * Record that an entity does not exist.
+     *
+     * @param key Entity key.
+     */
+    public void markMissing(Key<?> key) {
+        keys.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * Forget that an entity was missing, e.g. because it has been saved.
+     *
+     * @param key Entity key.
+     */
+    public void invalidate(Key<?> key) {
+        keys.invalidate(key);
+    }
+
+    /**
+     * Forget that entities were missing.
+     *
+     * @param keys Entity keys.
+     */
+    public void invalidateAll(Iterable<? extends Key<?>> keys) {
+        this.keys.invalidateAll(keys);
+    }
+
+    /**
+     * Forget that an entity was missing.
+     * Entities without an id cannot have been looked up and are ignored.
+     *
+     * @param entity The entity.
+     */
+    public void invalidateEntity(Object entity) {
+        Key<?> key = Refs.keyIfIdentified(entity);
+        if (key != null) {
+            keys.invalidate(key);
+        }
+    }
+
+    /**
+     * Forget that entities were missing.
+     * Entities without an id cannot have been looked up and are ignored.
+     *
+     * @param entities The entities.
+     */
+    public void invalidateEntities(Collection<?> entities) {
+        entities.forEach(this::invalidateEntity);
+    }
+
+    /**
+     * Forget all missing keys.
+     */
+    public void clear() {
+        keys.invalidateAll();
+    }
+
+    /**
+     * @return Number of keys held.
+     */
+    public long size() {
+        return keys.size();
+    }
+
+    /**
+     * @return Hit, miss and eviction counts.
+     */
+    @Nonnull
+    public CacheStats getStats() {
+        return keys.stats();
+    }
+}
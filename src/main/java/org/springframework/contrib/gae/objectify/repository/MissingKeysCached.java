@@ -0,0 +1,38 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enable the in-process {@link MissingKeyCache} for an entity kind.
+ * Repositories for annotated entity classes remember keys that recently failed to load, and answer repeated lookups of
+ * those keys without going to Objectify.
+ * <p>
+ * Each application instance holds its own cache, so entities created by other instances may be reported missing for up
+ * to {@link #expireAfterWrite()}.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MissingKeysCached {
+    /**
+     * @return Maximum number of missing keys held. Least recently used keys are evicted first.
+     */
+    int maximumSize() default MissingKeyCache.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * @return Time after which a missing key is forgotten, in {@link #timeUnit()}.
+     */
+    long expireAfterWrite() default MissingKeyCache.DEFAULT_EXPIRE_AFTER_WRITE_SECONDS;
+
+    /**
+     * @return Unit of {@link #expireAfterWrite()}.
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
@@ -0,0 +1,101 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the datastore cursors marking the start of each page of a query.
+ * Lets a request for page N start from a remembered cursor instead of re-scanning every preceding page with an offset.
+ * <p>
+ * Cursors are keyed by query shape (kind, sort and page size) and page number. Least recently used entries are evicted
+ * once the maximum size is reached.
+ * <p>
+ * The cache shared by every repository of a kind is available from {@link EntityCaches#getPageCursorCache(Class)}.
+ */
+public class PageCursorCache {
+    /**
+     * Default maximum number of cursors held by a cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final Cache<PageKey, Cursor> cursors;
+
+    /**
+     * Create a new instance holding up to {@value DEFAULT_MAXIMUM_SIZE} cursors.
+     */
+    public PageCursorCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param maximumSize Maximum number of cursors to hold. A size of zero disables caching.
+     */
+    public PageCursorCache(int maximumSize) {
+        this.cursors = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Get the cursor marking the start of a page.
+     *
+     * @param queryShape Identifies the query the page belongs to.
+     * @param page       Zero based page number.
+     * @return Cursor or null if none is cached.
+     */
+    @Nullable
+    public Cursor get(String queryShape, int page) {
+        return cursors.getIfPresent(new PageKey(queryShape, page));
+    }
+
+    /**
+     * Remember the cursor marking the start of a page.
+     *
+     * @param queryShape Identifies the query the page belongs to.
+     * @param page       Zero based page number.
+     * @param cursor     Cursor pointing to the start of the page.
+     */
+    public void put(String queryShape, int page, Cursor cursor) {
+        cursors.put(new PageKey(queryShape, page), cursor);
+    }
+
+    /**
+     * Forget all cached cursors.
+     */
+    public void clear() {
+        cursors.invalidateAll();
+    }
+
+    private static final class PageKey {
+        private final String queryShape;
+        private final int page;
+
+        private PageKey(String queryShape, int page) {
+            this.queryShape = queryShape;
+            this.page = page;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey pageKey = (PageKey) o;
+            return page == pageKey.page && queryShape.equals(pageKey.queryShape);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(queryShape, page);
+        }
+    }
+}
@@ -1,23 +1,33 @@
 package org.springframework.contrib.gae.objectify.repository;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.googlecode.objectify.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.contrib.gae.datastore.entity.IndexAware;
+import org.springframework.contrib.gae.objectify.IdAccessor;
+import org.springframework.contrib.gae.objectify.IdAllocator;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindBuffer;
 import org.springframework.contrib.gae.search.SearchIndex;
 import org.springframework.contrib.gae.search.SearchService;
+import org.springframework.contrib.gae.search.query.PreparedQuery;
 import org.springframework.contrib.gae.search.query.Query;
 import org.springframework.contrib.gae.search.query.QueryBuilder;
 import org.springframework.contrib.gae.search.query.Result;
+import org.springframework.contrib.gae.util.CompositeRunnable;
 import org.springframework.data.repository.NoRepositoryBean;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -111,10 +121,12 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * <p>
      * A null reindexOperation will result in no DataStore updates, but only Search Index updates.
      * <p>
+     * Keys are walked by cursor one batch at a time, so memory use is bounded by the batch size.
+     * <p>
      * Use with care i.e. if there are heaps of
      * entities then consider triggering this from a queue or a backend (so that the request
-     * has more time to complete). Otherwise, craft your own mechanism to reindex a batch
-     * then create a queue task to continue on (from a cursor).
+     * has more time to complete), or use the checkpointed {@link org.springframework.contrib.gae.objectify.reindex.ReindexService}
+     * which continues from a cursor across requests.
      *
      * @param reindexOperation If provided, the entities will be updated. Allows caller to perform transformations.
      * @param batchSize size of batches
@@ -122,12 +134,34 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * @return number of entities reindexed
      */
     default int reindex(Function<List<E>, List<E>> reindexOperation, int batchSize) {
-        List<Key<E>> keys = ofy()
-                .load()
-                .type(getEntityType())
-                .keys()
-                .list();
-        return reindex(keys, batchSize, reindexOperation);
+        int count = 0;
+        Iterator<List<Key<E>>> batches = Iterators.partition(iterateAllKeys(batchSize), batchSize);
+        while (batches.hasNext()) {
+            count += reindex(batches.next(), batchSize, reindexOperation);
+        }
+        return count;
+    }
+
+    /**
+     * Find all entities and reindex their associated docs in the Search Index, splitting the kind into {@code rangeCount}
+     * key ranges that are reindexed concurrently. Each range is walked by its own cursor on its own thread and Objectify
+     * context, see {@link #forEachKeyBatchInRanges(int, int, Consumer)}. Otherwise behaves as {@link #reindex(Function, int)}.
+     *
+     * @param reindexOperation If provided, the entities will be updated. Allows caller to perform transformations.
+     * @param batchSize        size of batches
+     * @param rangeCount       number of key ranges to reindex concurrently
+     *
+     * @return number of entities reindexed
+     */
+    default int reindex(Function<List<E>, List<E>> reindexOperation, int batchSize, int rangeCount) {
+        return KeyRanges.process(splitKeyRanges(rangeCount), KeyRanges.MAX_CONCURRENT_RANGES, range -> {
+            int count = 0;
+            Iterator<List<Key<E>>> batches = Iterators.partition(iterateRangeKeys(range, batchSize), batchSize);
+            while (batches.hasNext()) {
+                count += reindex(batches.next(), batchSize, reindexOperation);
+            }
+            return count;
+        });
     }
 
     /**
@@ -180,6 +214,45 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
         return getSearchService().execute(query, new SearchResultLoader<>(this::findAllByWebSafeKey));
     }
 
+    /**
+     * Execute a prepared search query.
+     *
+     * @param query      Prepared search query, see {@link SearchService#prepare(Query)}.
+     * @param parameters Parameter values by name.
+     * @return Search result.
+     */
+    default Result<E> execute(PreparedQuery<E> query, Map<String, ?> parameters) {
+        return getSearchService().execute(query, parameters, new SearchResultLoader<>(this::findAllByWebSafeKey));
+    }
+
+    /**
+     * Execute a search query, mapping the returned fields into projections straight from the search index.
+     * No entities are loaded from the datastore. Select the fields with {@link QueryBuilder#project(String...)},
+     * e.g. {@code execute(search().project("name").build(), NameView.class)}.
+     *
+     * @param query          Search query.
+     * @param projectionType Projection interface or class.
+     * @param <T>            Projection type.
+     * @return Search result.
+     */
+    default <T> Result<T> execute(Query<E> query, Class<T> projectionType) {
+        return getSearchService().execute(query, projectionType);
+    }
+
+    /**
+     * Execute a prepared search query, mapping the returned fields into projections straight from the search index.
+     * No entities are loaded from the datastore.
+     *
+     * @param query          Prepared search query, see {@link SearchService#prepare(Query)}.
+     * @param parameters     Parameter values by name.
+     * @param projectionType Projection interface or class.
+     * @param <T>            Projection type.
+     * @return Search result.
+     */
+    default <T> Result<T> execute(PreparedQuery<E> query, Map<String, ?> parameters, Class<T> projectionType) {
+        return getSearchService().execute(query, parameters, projectionType);
+    }
+
     /**
      * Create search indexes for an entity.
      * If the search service is not configured, no operation will be performed.
@@ -227,7 +300,7 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * @param entity The entity to remove.
      */
     default void unIndex(E entity) {
-        unindexByKey(getKey(entity));
+        unindexAsync(entity).run();
     }
 
     /**
@@ -237,7 +310,7 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * @param entities The entities to remove.
      */
     default void unindex(Collection<E> entities) {
-        unindexByKey(getKey(entities));
+        unindexAsync(entities).run();
     }
 
     /**
@@ -258,7 +331,7 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * @param key Key of the entity to remove.
      */
     default void unindexByKey(Key<E> key) {
-        getSearchService().unindex(getEntityType(), key.toWebSafeString());
+        unindexByKeyAsync(key).run();
     }
 
     /**
@@ -268,7 +341,7 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
      * @param keys Keys of the entities to remove.
      */
     default void unindexByKey(Collection<Key<E>> keys) {
-        getSearchService().unindex(getEntityType(), keys.stream().map(Key::toWebSafeString));
+        unindexByKeyAsync(keys).run();
     }
 
     /**
@@ -282,11 +355,105 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
         unindexByKey(Arrays.asList(keys));
     }
 
+    /**
+     * Start removing the given entity from search indexes.
+     * If the search service is not configured, no operation will be performed.
+     *
+     * @param entity The entity to remove.
+     * @return Runnable that can be used to synchronously complete the unindex operation.
+     */
+    @Nonnull
+    default Runnable unindexAsync(E entity) {
+        return unindexByKeyAsync(getKey(entity));
+    }
+
+    /**
+     * Start removing the given entities from search indexes.
+     * If the search service is not configured, no operation will be performed.
+     *
+     * @param entities The entities to remove.
+     * @return Runnable that can be used to synchronously complete the unindex operation.
+     */
+    @Nonnull
+    default Runnable unindexAsync(Collection<E> entities) {
+        return unindexByKeyAsync(getKey(entities));
+    }
+
+    /**
+     * Start removing the entity with the given key from search indexes.
+     * If the search service is not configured, no operation will be performed.
+     *
+     * @param key Key of the entity to remove.
+     * @return Runnable that can be used to synchronously complete the unindex operation.
+     */
+    @Nonnull
+    default Runnable unindexByKeyAsync(Key<E> key) {
+        return getSearchService().unindexAsync(getEntityType(), key.toWebSafeString());
+    }
+
+    /**
+     * Start removing entities with the given keys from search indexes.
+     * The ids are removed in chunks that run concurrently.
+     * If the search service is not configured, no operation will be performed.
+     *
+     * @param keys Keys of the entities to remove.
+     * @return Runnable that can be used to synchronously complete the unindex operation.
+     */
+    @Nonnull
+    default Runnable unindexByKeyAsync(Collection<Key<E>> keys) {
+        return getSearchService().unindexAsync(getEntityType(), keys.stream().map(Key::toWebSafeString));
+    }
+
+    /**
+     * Allocator used to assign ids to new entities before they are saved, see {@link #allocateIds(Collection)}.
+     *
+     * @return Id allocator or null if ids should be generated by the datastore on save.
+     */
+    @Nullable
+    default IdAllocator getIdAllocator() {
+        return null;
+    }
+
+    /**
+     * Assign pre-allocated ids to the given entities that do not have one.
+     * When an {@link #getIdAllocator() id allocator} is configured, this lets a new entity be indexed by its key while the
+     * datastore put is still in flight, rather than waiting for the datastore to generate the id.
+     * Entities whose ids cannot be allocated are left untouched.
+     *
+     * @param entities The entities.
+     */
+    default void allocateIds(Collection<E> entities) {
+        IdAllocator idAllocator = getIdAllocator();
+        if (idAllocator == null || !idAllocator.supports(getEntityType())) {
+            return;
+        }
+
+        List<E> withoutId = entities.stream()
+                .filter(this::hasNoId)
+                .collect(Collectors.toList());
+        if (withoutId.isEmpty()) {
+            return;
+        }
+
+        List<Key<E>> keys = idAllocator.allocate(getEntityType(), withoutId.size());
+        IdAccessor<E, I> idAccessor = getIdAccessor();
+        for (int i = 0; i < withoutId.size(); i++) {
+            idAccessor.set(withoutId.get(i), keys.get(i).getId());
+        }
+    }
+
     /*--------- AsyncSaveRepository ---------*/
 
     @Nonnull
     @Override
     default Supplier<E> saveAsync(final E entity) {
+        allocateIds(Collections.singletonList(entity));
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.save(entity, this)) {
+            // saved and indexed together when the buffer is flushed
+            return () -> entity;
+        }
+
         boolean needsId = hasNoId(entity);
 
         final Supplier<E> saveOperation = SaveRepository.super.saveAsync(entity);
@@ -309,6 +476,13 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
     @Nonnull
     @Override
     default Supplier<List<E>> saveAsync(final Collection<E> entities) {
+        allocateIds(entities);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.save(entities, this)) {
+            // saved and indexed together when the buffer is flushed
+            return () -> new ArrayList<>(entities);
+        }
+
         final List<I> ids = getId(entities);
 
         final Supplier<List<E>> saveOperation = SaveRepository.super.saveAsync(entities);
@@ -340,15 +514,33 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
     @Nonnull
     @Override
     default Runnable deleteAsync(E entity) {
-        unIndex(entity);
-        return DeleteRepository.super.deleteAsync(entity);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.delete(entity, this)) {
+            // removed from the index and datastore together when the buffer is flushed
+            return () -> {
+            };
+        }
+
+        final Runnable unindexOperation = unindexAsync(entity);
+        final Runnable deleteOperation = DeleteRepository.super.deleteAsync(entity);
+
+        return CompositeRunnable.of(unindexOperation, deleteOperation);
     }
 
     @Nonnull
     @Override
     default Runnable deleteAsync(Collection<E> entities) {
-        unindex(entities);
-        return DeleteRepository.super.deleteAsync(entities);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.delete(entities, this)) {
+            // removed from the index and datastore together when the buffer is flushed
+            return () -> {
+            };
+        }
+
+        final Runnable unindexOperation = unindexAsync(entities);
+        final Runnable deleteOperation = DeleteRepository.super.deleteAsync(entities);
+
+        return CompositeRunnable.of(unindexOperation, deleteOperation);
     }
 
     @Nonnull
@@ -361,15 +553,33 @@ public interface SearchRepository<E, I extends Serializable> extends LoadReposit
     @Nonnull
     @Override
     default Runnable deleteByKeyAsync(Key<E> key) {
-        unindexByKey(key);
-        return DeleteRepository.super.deleteByKeyAsync(key);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.deleteByKey(key, this)) {
+            // removed from the index and datastore together when the buffer is flushed
+            return () -> {
+            };
+        }
+
+        final Runnable unindexOperation = unindexByKeyAsync(key);
+        final Runnable deleteOperation = DeleteRepository.super.deleteByKeyAsync(key);
+
+        return CompositeRunnable.of(unindexOperation, deleteOperation);
     }
 
     @Nonnull
     @Override
     default Runnable deleteByKeyAsync(Collection<Key<E>> keys) {
-        unindexByKey(keys);
-        return DeleteRepository.super.deleteByKeyAsync(keys);
+        WriteBehindBuffer buffer = WriteBehind.current();
+        if (buffer != null && buffer.deleteByKey(keys, this)) {
+            // removed from the index and datastore together when the buffer is flushed
+            return () -> {
+            };
+        }
+
+        final Runnable unindexOperation = unindexByKeyAsync(keys);
+        final Runnable deleteOperation = DeleteRepository.super.deleteByKeyAsync(keys);
+
+        return CompositeRunnable.of(unindexOperation, deleteOperation);
     }
 
     @Nonnull
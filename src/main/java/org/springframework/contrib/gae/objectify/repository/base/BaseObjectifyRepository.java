@@ -1,8 +1,14 @@
 package org.springframework.contrib.gae.objectify.repository.base;
 
 import com.googlecode.objectify.Objectify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.IdAllocator;
 import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.repository.EntityCache;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
+import org.springframework.contrib.gae.objectify.repository.MissingKeyCache;
 import org.springframework.contrib.gae.objectify.repository.ObjectifyRepository;
+import org.springframework.contrib.gae.objectify.repository.PageCursorCache;
 import org.springframework.contrib.gae.search.NoOpSearchService;
 import org.springframework.contrib.gae.search.SearchService;
 
@@ -19,6 +25,10 @@ public class BaseObjectifyRepository<E, I extends Serializable> implements Objec
     private SearchService searchService;
     private Class<E> entityType;
     private Class<I> idType;
+    private PageCursorCache pageCursorCache;
+    private IdAllocator idAllocator;
+    private EntityCache<E> entityCache;
+    private MissingKeyCache missingKeyCache;
 
     /**
      * Create a new instance.
@@ -33,6 +43,9 @@ public class BaseObjectifyRepository<E, I extends Serializable> implements Objec
         this.searchService = searchService != null ? searchService : new NoOpSearchService();
         this.entityType = entityType;
         this.idType = idType;
+        this.pageCursorCache = EntityCaches.shared().getPageCursorCache(entityType);
+        this.entityCache = EntityCaches.shared().getEntityCache(entityType);
+        this.missingKeyCache = EntityCaches.shared().getMissingKeyCache(entityType);
     }
 
     @Nonnull
@@ -53,6 +66,77 @@ public class BaseObjectifyRepository<E, I extends Serializable> implements Objec
         return idType;
     }
 
+    @Nullable
+    @Override
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    /**
+     * Set the allocator used to assign ids to new entities before they are saved.
+     * Injected automatically when an {@link IdAllocator} bean is registered.
+     *
+     * @param idAllocator Id allocator, or null to let the datastore generate ids on save.
+     */
+    @Autowired(required = false)
+    public void setIdAllocator(@Nullable IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Use the caches of the entity type held by a registry, replacing any caches set before.
+     * Repositories use the {@link EntityCaches#shared() shared registry} until the registry owned by the application
+     * context is injected.
+     *
+     * @param entityCaches Cache registry.
+     */
+    @Autowired(required = false)
+    public void setEntityCaches(EntityCaches entityCaches) {
+        this.pageCursorCache = entityCaches.getPageCursorCache(entityType);
+        this.entityCache = entityCaches.getEntityCache(entityType);
+        this.missingKeyCache = entityCaches.getMissingKeyCache(entityType);
+    }
+
+    @Nullable
+    @Override
+    public EntityCache<E> getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * Set the in-process cache used for key lookups.
+     * By default entity types annotated with {@link org.springframework.contrib.gae.objectify.repository.EntityCached} use
+     * the cache shared by every repository of the kind.
+     *
+     * @param entityCache Entity cache, or null to disable caching.
+     */
+    public void setEntityCache(@Nullable EntityCache<E> entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    @Nullable
+    @Override
+    public MissingKeyCache getMissingKeyCache() {
+        return missingKeyCache;
+    }
+
+    /**
+     * Set the in-process cache of keys found not to exist.
+     * By default entity types annotated with {@link org.springframework.contrib.gae.objectify.repository.MissingKeysCached}
+     * use the cache shared by every repository of the kind.
+     *
+     * @param missingKeyCache Missing key cache, or null to disable caching.
+     */
+    public void setMissingKeyCache(@Nullable MissingKeyCache missingKeyCache) {
+        this.missingKeyCache = missingKeyCache;
+    }
+
+    @Nonnull
+    @Override
+    public PageCursorCache getPageCursorCache() {
+        return pageCursorCache;
+    }
+
     @Override
     public Objectify ofy() {
         return objectify.ofy();
@@ -0,0 +1,191 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the kinds of the keys in a serialised datastore {@code GetRequest}.
+ * <p>
+ * Only the fields needed to find the kind of each key are decoded ({@code GetRequest.key = 1}, {@code Reference.path = 14},
+ * {@code Path.Element = 1} and {@code Element.type = 2}), everything else is skipped. A request that cannot be read yields
+ * no kinds rather than failing the call being counted.
+ */
+final class GetRequestKinds {
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+    private static final int START_GROUP = 3;
+    private static final int END_GROUP = 4;
+    private static final int FIXED32 = 5;
+
+    private static final int GET_REQUEST_KEY = tag(1, LENGTH_DELIMITED);
+    private static final int REFERENCE_PATH = tag(14, LENGTH_DELIMITED);
+    private static final int PATH_ELEMENT = tag(1, START_GROUP);
+    private static final int PATH_ELEMENT_END = tag(1, END_GROUP);
+    private static final int ELEMENT_TYPE = tag(2, LENGTH_DELIMITED);
+
+    private GetRequestKinds() {
+    }
+
+    /**
+     * @param request Serialised {@code GetRequest}.
+     * @return The kind of each requested key, in request order.
+     */
+    @Nonnull
+    static List<String> parse(byte[] request) {
+        try {
+            List<String> kinds = new ArrayList<>();
+            Reader reader = new Reader(request, 0, request.length);
+            while (reader.hasMore()) {
+                int tag = reader.readVarint();
+                if (tag == GET_REQUEST_KEY) {
+                    String kind = readReferenceKind(reader.readMessage());
+                    if (kind != null) {
+                        kinds.add(kind);
+                    }
+                } else {
+                    reader.skip(tag);
+                }
+            }
+            return kinds;
+        } catch (RuntimeException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    @Nullable
+    private static String readReferenceKind(Reader reference) {
+        String kind = null;
+        while (reference.hasMore()) {
+            int tag = reference.readVarint();
+            if (tag == REFERENCE_PATH) {
+                kind = readPathKind(reference.readMessage());
+            } else {
+                reference.skip(tag);
+            }
+        }
+        return kind;
+    }
+
+    @Nullable
+    private static String readPathKind(Reader path) {
+        // the kind of a key is the type of the last element in its path
+        String kind = null;
+        while (path.hasMore()) {
+            int tag = path.readVarint();
+            if (tag != PATH_ELEMENT) {
+                path.skip(tag);
+                continue;
+            }
+            for (int elementTag = path.readVarint(); elementTag != PATH_ELEMENT_END; elementTag = path.readVarint()) {
+                if (elementTag == ELEMENT_TYPE) {
+                    kind = path.readString();
+                } else {
+                    path.skip(elementTag);
+                }
+            }
+        }
+        return kind;
+    }
+
+    private static int tag(int field, int wireType) {
+        return field << 3 | wireType;
+    }
+
+    private static class Reader {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] bytes, int offset, int limit) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return position < limit;
+        }
+
+        int readVarint() {
+            return (int) readVarint64();
+        }
+
+        long readVarint64() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        Reader readMessage() {
+            int length = readLength();
+            Reader message = new Reader(bytes, position, position + length);
+            position += length;
+            return message;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skip(int tag) {
+            switch (tag & 0x7) {
+                case VARINT:
+                    readVarint64();
+                    break;
+                case FIXED64:
+                    advance(8);
+                    break;
+                case LENGTH_DELIMITED:
+                    advance(readLength());
+                    break;
+                case START_GROUP:
+                    int end = tag(tag >>> 3, END_GROUP);
+                    for (int next = readVarint(); next != end; next = readVarint()) {
+                        skip(next);
+                    }
+                    break;
+                case FIXED32:
+                    advance(4);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected wire type in tag " + tag);
+            }
+        }
+
+        private int readLength() {
+            int length = readVarint();
+            if (length < 0 || position + length > limit) {
+                throw new IllegalStateException("Truncated field");
+            }
+            return length;
+        }
+
+        private void advance(int count) {
+            if (position + count > limit) {
+                throw new IllegalStateException("Truncated field");
+            }
+            position += count;
+        }
+
+        private byte readByte() {
+            if (position >= limit) {
+                throw new IllegalStateException("Truncated field");
+            }
+            return bytes[position++];
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits on the number of datastore and search calls made by a unit of work, usually a request.
+ * Limits that are not set are not checked.
+ */
+public class RpcBudget {
+    private final Map<RpcType, Integer> limits = new EnumMap<>(RpcType.class);
+    private Integer maxTotal;
+    private Integer maxSingleGetsPerKind;
+
+    /**
+     * Set the maximum number of calls of a type.
+     *
+     * @param type Call type.
+     * @param max  Maximum number of calls, or null for no limit.
+     * @return This budget.
+     */
+    public RpcBudget setLimit(RpcType type, @Nullable Integer max) {
+        if (max == null) {
+            limits.remove(type);
+        } else {
+            limits.put(type, max);
+        }
+        return this;
+    }
+
+    /**
+     * @param type Call type.
+     * @return The maximum number of calls of the type, or null for no limit.
+     */
+    @Nullable
+    public Integer getLimit(RpcType type) {
+        return limits.get(type);
+    }
+
+    /**
+     * @param maxTotal Maximum number of datastore and search calls of any type, or null for no limit.
+     * @return This budget.
+     */
+    public RpcBudget setMaxTotal(@Nullable Integer maxTotal) {
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    @Nullable
+    public Integer getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Set the N+1 threshold: the number of gets of a single key of the same kind after which loads are considered unbatched.
+     *
+     * @param maxSingleGetsPerKind Maximum single key gets per kind, or null for no limit.
+     * @return This budget.
+     */
+    public RpcBudget setMaxSingleGetsPerKind(@Nullable Integer maxSingleGetsPerKind) {
+        this.maxSingleGetsPerKind = maxSingleGetsPerKind;
+        return this;
+    }
+
+    @Nullable
+    public Integer getMaxSingleGetsPerKind() {
+        return maxSingleGetsPerKind;
+    }
+
+    /**
+     * Check counted calls against this budget.
+     *
+     * @param counter The counted calls.
+     * @return A description of each limit exceeded, empty if the calls are within budget.
+     */
+    @Nonnull
+    public List<String> getViolations(RpcCounter counter) {
+        List<String> violations = new ArrayList<>();
+        limits.forEach((type, max) -> {
+            int count = counter.getCount(type);
+            if (count > max) {
+                violations.add(String.format("%s calls: %s exceeds limit of %s", type, count, max));
+            }
+        });
+        if (maxTotal != null && counter.getTotal() > maxTotal) {
+            violations.add(String.format("Total calls: %s exceeds limit of %s", counter.getTotal(), maxTotal));
+        }
+        if (maxSingleGetsPerKind != null) {
+            counter.getSingleGets().forEach((kind, count) -> {
+                if (count > maxSingleGetsPerKind) {
+                    violations.add(String.format("Repeated single key gets of kind %s: %s exceeds limit of %s, consider loading keys in a batch",
+                            kind, count, maxSingleGetsPerKind));
+                }
+            });
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,27 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import java.util.List;
+
+/**
+ * Thrown when the datastore and search calls made by a unit of work exceed an {@link RpcBudget}.
+ */
+public class RpcBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> violations;
+
+    /**
+     * Create a new instance.
+     *
+     * @param violations Description of each limit exceeded.
+     * @param counter    The counted calls.
+     */
+    public RpcBudgetExceededException(List<String> violations, RpcCounter counter) {
+        super(String.format("RPC budget exceeded: %s. Calls: %s", String.join("; ", violations), counter));
+        this.violations = violations;
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,90 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Counts the datastore and search calls made by each request and checks them against an {@link RpcBudget} when the request
+ * completes. Requests over budget are either logged, or failed with an {@link RpcBudgetExceededException}.
+ * <p>
+ * The {@link RpcCountingDelegate} is installed once, when the filter is registered or initialised, and left in place since
+ * requests are handled concurrently. Each request only binds its own counter.
+ */
+public class RpcBudgetFilter implements Filter {
+    private static final Logger LOG = LoggerFactory.getLogger(RpcBudgetFilter.class);
+
+    /**
+     * What to do when a request exceeds the budget.
+     */
+    public enum Action {
+        /**
+         * Log a warning.
+         */
+        LOG,
+        /**
+         * Throw an {@link RpcBudgetExceededException}.
+         * The response may already have been committed, so this is intended for development and testing.
+         */
+        FAIL
+    }
+
+    private final RpcBudget budget;
+    private final Action action;
+
+    /**
+     * Create a new instance.
+     *
+     * @param budget Budget for each request.
+     * @param action What to do when a request exceeds the budget.
+     */
+    public RpcBudgetFilter(RpcBudget budget, Action action) {
+        this.budget = budget;
+        this.action = action;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        RpcCountingDelegate.install();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        try (RpcCounter counter = RpcTracker.begin()) {
+            chain.doFilter(request, response);
+            check(request, counter);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private void check(ServletRequest request, RpcCounter counter) {
+        List<String> violations = budget.getViolations(counter);
+        if (violations.isEmpty()) {
+            return;
+        }
+        if (action == Action.FAIL) {
+            throw new RpcBudgetExceededException(violations, counter);
+        }
+        LOG.warn("RPC budget exceeded by {}: {}. Calls: {}", describe(request), String.join("; ", violations), counter);
+    }
+
+    private static String describe(ServletRequest request) {
+        if (request instanceof HttpServletRequest) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            return httpRequest.getMethod() + " " + httpRequest.getRequestURI();
+        }
+        return "request";
+    }
+}
@@ -0,0 +1,143 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.Nonnull;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the datastore and search calls made while it is active, see {@link RpcTracker#begin()}.
+ * <p>
+ * Also provides assertions over the counts for use in tests, which fail with an {@link RpcBudgetExceededException}.
+ */
+public class RpcCounter implements AutoCloseable {
+    private final Runnable onClose;
+    private final Map<RpcType, AtomicInteger> counts = new EnumMap<>(RpcType.class);
+    private final Map<String, AtomicInteger> singleGets = new ConcurrentHashMap<>();
+    private int depth;
+
+    RpcCounter(Runnable onClose) {
+        this.onClose = onClose;
+        for (RpcType type : RpcType.values()) {
+            counts.put(type, new AtomicInteger());
+        }
+    }
+
+    /**
+     * @param type Call type.
+     * @return The number of calls of the given type.
+     */
+    public int getCount(RpcType type) {
+        return counts.get(type).get();
+    }
+
+    /**
+     * @return The total number of datastore and search calls.
+     */
+    public int getTotal() {
+        return counts.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * @param kind Entity kind.
+     * @return The number of gets for a single key of the given kind.
+     */
+    public int getSingleGets(String kind) {
+        AtomicInteger count = singleGets.get(kind);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return The number of gets for a single key, by kind.
+     */
+    @Nonnull
+    public Map<String, Integer> getSingleGets() {
+        Map<String, Integer> result = new TreeMap<>();
+        singleGets.forEach((kind, count) -> result.put(kind, count.get()));
+        return result;
+    }
+
+    /**
+     * Reset all counts to zero.
+     */
+    public void reset() {
+        counts.values().forEach(count -> count.set(0));
+        singleGets.clear();
+    }
+
+    /**
+     * Assert that the calls made so far are within a budget.
+     *
+     * @param budget The budget.
+     * @throws RpcBudgetExceededException If any limit of the budget has been exceeded.
+     */
+    public void assertWithin(RpcBudget budget) {
+        List<String> violations = budget.getViolations(this);
+        if (!violations.isEmpty()) {
+            throw new RpcBudgetExceededException(violations, this);
+        }
+    }
+
+    /**
+     * Assert that no more than the given number of calls of a type have been made so far.
+     *
+     * @param type Call type.
+     * @param max  Maximum number of calls.
+     * @throws RpcBudgetExceededException If more calls have been made.
+     */
+    public void assertAtMost(RpcType type, int max) {
+        assertWithin(new RpcBudget().setLimit(type, max));
+    }
+
+    /**
+     * Assert that no kind has been loaded by single key gets more than once, i.e. that loads have been batched.
+     *
+     * @throws RpcBudgetExceededException If a kind has been loaded one key at a time.
+     */
+    public void assertNoRepeatedGets() {
+        assertWithin(new RpcBudget().setMaxSingleGetsPerKind(1));
+    }
+
+    /**
+     * Stop counting.
+     * Closing a nested scope does nothing; counting continues until the outermost scope is closed.
+     */
+    @Override
+    public void close() {
+        if (depth > 0) {
+            depth--;
+            return;
+        }
+        onClose.run();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        counts.forEach((type, count) -> result.append(result.length() == 0 ? "" : ", ").append(type).append('=').append(count.get()));
+        Map<String, Integer> repeated = getSingleGets();
+        if (!repeated.isEmpty()) {
+            result.append(", single gets by kind=").append(repeated);
+        }
+        return result.toString();
+    }
+
+    void record(RpcType type) {
+        counts.get(type).incrementAndGet();
+    }
+
+    void recordGet(List<String> kinds) {
+        record(RpcType.GET);
+        if (kinds.size() == 1) {
+            singleGets.computeIfAbsent(kinds.get(0), kind -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    RpcCounter nested() {
+        depth++;
+        return this;
+    }
+}
@@ -0,0 +1,103 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import com.google.apphosting.api.ApiProxy;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * {@link ApiProxy.Delegate} that reports datastore and search calls to the {@link RpcCounter} active on the calling thread
+ * before passing them to the underlying delegate.
+ * <p>
+ * Counting at the API proxy catches every call regardless of how it was made: repository methods, {@code Ref.get()}, or
+ * direct use of Objectify and the low level APIs. Calls made on threads without an active counter are passed through untouched.
+ */
+public class RpcCountingDelegate implements ApiProxy.Delegate<ApiProxy.Environment> {
+    private final ApiProxy.Delegate<ApiProxy.Environment> delegate;
+
+    /**
+     * Create a new instance.
+     *
+     * @param delegate The delegate to forward calls to.
+     */
+    public RpcCountingDelegate(ApiProxy.Delegate<ApiProxy.Environment> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap the current {@link ApiProxy} delegate, if it is not already wrapped.
+     * The delegate is meant to stay installed for the life of the instance; counters are bound per thread by
+     * {@link RpcTracker#begin()}, so calls on threads that are not being counted pass through with a single lookup.
+     *
+     * @return Whether the delegate was wrapped by this call.
+     */
+    public static boolean install() {
+        if (isInstalled()) {
+            return false;
+        }
+        return wrapDelegate();
+    }
+
+    /**
+     * @return Whether the current {@link ApiProxy} delegate is wrapped.
+     */
+    public static boolean isInstalled() {
+        return ApiProxy.getDelegate() instanceof RpcCountingDelegate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static synchronized boolean wrapDelegate() {
+        ApiProxy.Delegate<ApiProxy.Environment> current = ApiProxy.getDelegate();
+        if (current == null || current instanceof RpcCountingDelegate) {
+            return false;
+        }
+        ApiProxy.setDelegate(new RpcCountingDelegate(current));
+        return true;
+    }
+
+    /**
+     * Restore the delegate wrapped by {@link #install()}, if it is still installed.
+     */
+    public static synchronized void uninstall() {
+        ApiProxy.Delegate<?> current = ApiProxy.getDelegate();
+        if (current instanceof RpcCountingDelegate) {
+            ApiProxy.setDelegate(((RpcCountingDelegate) current).getDelegate());
+        }
+    }
+
+    /**
+     * @return The delegate calls are forwarded to.
+     */
+    @Nonnull
+    public ApiProxy.Delegate<ApiProxy.Environment> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public byte[] makeSyncCall(ApiProxy.Environment environment, String packageName, String methodName, byte[] request) {
+        RpcTracker.record(packageName, methodName, request);
+        return delegate.makeSyncCall(environment, packageName, methodName, request);
+    }
+
+    @Override
+    public Future<byte[]> makeAsyncCall(ApiProxy.Environment environment, String packageName, String methodName, byte[] request, ApiProxy.ApiConfig apiConfig) {
+        RpcTracker.record(packageName, methodName, request);
+        return delegate.makeAsyncCall(environment, packageName, methodName, request, apiConfig);
+    }
+
+    @Override
+    public void log(ApiProxy.Environment environment, ApiProxy.LogRecord record) {
+        delegate.log(environment, record);
+    }
+
+    @Override
+    public void flushLogs(ApiProxy.Environment environment) {
+        delegate.flushLogs(environment);
+    }
+
+    @Override
+    public List<Thread> getRequestThreads(ApiProxy.Environment environment) {
+        return delegate.getRequestThreads(environment);
+    }
+}
@@ -0,0 +1,97 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
+
+/**
+ * Static access to the {@link RpcCounter} bound to the current thread.
+ * <p>
+ * While a counter is active, datastore gets, puts, deletes, queries and search calls made on the thread are counted, along
+ * with single key gets per kind so that N+1 access patterns (a loop calling {@code findByKey()} or {@code Ref.get()} per item)
+ * can be spotted. Enable the {@link RpcBudgetFilter} to count each request and check it against an {@link RpcBudget}, or
+ * scope a unit of work explicitly, which is useful for asserting call counts in tests:
+ * <pre>
+ * try (RpcCounter rpcs = RpcTracker.begin()) {
+ *     service.doWork();
+ *     rpcs.assertAtMost(RpcType.GET, 1);
+ * }
+ * </pre>
+ */
+public final class RpcTracker {
+    private static final ThreadLocal<RpcCounter> CURRENT = new ThreadLocal<>();
+
+    private RpcTracker() {
+    }
+
+    /**
+     * Start counting calls on the current thread.
+     * If a counter is already active it is returned as a nested scope, and closing it will not end the outer scope.
+     * The {@link RpcCountingDelegate} is normally installed once at startup by the auto-configuration. If it is not installed
+     * yet, e.g. in tests, it is installed now and stays installed; closing the counter only unbinds it from the thread.
+     *
+     * @return The counter. Close it to stop counting.
+     */
+    @Nonnull
+    public static RpcCounter begin() {
+        RpcCounter current = CURRENT.get();
+        if (current != null) {
+            return current.nested();
+        }
+
+        RpcCountingDelegate.install();
+        RpcCounter counter = new RpcCounter(CURRENT::remove);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /**
+     * @return The counter active on the current thread, or null if calls are not being counted.
+     */
+    @Nullable
+    public static RpcCounter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Share the counter active on the current thread, if any, with work that will run on another thread.
+     * Calls made by the work are counted by the same counter.
+     *
+     * @param work The work.
+     * @param <T>  Result type.
+     * @return Work that runs with the current counter bound.
+     */
+    @Nonnull
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        RpcCounter counter = CURRENT.get();
+        if (counter == null) {
+            return work;
+        }
+        return () -> {
+            RpcCounter previous = CURRENT.get();
+            CURRENT.set(counter);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void record(String packageName, String methodName, byte[] request) {
+        RpcCounter counter = CURRENT.get();
+        if (counter == null) {
+            return;
+        }
+        RpcType type = RpcType.of(packageName, methodName);
+        if (type == RpcType.GET) {
+            counter.recordGet(GetRequestKinds.parse(request));
+        } else if (type != null) {
+            counter.record(type);
+        }
+    }
+}
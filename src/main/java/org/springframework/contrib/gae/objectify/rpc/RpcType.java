@@ -0,0 +1,67 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.Nullable;
+
+/**
+ * The categories of App Engine API calls counted by the {@link RpcTracker}.
+ */
+public enum RpcType {
+    /**
+     * Datastore get by key(s).
+     */
+    GET,
+    /**
+     * Datastore put.
+     */
+    PUT,
+    /**
+     * Datastore delete.
+     */
+    DELETE,
+    /**
+     * Datastore query, including fetching further batches of results.
+     */
+    QUERY,
+    /**
+     * Any call to the search API.
+     */
+    SEARCH,
+    /**
+     * Any other datastore call, e.g. id allocation and transactions.
+     */
+    OTHER;
+
+    static final String DATASTORE_PACKAGE = "datastore_v3";
+    static final String SEARCH_PACKAGE = "search";
+
+    /**
+     * Classify an API call.
+     *
+     * @param packageName API package name.
+     * @param methodName  API method name.
+     * @return The call type, or null if the call is not a datastore or search call.
+     */
+    @Nullable
+    public static RpcType of(String packageName, String methodName) {
+        if (SEARCH_PACKAGE.equals(packageName)) {
+            return SEARCH;
+        }
+        if (!DATASTORE_PACKAGE.equals(packageName)) {
+            return null;
+        }
+        switch (methodName) {
+            case "Get":
+                return GET;
+            case "Put":
+                return PUT;
+            case "Delete":
+                return DELETE;
+            case "RunQuery":
+            case "RunCompiledQuery":
+            case "Next":
+                return QUERY;
+            default:
+                return OTHER;
+        }
+    }
+}
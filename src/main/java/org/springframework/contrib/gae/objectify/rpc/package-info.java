@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package org.springframework.contrib.gae.objectify.rpc;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -1,6 +1,7 @@
 package org.springframework.contrib.gae.objectify.support;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.springframework.contrib.gae.objectify.IdAccessor;
 import org.springframework.contrib.gae.objectify.ObjectifyProxy;
 import org.springframework.data.repository.core.EntityInformation;
 
@@ -18,7 +19,7 @@ public class ObjectifyEntityInformation<E, I> implements EntityInformation<E, I>
 
     private Class<E> entityType;
 
-    private Field idField;
+    private IdAccessor<E, I> idAccessor;
     private Class<I> idType;
 
 
@@ -30,7 +31,7 @@ public class ObjectifyEntityInformation<E, I> implements EntityInformation<E, I>
         this.objectify = objectify;
         this.entityType = entityType;
 
-        this.idField = findIdField();
+        this.idAccessor = IdAccessor.of(entityType, type -> findIdField());
         this.idType = findIdType();
     }
 
@@ -42,15 +43,11 @@ public class ObjectifyEntityInformation<E, I> implements EntityInformation<E, I>
     @Override
     @SuppressWarnings("unchecked")
     public I getId(Object entity) {
-        try {
-            return (I) getIdField().get(entity);
-        } catch (IllegalAccessException e) {
-            throw new IllegalArgumentException(String.format("Cannot get id for entity type %s - %s", entityType.getSimpleName(), entity), e);
-        }
+        return idAccessor.get((E) entity);
     }
 
     public Field getIdField() {
-        return idField;
+        return idAccessor.getField();
     }
 
     @Override
@@ -70,6 +67,6 @@ public class ObjectifyEntityInformation<E, I> implements EntityInformation<E, I>
 
     @SuppressWarnings("unchecked")
     private Class<I> findIdType() {
-        return (Class<I>) this.idField.getType();
+        return (Class<I>) getIdField().getType();
     }
 }
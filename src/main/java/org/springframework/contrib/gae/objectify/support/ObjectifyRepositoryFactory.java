@@ -1,6 +1,8 @@
 package org.springframework.contrib.gae.objectify.support;
 
+import org.springframework.contrib.gae.objectify.IdAllocator;
 import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
 import org.springframework.contrib.gae.objectify.repository.base.BaseObjectifyRepository;
 import org.springframework.contrib.gae.search.SearchService;
 import org.springframework.data.repository.core.RepositoryInformation;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.core.support.RepositoryFactorySupport
 import org.springframework.util.Assert;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Objectify {@link org.springframework.data.repository.Repository} factory.
@@ -17,6 +20,8 @@ public class ObjectifyRepositoryFactory extends RepositoryFactorySupport {
 
     private final ObjectifyProxy objectify;
     private final SearchService searchService;
+    private IdAllocator idAllocator;
+    private EntityCaches entityCaches;
 
     /**
      * Create a new instance.
@@ -31,10 +36,33 @@ public class ObjectifyRepositoryFactory extends RepositoryFactorySupport {
         this.searchService = searchService;
     }
 
+    /**
+     * Set the allocator used by created repositories to assign ids to new entities before they are saved.
+     *
+     * @param idAllocator Id allocator, or null to let the datastore generate ids on save.
+     */
+    public void setIdAllocator(@Nullable IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Set the registry holding the in-process caches used by created repositories.
+     *
+     * @param entityCaches Cache registry, or null to use the {@link EntityCaches#shared() shared registry}.
+     */
+    public void setEntityCaches(@Nullable EntityCaches entityCaches) {
+        this.entityCaches = entityCaches;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected Object getTargetRepository(RepositoryInformation information) {
-        return new BaseObjectifyRepository(objectify, searchService, information.getDomainType(), information.getIdType());
+        BaseObjectifyRepository repository = new BaseObjectifyRepository(objectify, searchService, information.getDomainType(), information.getIdType());
+        repository.setIdAllocator(idAllocator);
+        if (entityCaches != null) {
+            repository.setEntityCaches(entityCaches);
+        }
+        return repository;
     }
 
     @Override
@@ -1,7 +1,11 @@
 package org.springframework.contrib.gae.objectify.support;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.IdAllocator;
 import org.springframework.contrib.gae.objectify.ObjectifyProxy;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
+import org.springframework.contrib.gae.objectify.metrics.RepositoryMetrics;
+import org.springframework.contrib.gae.objectify.metrics.RepositoryMetricsPostProcessor;
 import org.springframework.contrib.gae.search.SearchService;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.repository.Repository;
@@ -22,6 +26,9 @@ public class ObjectifyRepositoryFactoryBean<T extends Repository<E, I>, E, I ext
 
     private ObjectifyProxy objectify;
     private SearchService searchService;
+    private IdAllocator idAllocator;
+    private EntityCaches entityCaches;
+    private RepositoryMetrics repositoryMetrics;
 
     /**
      * Creates a new {@link ObjectifyRepositoryFactoryBean} for the given repository interface.
@@ -52,6 +59,37 @@ public class ObjectifyRepositoryFactoryBean<T extends Repository<E, I>, E, I ext
         this.searchService = searchService;
     }
 
+    /**
+     * Set the reference to the id allocator, if one is registered.
+     *
+     * @param idAllocator Id allocator.
+     */
+    @Autowired(required = false)
+    public void setIdAllocator(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Set the reference to the cache registry, if one is registered.
+     *
+     * @param entityCaches Cache registry.
+     */
+    @Autowired(required = false)
+    public void setEntityCaches(EntityCaches entityCaches) {
+        this.entityCaches = entityCaches;
+    }
+
+    /**
+     * Set the reference to the repository metrics, if registered.
+     * Created repositories are instrumented to report every datastore and search operation.
+     *
+     * @param repositoryMetrics Repository metrics.
+     */
+    @Autowired(required = false)
+    public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
     @Override
     public void setMappingContext(MappingContext<?, ?> mappingContext) {
         super.setMappingContext(mappingContext);
@@ -65,6 +103,12 @@ public class ObjectifyRepositoryFactoryBean<T extends Repository<E, I>, E, I ext
 
     @Override
     protected RepositoryFactorySupport createRepositoryFactory() {
-        return new ObjectifyRepositoryFactory(objectify, searchService);
+        ObjectifyRepositoryFactory factory = new ObjectifyRepositoryFactory(objectify, searchService);
+        factory.setIdAllocator(idAllocator);
+        factory.setEntityCaches(entityCaches);
+        if (repositoryMetrics != null) {
+            factory.addRepositoryProxyPostProcessor(new RepositoryMetricsPostProcessor(repositoryMetrics));
+        }
+        return factory;
     }
 }
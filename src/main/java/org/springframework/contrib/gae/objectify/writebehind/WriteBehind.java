@@ -0,0 +1,112 @@
+package org.springframework.contrib.gae.objectify.writebehind;
+
+import com.googlecode.objectify.ObjectifyService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
+
+/**
+ * Static access to the write-behind buffer bound to the current thread.
+ * <p>
+ * While a buffer is active, repository saves and deletes (and the search index operations that go with them) are recorded
+ * in the buffer rather than sent to the datastore. Writes to the same key are coalesced so only the last one is applied,
+ * and all buffered writes are flushed as batched operations when the buffer is closed or {@link #flush()} is called.
+ * <p>
+ * Writes made inside an Objectify transaction are never buffered, they are applied immediately as part of the
+ * transaction. A transactional write to a key that also has a buffered write is overwritten when the buffer is flushed,
+ * so flush the buffer before starting such a transaction.
+ * <p>
+ * Only {@code findByKey} and {@code findAll(keys)} reflect buffered writes. Queries, such as {@code findAll()},
+ * {@code findAllByField} or searches, read the datastore and search index as they are, so call {@link #flush()} first
+ * if a query must see the writes buffered so far. Search results are still loaded through {@code findAll(keys)}, so a
+ * matching entity with a buffered delete is left out of the results, and one with a buffered save is returned as saved.
+ * <p>
+ * Writes that are applied immediately, those made in a transaction and saves of entities without an id, are not undone
+ * when a buffer is {@link WriteBehindBuffer#discard() discarded}.
+ * <p>
+ * Buffering is opt-in: either enable the {@link WriteBehindFilter} to buffer for the duration of each request, or scope a
+ * unit of work explicitly:
+ * <pre>
+ * try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class WriteBehind {
+    private static final ThreadLocal<WriteBehindBuffer> CURRENT = new ThreadLocal<>();
+
+    private WriteBehind() {
+    }
+
+    /**
+     * Start buffering writes on the current thread.
+     * If a buffer is already active it is returned as a nested scope, and closing it will not end the outer scope.
+     *
+     * @return The buffer. Close it to flush buffered writes and stop buffering.
+     */
+    @Nonnull
+    public static WriteBehindBuffer begin() {
+        WriteBehindBuffer current = CURRENT.get();
+        if (current != null) {
+            return current.nested();
+        }
+
+        WriteBehindBuffer buffer = new WriteBehindBuffer(() -> CURRENT.remove());
+        CURRENT.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * @return The buffer accepting writes on the current thread, or null if writes should be applied immediately because
+     * no buffer is active, the buffer is being flushed, or an Objectify transaction is in progress.
+     */
+    @Nullable
+    public static WriteBehindBuffer current() {
+        WriteBehindBuffer buffer = CURRENT.get();
+        if (buffer == null || buffer.isFlushing() || ObjectifyService.ofy().getTransaction() != null) {
+            return null;
+        }
+        return buffer;
+    }
+
+    /**
+     * Share the buffer active on the current thread, if any, with work that will run on another thread.
+     * The buffer is bound to the thread running the work for its duration, and the writes it records are flushed with the
+     * rest of the buffer by the thread that began it.
+     *
+     * @param work The work.
+     * @param <T>  Result type.
+     * @return Work that runs with the current buffer bound.
+     */
+    @Nonnull
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        WriteBehindBuffer buffer = CURRENT.get();
+        if (buffer == null) {
+            return work;
+        }
+        return () -> {
+            WriteBehindBuffer previous = CURRENT.get();
+            CURRENT.set(buffer);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Flush the writes buffered on the current thread, if any.
+     */
+    public static void flush() {
+        WriteBehindBuffer buffer = CURRENT.get();
+        if (buffer != null) {
+            buffer.flush();
+        }
+    }
+}
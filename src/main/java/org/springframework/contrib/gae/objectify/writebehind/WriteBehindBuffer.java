@@ -0,0 +1,299 @@
+package org.springframework.contrib.gae.objectify.writebehind;
+
+import com.googlecode.objectify.Key;
+import org.springframework.contrib.gae.objectify.Refs;
+import org.springframework.contrib.gae.objectify.repository.AsyncDeleteRepository;
+import org.springframework.contrib.gae.objectify.repository.AsyncSaveRepository;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Buffer of pending saves and deletes, keyed by entity key.
+ * Each key holds only the last write recorded against it. See {@link WriteBehind}.
+ * <p>
+ * Buffers are thread-safe, so a buffer can be {@link WriteBehind#propagate(java.util.function.Supplier) shared} with worker
+ * threads. Writes made while a thread flushes the buffer are applied immediately by that thread. Writes recorded by other
+ * threads during a flush are applied by the same flush. The buffer is not locked while writes are applied, so recording
+ * a write never waits for datastore or search calls.
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+    private final Runnable onClose;
+    private final Map<Key<?>, PendingWrite> pending = new LinkedHashMap<>();
+    private volatile Thread flushingThread;
+    private int depth;
+
+    WriteBehindBuffer(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    /**
+     * Record a save.
+     *
+     * @param entity     The entity to save.
+     * @param repository Repository that will save the entity when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True if the save was buffered, false if the entity has no id yet and must be saved immediately.
+     */
+    public synchronized <E> boolean save(E entity, AsyncSaveRepository<E, ?> repository) {
+        Key<E> key = keyOf(entity);
+        if (key == null) {
+            return false;
+        }
+        pending.put(key, new PendingWrite(repository, key, entity));
+        return true;
+    }
+
+    /**
+     * Record a save of several entities.
+     * Entities are only buffered if they all have ids, otherwise none are buffered.
+     *
+     * @param entities   The entities to save.
+     * @param repository Repository that will save the entities when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True if the saves were buffered, false if they must be applied immediately.
+     */
+    public synchronized <E> boolean save(Collection<E> entities, AsyncSaveRepository<E, ?> repository) {
+        List<Key<E>> keys = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            Key<E> key = keyOf(entity);
+            if (key == null) {
+                return false;
+            }
+            keys.add(key);
+        }
+
+        int index = 0;
+        for (E entity : entities) {
+            Key<E> key = keys.get(index++);
+            pending.put(key, new PendingWrite(repository, key, entity));
+        }
+        return true;
+    }
+
+    /**
+     * Record a delete.
+     *
+     * @param entity     The entity to delete.
+     * @param repository Repository that will delete the entity when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True if the delete was buffered, false if the entity has no id and the delete must be applied immediately.
+     */
+    public synchronized <E> boolean delete(E entity, AsyncDeleteRepository<E, ?> repository) {
+        Key<E> key = keyOf(entity);
+        if (key == null) {
+            return false;
+        }
+        return deleteByKey(key, repository);
+    }
+
+    /**
+     * Record a delete of several entities.
+     * Deletes are only buffered if the entities all have ids, otherwise none are buffered.
+     *
+     * @param entities   The entities to delete.
+     * @param repository Repository that will delete the entities when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True if the deletes were buffered, false if they must be applied immediately.
+     */
+    public synchronized <E> boolean delete(Collection<E> entities, AsyncDeleteRepository<E, ?> repository) {
+        List<Key<E>> keys = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            Key<E> key = keyOf(entity);
+            if (key == null) {
+                return false;
+            }
+            keys.add(key);
+        }
+        return deleteByKey(keys, repository);
+    }
+
+    /**
+     * Record a delete by key.
+     *
+     * @param key        Key of the entity to delete.
+     * @param repository Repository that will delete the entity when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True.
+     */
+    public synchronized <E> boolean deleteByKey(Key<E> key, AsyncDeleteRepository<E, ?> repository) {
+        Objects.requireNonNull(key, "Cannot delete a null key");
+        pending.put(key, new PendingWrite(repository, key, null));
+        return true;
+    }
+
+    /**
+     * Record a delete of several keys.
+     *
+     * @param keys       Keys of the entities to delete.
+     * @param repository Repository that will delete the entities when the buffer is flushed.
+     * @param <E>        Entity type.
+     * @return True.
+     */
+    public synchronized <E> boolean deleteByKey(Collection<Key<E>> keys, AsyncDeleteRepository<E, ?> repository) {
+        keys.forEach(key -> deleteByKey(key, repository));
+        return true;
+    }
+
+    /**
+     * @param key Entity key.
+     * @return Whether there is a buffered write for the key.
+     */
+    public synchronized boolean isPending(Key<?> key) {
+        return pending.containsKey(key);
+    }
+
+    /**
+     * Get the entity a buffered write will leave in the datastore.
+     *
+     * @param key Entity key.
+     * @param <E> Entity type.
+     * @return The entity pending save, or null if the key is pending delete or has no buffered write.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public synchronized <E> E getPendingEntity(Key<E> key) {
+        PendingWrite write = pending.get(key);
+        return write == null ? null : (E) write.entity;
+    }
+
+    /**
+     * @return Number of buffered writes.
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Apply all buffered writes.
+     * Saves and deletes are grouped by repository and issued as batch operations, then all of them are completed.
+     * If any batch fails the first failure is thrown once all batches have completed.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (flushingThread != null) {
+                return;
+            }
+            flushingThread = Thread.currentThread();
+        }
+        try {
+            for (List<PendingWrite> writes = drain(); !writes.isEmpty(); writes = drain()) {
+                apply(writes);
+            }
+        } finally {
+            synchronized (this) {
+                flushingThread = null;
+            }
+        }
+    }
+
+    /**
+     * Flush buffered writes and stop buffering on the current thread.
+     * Closing a nested scope does nothing; its writes are flushed when the outermost scope is closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (depth > 0) {
+                depth--;
+                return;
+            }
+        }
+        try {
+            flush();
+        } finally {
+            onClose.run();
+        }
+    }
+
+    /**
+     * Drop all buffered writes without applying them, then close this scope.
+     * Writes buffered by enclosing scopes are dropped too, since they share the buffer.
+     */
+    public void discard() {
+        synchronized (this) {
+            pending.clear();
+        }
+        close();
+    }
+
+    boolean isFlushing() {
+        return flushingThread == Thread.currentThread();
+    }
+
+    synchronized WriteBehindBuffer nested() {
+        depth++;
+        return this;
+    }
+
+    private synchronized List<PendingWrite> drain() {
+        List<PendingWrite> writes = new ArrayList<>(pending.values());
+        pending.clear();
+        return writes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void apply(List<PendingWrite> writes) {
+        Map<AsyncSaveRepository<Object, ?>, List<Object>> saves = new LinkedHashMap<>();
+        Map<AsyncDeleteRepository<Object, ?>, List<Key<Object>>> deletes = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            if (write.entity == null) {
+                deletes.computeIfAbsent((AsyncDeleteRepository<Object, ?>) write.repository, repository -> new ArrayList<>())
+                        .add((Key<Object>) write.key);
+            } else {
+                saves.computeIfAbsent((AsyncSaveRepository<Object, ?>) write.repository, repository -> new ArrayList<>())
+                        .add(write.entity);
+            }
+        }
+
+        List<Runnable> operations = new ArrayList<>();
+        saves.forEach((repository, entities) -> {
+            Supplier<List<Object>> operation = repository.saveAsync(entities);
+            operations.add(operation::get);
+        });
+        deletes.forEach((repository, keys) -> operations.add(repository.deleteByKeyAsync(keys)));
+        complete(operations);
+    }
+
+    private static void complete(List<Runnable> operations) {
+        RuntimeException failure = null;
+        for (Runnable operation : operations) {
+            try {
+                operation.run();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Nullable
+    private static <E> Key<E> keyOf(E entity) {
+        Objects.requireNonNull(entity, "Cannot write a null entity");
+        return Refs.keyIfIdentified(entity);
+    }
+
+    private static class PendingWrite {
+        private final Object repository;
+        private final Key<?> key;
+        private final Object entity;
+
+        private PendingWrite(Object repository, Key<?> key, @Nullable Object entity) {
+            this.repository = repository;
+            this.key = key;
+            this.entity = entity;
+        }
+    }
+}
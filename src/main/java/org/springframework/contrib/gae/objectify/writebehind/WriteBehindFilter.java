@@ -0,0 +1,40 @@
+package org.springframework.contrib.gae.objectify.writebehind;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * Buffers repository writes for the duration of each request and flushes them as batch operations when the request completes.
+ * If the request throws an exception, the buffered writes are discarded instead. Writes the request made in a transaction
+ * or for entities without an id were applied when they were made and are kept, so a failed request can leave part of its
+ * writes applied. Requests that must write all or nothing should do so in a single transaction.
+ * Must run inside the {@link com.googlecode.objectify.ObjectifyFilter} so buffered writes are flushed before the Objectify
+ * session is closed.
+ */
+public class WriteBehindFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        WriteBehindBuffer buffer = WriteBehind.begin();
+        try {
+            chain.doFilter(request, response);
+        } catch (Throwable e) {
+            buffer.discard();
+            throw e;
+        }
+        buffer.close();
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
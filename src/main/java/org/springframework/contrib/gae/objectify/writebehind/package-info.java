@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package org.springframework.contrib.gae.objectify.writebehind;
+
+import javax.annotation.ParametersAreNonnullByDefault;
\ No newline at end of file
@@ -1,11 +1,15 @@
 package org.springframework.contrib.gae.search;
 
 import com.google.appengine.api.search.ScoredDocument;
+import org.springframework.contrib.gae.search.misc.ClearResult;
+import org.springframework.contrib.gae.search.query.PreparedQuery;
 import org.springframework.contrib.gae.search.query.Query;
 import org.springframework.contrib.gae.search.query.QueryBuilder;
 import org.springframework.contrib.gae.search.query.Result;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
 
@@ -29,6 +33,27 @@ public class NoOpSearchService implements SearchService {
         throw new java.lang.UnsupportedOperationException(NOPE);
     }
 
+    @Nonnull
+    @Override
+    public <E> PreparedQuery<E> prepare(Query<E> query) {
+        throw new java.lang.UnsupportedOperationException(NOPE);
+    }
+
+    @Override
+    public <T> Result<T> execute(Query<?> query, Class<T> projectionType) {
+        throw new java.lang.UnsupportedOperationException(NOPE);
+    }
+
+    @Override
+    public Result<ScoredDocument> execute(PreparedQuery<?> query, Map<String, ?> parameters) {
+        throw new java.lang.UnsupportedOperationException(NOPE);
+    }
+
+    @Override
+    public <T> Result<T> execute(PreparedQuery<?> query, Map<String, ?> parameters, Class<T> projectionType) {
+        throw new java.lang.UnsupportedOperationException(NOPE);
+    }
+
     @Override
     public <E> String getId(E entity) {
         return null;
@@ -58,14 +83,10 @@ public class NoOpSearchService implements SearchService {
         return doNothing();
     }
 
+    @Nonnull
     @Override
-    public <E> void unindex(Class<E> entityClass, String id) {
-        //no-op
-    }
-
-    @Override
-    public <E> void unindex(Class<E> entityClass, Collection<String> ids) {
-        //no-op
+    public <E> Runnable unindexAsync(Class<E> entityClass, Collection<String> ids) {
+        return doNothing();
     }
 
     @Override
@@ -78,4 +99,15 @@ public class NoOpSearchService implements SearchService {
         return 0;
     }
 
+    @Nonnull
+    @Override
+    public <E> ClearResult clear(Class<E> entityClass, @Nullable String continuation, Duration timeLimit) {
+        return new ClearResult(0, null);
+    }
+
+    @Nonnull
+    @Override
+    public ClearResult clear(String indexName, @Nullable String continuation, Duration timeLimit) {
+        return new ClearResult(0, null);
+    }
 }
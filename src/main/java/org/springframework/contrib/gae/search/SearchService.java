@@ -2,21 +2,30 @@ package org.springframework.contrib.gae.search;
 
 import com.google.appengine.api.search.Results;
 import com.google.appengine.api.search.ScoredDocument;
+import org.springframework.contrib.gae.search.misc.ClearResult;
+import org.springframework.contrib.gae.search.query.PreparedQuery;
 import org.springframework.contrib.gae.search.query.Query;
 import org.springframework.contrib.gae.search.query.QueryBuilder;
 import org.springframework.contrib.gae.search.query.Result;
 import org.springframework.contrib.gae.search.query.ResultImpl;
+import org.springframework.contrib.gae.util.CompositeRunnable;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.google.common.util.concurrent.Runnables.doNothing;
+
 /**
  * Interface to the GAE full-text search API.
  * Can be used to perform full-text searches against indexed entities.
@@ -54,6 +63,70 @@ public interface SearchService {
         return new ResultImpl<>(rawResult, resultTransformer);
     }
 
+    /**
+     * Execute a {@link Query}, mapping the fields returned with each document into a projection without loading entities.
+     * The query must set the fields to return with {@link QueryBuilder#project(String...)}.
+     *
+     * @param query          The query.
+     * @param projectionType Projection interface or class, see {@link org.springframework.contrib.gae.search.query.ProjectionMapper}.
+     * @param <T>            Projection type.
+     * @return Query result
+     * @throws UnsupportedOperationException If the service does not support projections.
+     */
+    default <T> Result<T> execute(Query<?> query, Class<T> projectionType) {
+        throw new UnsupportedOperationException("Projections are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Prepare a {@link Query} for repeated execution.
+     * Filter values given as a {@link org.springframework.contrib.gae.search.query.QueryParameter} are bound on each execution.
+     *
+     * @param query The query.
+     * @param <E>   Entity type.
+     * @return Prepared query.
+     */
+    @Nonnull
+    <E> PreparedQuery<E> prepare(Query<E> query);
+
+    /**
+     * Execute a {@link PreparedQuery}, returning the result.
+     *
+     * @param query      The prepared query.
+     * @param parameters Parameter values by name.
+     * @return Query result
+     */
+    Result<ScoredDocument> execute(PreparedQuery<?> query, Map<String, ?> parameters);
+
+    /**
+     * Execute a {@link PreparedQuery}, returning the result.
+     *
+     * @param query             The prepared query.
+     * @param parameters        Parameter values by name.
+     * @param resultTransformer Transformer used to transform the result.
+     * @param <T>               Result type.
+     * @return Query result
+     */
+    default <T> Result<T> execute(PreparedQuery<?> query, Map<String, ?> parameters, Function<Results<ScoredDocument>, List<T>> resultTransformer) {
+        Results<ScoredDocument> rawResult = execute(query, parameters).getMetadata();
+
+        return new ResultImpl<>(rawResult, resultTransformer);
+    }
+
+    /**
+     * Execute a {@link PreparedQuery}, mapping the fields returned with each document into a projection without loading entities.
+     * The query must set the fields to return with {@link QueryBuilder#project(String...)}.
+     *
+     * @param query          The prepared query.
+     * @param parameters     Parameter values by name.
+     * @param projectionType Projection interface or class, see {@link org.springframework.contrib.gae.search.query.ProjectionMapper}.
+     * @param <T>            Projection type.
+     * @return Query result
+     * @throws UnsupportedOperationException If the service does not support projections.
+     */
+    default <T> Result<T> execute(PreparedQuery<?> query, Map<String, ?> parameters, Class<T> projectionType) {
+        throw new UnsupportedOperationException("Projections are not supported by " + getClass().getName());
+    }
+
     /**
      * Get the id of a search entity.
      *
@@ -158,16 +231,28 @@ public interface SearchService {
      * Note: The index operation is performed asynchronously. The returned {@link Runnable} can be invoked to
      * wait for the operation to complete.
      *
+     * The entities may be of different types, in which case each type is written to its own index.
+     *
      * @param entities Collection of entities to save.
      * @param <E>      Entity type.
      * @return Index operation completion hook.
      */
     @Nonnull
     default <E> Runnable indexAsync(Collection<E> entities) {
-        Map<String, Object> map = new HashMap<>();
-        entities.forEach(entity -> map.put(getId(entity), entity));
+        // ids are only unique within an entity type
+        Map<Class<?>, Map<String, Object>> byType = new LinkedHashMap<>();
+        entities.forEach(entity -> byType.computeIfAbsent(entity.getClass(), type -> new HashMap<>()).put(getId(entity), entity));
 
-        return indexAsync(map);
+        if (byType.isEmpty()) {
+            return doNothing();
+        }
+        if (byType.size() == 1) {
+            return indexAsync(byType.values().iterator().next());
+        }
+        List<Runnable> operations = byType.values().stream()
+                .map(map -> indexAsync(map))
+                .collect(Collectors.toList());
+        return new CompositeRunnable(operations);
     }
 
     /**
@@ -218,7 +303,9 @@ public interface SearchService {
      * @param id          The entity id.
      * @param <E>         Entity type.
      */
-    <E> void unindex(Class<E> entityClass, String id);
+    default <E> void unindex(Class<E> entityClass, String id) {
+        unindexAsync(entityClass, id).run();
+    }
 
     /**
      * Remove a collection of entities from the search indexes by id.
@@ -227,7 +314,9 @@ public interface SearchService {
      * @param ids         The entity ids.
      * @param <E>         Entity type.
      */
-    <E> void unindex(Class<E> entityClass, Collection<String> ids);
+    default <E> void unindex(Class<E> entityClass, Collection<String> ids) {
+        unindexAsync(entityClass, ids).run();
+    }
 
     /**
      * Remove a collection of entities from the search indexes by id.
@@ -251,6 +340,49 @@ public interface SearchService {
         unindex(entityClass, Arrays.asList(ids));
     }
 
+    /**
+     * Remove an entity from the search indexes by id.
+     * Note: The unindex operation is performed asynchronously. The returned {@link Runnable} can be invoked to
+     * wait for the operation to complete.
+     *
+     * @param entityClass Class of entity to unindex.
+     * @param id          The entity id.
+     * @param <E>         Entity type.
+     * @return Unindex operation completion hook.
+     */
+    @Nonnull
+    default <E> Runnable unindexAsync(Class<E> entityClass, String id) {
+        return unindexAsync(entityClass, Collections.singletonList(id));
+    }
+
+    /**
+     * Remove a collection of entities from the search indexes by id.
+     * Note: The unindex operation is performed asynchronously. The returned {@link Runnable} can be invoked to
+     * wait for the operation to complete.
+     *
+     * @param entityClass Class of entity to unindex.
+     * @param ids         The entity ids.
+     * @param <E>         Entity type.
+     * @return Unindex operation completion hook.
+     */
+    @Nonnull
+    <E> Runnable unindexAsync(Class<E> entityClass, Collection<String> ids);
+
+    /**
+     * Remove a collection of entities from the search indexes by id.
+     * Note: The unindex operation is performed asynchronously. The returned {@link Runnable} can be invoked to
+     * wait for the operation to complete.
+     *
+     * @param entityClass Class of entity to unindex.
+     * @param ids         The entity ids.
+     * @param <E>         Entity type.
+     * @return Unindex operation completion hook.
+     */
+    @Nonnull
+    default <E> Runnable unindexAsync(Class<E> entityClass, Stream<String> ids) {
+        return unindexAsync(entityClass, ids.collect(Collectors.toList()));
+    }
+
     /**
      * Clear a search index of all entries.
      *
@@ -286,4 +418,31 @@ public interface SearchService {
      * @return Number of entries removed.
      */
     int clear(String indexName, int maxDocuments);
+
+    /**
+     * Clear a search index of entries until it is empty or the time limit is reached.
+     * If the time limit is reached first, the returned continuation can be passed to a later call (e.g. in a follow-up push
+     * task) to carry on clearing.
+     *
+     * @param entityClass  Class of entity to clear index for.
+     * @param continuation Continuation returned by a previous call, or null to start from the beginning of the index.
+     * @param timeLimit    Time after which no further deletes are started.
+     * @param <E>          Entity type.
+     * @return Number of entries removed and the continuation, if any.
+     */
+    @Nonnull
+    <E> ClearResult clear(Class<E> entityClass, @Nullable String continuation, Duration timeLimit);
+
+    /**
+     * Clear a search index of entries until it is empty or the time limit is reached.
+     * If the time limit is reached first, the returned continuation can be passed to a later call (e.g. in a follow-up push
+     * task) to carry on clearing.
+     *
+     * @param indexName    The name of the index.
+     * @param continuation Continuation returned by a previous call, or null to start from the beginning of the index.
+     * @param timeLimit    Time after which no further deletes are started.
+     * @return Number of entries removed and the continuation, if any.
+     */
+    @Nonnull
+    ClearResult clear(String indexName, @Nullable String continuation, Duration timeLimit);
 }
@@ -2,30 +2,62 @@ package org.springframework.contrib.gae.search;
 
 import com.google.appengine.api.search.Document;
 import com.google.appengine.api.search.GetRequest;
+import com.google.appengine.api.search.GetResponse;
 import com.google.appengine.api.search.Index;
 import com.google.appengine.api.search.IndexSpec;
 import com.google.appengine.api.search.Results;
 import com.google.appengine.api.search.ScoredDocument;
 import com.google.appengine.api.search.SearchServiceFactory;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Runnables;
+import com.googlecode.objectify.ObjectifyService;
 import org.springframework.contrib.gae.search.conversion.DocumentBuilder;
 import org.springframework.contrib.gae.search.metadata.SearchMetadata;
+import org.springframework.contrib.gae.search.misc.ChunkedIndexOperation;
+import org.springframework.contrib.gae.search.misc.ClearResult;
+import org.springframework.contrib.gae.search.misc.DocumentFingerprints;
+import org.springframework.contrib.gae.search.misc.IndexException;
+import org.springframework.contrib.gae.search.misc.IndexFailure;
+import org.springframework.contrib.gae.search.misc.IndexFailureHandler;
 import org.springframework.contrib.gae.search.misc.IndexOperation;
+import org.springframework.contrib.gae.search.misc.IndexPutOperation;
+import org.springframework.contrib.gae.search.misc.IndexRetryPolicy;
+import org.springframework.contrib.gae.search.query.PreparedQuery;
+import org.springframework.contrib.gae.search.query.ProjectionMapper;
 import org.springframework.contrib.gae.search.query.Query;
 import org.springframework.contrib.gae.search.query.QueryBuilder;
 import org.springframework.contrib.gae.search.query.QueryCompiler;
 import org.springframework.contrib.gae.search.query.QueryImpl;
 import org.springframework.contrib.gae.search.query.Result;
 import org.springframework.contrib.gae.search.query.ResultImpl;
+import org.springframework.contrib.gae.util.CompositeRunnable;
+import org.springframework.contrib.gae.util.RequestThreads;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.util.Assert;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static com.google.common.util.concurrent.Runnables.doNothing;
 
@@ -33,11 +65,22 @@ import static com.google.common.util.concurrent.Runnables.doNothing;
  * {@link SearchService} implementation.
  */
 public class SearchServiceImpl implements SearchService {
+    /**
+     * Default number of worker threads used to build documents.
+     */
+    public static final int DEFAULT_DOCUMENT_BUILD_THREADS = 4;
+
+    private static final AtomicInteger DOCUMENT_BUILD_THREAD_NUMBER = new AtomicInteger();
 
     private final SearchMetadata searchMetadata;
     private final DocumentBuilder documentBuilder;
     private final ConversionService conversionService;
+    private final Map<List<Class<?>>, ProjectionMapper<?>> projectionMappers = new ConcurrentHashMap<>();
     private QueryCompiler queryCompiler;
+    private IndexRetryPolicy indexRetryPolicy = IndexRetryPolicy.DEFAULT;
+    private IndexFailureHandler indexFailureHandler = IndexFailureHandler.LOG;
+    private ExecutorService documentBuildExecutor = newDocumentBuildExecutor(DEFAULT_DOCUMENT_BUILD_THREADS);
+    private DocumentFingerprints documentFingerprints;
 
     /**
      * Create a new instance.
@@ -52,6 +95,69 @@ public class SearchServiceImpl implements SearchService {
         queryCompiler = new QueryCompiler(searchMetadata, conversionService);
     }
 
+    /**
+     * Set the retry policy for documents that fail to index with a transient error.
+     *
+     * @param indexRetryPolicy Retry policy.
+     * @return This service.
+     */
+    public SearchServiceImpl setIndexRetryPolicy(IndexRetryPolicy indexRetryPolicy) {
+        this.indexRetryPolicy = indexRetryPolicy;
+        return this;
+    }
+
+    /**
+     * Set the handler for documents that could not be indexed once retries are exhausted.
+     * The default handler logs failed documents without failing the index operation.
+     *
+     * @param indexFailureHandler Failure handler.
+     * @return This service.
+     */
+    public SearchServiceImpl setIndexFailureHandler(IndexFailureHandler indexFailureHandler) {
+        this.indexFailureHandler = indexFailureHandler;
+        return this;
+    }
+
+    /**
+     * Set the number of worker threads used to build documents when indexing more than one chunk of entities at once.
+     * <p>
+     * The workers are shared by every index operation of this service. Indexed fields and methods are then read on the
+     * worker threads, each chunk with the API environment of the calling request and in a new Objectify context, so indexed
+     * methods can load entities but do not see the request's Objectify session or other thread-local state.
+     * Set to 1 to build all documents on the calling thread.
+     *
+     * @param documentBuildThreads Maximum number of document build threads.
+     * @return This service.
+     */
+    public SearchServiceImpl setDocumentBuildThreads(int documentBuildThreads) {
+        Assert.isTrue(documentBuildThreads > 0, "Document build threads must be greater than zero");
+        if (documentBuildExecutor != null) {
+            // chunks already submitted are still built
+            documentBuildExecutor.shutdown();
+        }
+        this.documentBuildExecutor = documentBuildThreads > 1 ? newDocumentBuildExecutor(documentBuildThreads) : null;
+        return this;
+    }
+
+    /**
+     * Enable skipping documents that have not changed since they were last indexed.
+     *
+     * @param documentFingerprints Document fingerprints, or null to put every document.
+     * @return This service.
+     */
+    public SearchServiceImpl setDocumentFingerprints(@Nullable DocumentFingerprints documentFingerprints) {
+        this.documentFingerprints = documentFingerprints;
+        return this;
+    }
+
+    /**
+     * @return Document fingerprints, or null if every document is put.
+     */
+    @Nullable
+    public DocumentFingerprints getDocumentFingerprints() {
+        return documentFingerprints;
+    }
+
     @Nonnull
     @Override
     public <E> QueryBuilder<E> createQuery(Class<E> entityClass) {
@@ -66,6 +172,32 @@ public class SearchServiceImpl implements SearchService {
         return new ResultImpl<>(result, x -> new ArrayList<>(x.getResults()));
     }
 
+    @Nonnull
+    @Override
+    public <E> PreparedQuery<E> prepare(Query<E> query) {
+        return queryCompiler.prepare(query);
+    }
+
+    @Override
+    public Result<ScoredDocument> execute(PreparedQuery<?> query, Map<String, ?> parameters) {
+        Results<ScoredDocument> result = getIndex(query.getResultType())
+                .search(query.bind(parameters));
+
+        return new ResultImpl<>(result, x -> new ArrayList<>(x.getResults()));
+    }
+
+    @Override
+    public <T> Result<T> execute(Query<?> query, Class<T> projectionType) {
+        Assert.notEmpty(query.getProjection(), "Query must set the fields to project");
+        return execute(query, getProjectionMapper(query.getResultType(), projectionType));
+    }
+
+    @Override
+    public <T> Result<T> execute(PreparedQuery<?> query, Map<String, ?> parameters, Class<T> projectionType) {
+        Assert.notEmpty(query.getProjection(), "Query must set the fields to project");
+        return execute(query, parameters, getProjectionMapper(query.getResultType(), projectionType));
+    }
+
     @Override
     public <E> String getId(E entity) {
         return searchMetadata.getId(entity);
@@ -81,9 +213,8 @@ public class SearchServiceImpl implements SearchService {
         Index index = getIndex(entity.getClass());
         Document document = documentBuilder.apply(id, entity);
 
-        return new IndexOperation(
-                index.putAsync(document)
-        );
+        IndexPutOperation put = put(index, Collections.singletonList(document));
+        return put == null ? doNothing() : put;
     }
 
     @Nonnull
@@ -93,67 +224,246 @@ public class SearchServiceImpl implements SearchService {
             return doNothing();
         }
 
-        Class<?> entityClass = entities.values().toArray()[0].getClass();
-        if (!searchMetadata.hasIndexedFields(entityClass)) {
+        // group entities by index, so a batch of mixed entity types is written to the index of each type
+        Map<Class<?>, Optional<String>> indexNames = new HashMap<>();
+        Map<String, List<Map.Entry<String, E>>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, E> entry : entities.entrySet()) {
+            Optional<String> indexName = indexNames.computeIfAbsent(entry.getValue().getClass(), type -> searchMetadata.hasIndexedFields(type)
+                    ? Optional.of(getIndexName(type))
+                    : Optional.empty());
+            indexName.ifPresent(name -> groups.computeIfAbsent(name, key -> new ArrayList<>()).add(entry));
+        }
+        if (groups.isEmpty()) {
             return doNothing();
         }
 
-        List<Document> documents = entities.entrySet().stream()
-                .map(entry -> documentBuilder.apply(entry.getKey(), entry.getValue()))
+        List<String> chunkIndexNames = new ArrayList<>();
+        List<List<Map.Entry<String, E>>> chunks = new ArrayList<>();
+        groups.forEach((indexName, group) -> Lists.partition(group, ChunkedIndexOperation.MAX_DOCUMENTS_PER_CALL).forEach(chunk -> {
+            chunkIndexNames.add(indexName);
+            chunks.add(chunk);
+        }));
+        List<Future<List<Document>>> builds = buildDocumentsAsync(chunks);
+
+        // each chunk of documents is put as soon as it has been built, in chunk order, completing the oldest put once
+        // the in-flight limit is reached
+        Map<String, Index> indexes = new HashMap<>();
+        List<IndexFailure> failures = new ArrayList<>();
+        List<IndexPutOperation> puts = new ArrayList<>();
+        int completed = 0;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                if (puts.size() - completed >= ChunkedIndexOperation.MAX_IN_FLIGHT) {
+                    failures.addAll(puts.get(completed++).complete());
+                }
+                List<Document> documents = builds.isEmpty() ? buildChunk(chunks.get(i)) : getDocuments(builds.get(i));
+                Index index = indexes.computeIfAbsent(chunkIndexNames.get(i), this::getIndex);
+                IndexPutOperation put = put(index, documents);
+                if (put != null) {
+                    puts.add(put);
+                }
+            }
+        } catch (RuntimeException e) {
+            builds.forEach(build -> build.cancel(true));
+            throw e;
+        }
+
+        // failed documents of every chunk are handled together once all retries are done, so a failing handler does
+        // not stop the retries of other chunks
+        List<Runnable> operations = new ArrayList<>();
+        puts.forEach(put -> operations.add(() -> failures.addAll(put.complete())));
+        operations.add(() -> {
+            if (!failures.isEmpty()) {
+                indexFailureHandler.onFailure(failures);
+            }
+        });
+        return new CompositeRunnable(operations);
+    }
+
+    /**
+     * Start building the documents for chunks of entities on the shared document build executor.
+     * Each chunk is built with the API environment of the calling thread and in its own Objectify context.
+     *
+     * @return A future for the documents of each chunk, or an empty list if the chunks are to be built on the calling thread.
+     */
+    private <E> List<Future<List<Document>>> buildDocumentsAsync(List<List<Map.Entry<String, E>>> chunks) {
+        if (chunks.size() == 1 || documentBuildExecutor == null) {
+            return Collections.emptyList();
+        }
+        return chunks.stream()
+                .map(chunk -> documentBuildExecutor.submit(RequestThreads.withCurrentEnvironment(
+                        () -> ObjectifyService.run(() -> buildChunk(chunk)))))
                 .collect(Collectors.toList());
+    }
 
-        Index index = getIndex(entityClass);
-        return new IndexOperation(
-                index.putAsync(documents)
-        );
+    private <E> List<Document> buildChunk(List<Map.Entry<String, E>> chunk) {
+        List<Document> documents = new ArrayList<>(chunk.size());
+        for (Map.Entry<String, E> entry : chunk) {
+            documents.add(documentBuilder.apply(entry.getKey(), entry.getValue()));
+        }
+        return documents;
     }
 
-    @Override
-    public <E> void unindex(Class<E> entityClass, String id) {
-        String idString = conversionService.convert(id, String.class);
-        getIndex(entityClass).delete(idString);
+    /**
+     * Create a bounded pool of daemon threads whose idle threads end after a minute.
+     */
+    private static ExecutorService newDocumentBuildExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "search-document-builder-" + DOCUMENT_BUILD_THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static List<Document> getDocuments(Future<List<Document>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IndexException(e.getCause());
+        }
     }
 
+    @Nonnull
     @Override
-    public <E> void unindex(Class<E> entityClass, Collection<String> ids) {
-        getIndex(entityClass).delete(ids);
+    public <E> Runnable unindexAsync(Class<E> entityClass, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return doNothing();
+        }
+
+        Index index = getIndex(entityClass);
+        if (documentFingerprints != null) {
+            documentFingerprints.remove(index.getName(), ids);
+        }
+        return ChunkedIndexOperation.start(new ArrayList<>(ids), ChunkedIndexOperation.MAX_DOCUMENTS_PER_CALL, ChunkedIndexOperation.MAX_IN_FLIGHT,
+                chunk -> new IndexOperation(index.deleteAsync(chunk)));
     }
 
     @Override
     public <E> int clear(Class<E> entityClass, int maxDocuments) {
-        return clear(getIndex(entityClass), maxDocuments);
+        return clear(getIndex(entityClass), null, maxDocuments, null).getCount();
     }
 
     @Override
     public int clear(String indexName, int maxDocuments) {
-        return clear(getIndex(indexName), maxDocuments);
+        return clear(getIndex(indexName), null, maxDocuments, null).getCount();
+    }
+
+    @Nonnull
+    @Override
+    public <E> ClearResult clear(Class<E> entityClass, @Nullable String continuation, Duration timeLimit) {
+        return clear(getIndex(entityClass), continuation, -1, timeLimit);
+    }
+
+    @Nonnull
+    @Override
+    public ClearResult clear(String indexName, @Nullable String continuation, Duration timeLimit) {
+        return clear(getIndex(indexName), continuation, -1, timeLimit);
     }
 
-    private int clear(Index index, int maxDocuments) {
+    /**
+     * Remove documents in id order, starting after the given id.
+     * The next range of ids is fetched while the deletes for previous ranges are in flight, with up to
+     * {@link ChunkedIndexOperation#MAX_IN_FLIGHT} deletes outstanding at once.
+     */
+    private ClearResult clear(Index index, @Nullable String startAfterId, int maxDocuments, @Nullable Duration timeLimit) {
+        long deadline = timeLimit == null ? Long.MAX_VALUE : System.currentTimeMillis() + timeLimit.toMillis();
+        if (documentFingerprints != null) {
+            documentFingerprints.clear(index.getName());
+        }
+        Deque<IndexOperation> deletes = new ArrayDeque<>();
         int count = 0;
+        String lastId = startAfterId;
+        boolean complete = false;
+
+        int batchSize = getBatchSize(count, maxDocuments);
+        Future<GetResponse<Document>> range = getDocumentIdsAsync(index, lastId, batchSize);
+        while (range != null) {
+            List<String> documentIds = getDocumentIds(range);
+            range = null;
+            if (documentIds.isEmpty()) {
+                complete = true;
+                break;
+            }
 
-        List<String> documentIds;
-        do {
-            documentIds = getDocumentIds(index, count, maxDocuments);
             count += documentIds.size();
-            index.delete(documentIds);
-        } while (!documentIds.isEmpty() && (maxDocuments <= 0 || maxDocuments > count));
+            lastId = documentIds.get(documentIds.size() - 1);
+            complete = documentIds.size() < batchSize;
+
+            if (!complete && (maxDocuments <= 0 || maxDocuments > count) && System.currentTimeMillis() < deadline) {
+                batchSize = getBatchSize(count, maxDocuments);
+                range = getDocumentIdsAsync(index, lastId, batchSize);
+            }
 
-        return count;
+            if (deletes.size() >= ChunkedIndexOperation.MAX_IN_FLIGHT) {
+                deletes.remove().run();
+            }
+            deletes.add(new IndexOperation(index.deleteAsync(documentIds)));
+        }
+
+        new CompositeRunnable(new ArrayList<>(deletes)).run();
+        return new ClearResult(count, complete ? null : lastId);
     }
 
-    private List<String> getDocumentIds(Index index, int currentCount, int maxDocuments) {
-        int defaultBatchSize = 200;
-        int batchSize = maxDocuments > 0 ? Math.min(maxDocuments - currentCount, defaultBatchSize) : defaultBatchSize;
-        GetRequest request = GetRequest.newBuilder()
+    /**
+     * Start putting documents to an index.
+     * When document fingerprints are enabled, documents that have not changed since they were last indexed are skipped.
+     *
+     * @return The put, or null if no document has changed.
+     */
+    @Nullable
+    private IndexPutOperation put(Index index, List<Document> documents) {
+        if (documentFingerprints == null) {
+            return new IndexPutOperation(index, documents, indexRetryPolicy, indexFailureHandler);
+        }
+
+        DocumentFingerprints.Changes changes = documentFingerprints.getChanges(index.getName(), documents);
+        if (changes.isEmpty()) {
+            return null;
+        }
+        return new IndexPutOperation(index, changes.getDocuments(), indexRetryPolicy, indexFailureHandler, changes::indexed);
+    }
+
+    private int getBatchSize(int currentCount, int maxDocuments) {
+        int defaultBatchSize = ChunkedIndexOperation.MAX_DOCUMENTS_PER_CALL;
+        return maxDocuments > 0 ? Math.min(maxDocuments - currentCount, defaultBatchSize) : defaultBatchSize;
+    }
+
+    private Future<GetResponse<Document>> getDocumentIdsAsync(Index index, @Nullable String startAfterId, int batchSize) {
+        GetRequest.Builder request = GetRequest.newBuilder()
                 .setReturningIdsOnly(true)
-                .setLimit(batchSize)
-                .build();
+                .setLimit(batchSize);
+        if (startAfterId != null) {
+            request.setStartId(startAfterId)
+                    .setIncludeStart(false);
+        }
+        return index.getRangeAsync(request.build());
+    }
 
-        Iterable<Document> iterable = () -> index.getRange(request).iterator();
-        return StreamSupport.stream(iterable.spliterator(), false)
-                .map(Document::getId)
-                .collect(Collectors.toList());
+    private List<String> getDocumentIds(Future<GetResponse<Document>> range) {
+        try {
+            return range.get().getResults().stream()
+                    .map(Document::getId)
+                    .collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e);
+        } catch (ExecutionException e) {
+            throw new IndexException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ProjectionMapper<T> getProjectionMapper(Class<?> entityType, Class<T> projectionType) {
+        return (ProjectionMapper<T>) projectionMappers.computeIfAbsent(Arrays.asList(entityType, projectionType),
+                key -> new ProjectionMapper<>(entityType, projectionType, searchMetadata, conversionService));
     }
 
     private <E> Index getIndex(Class<E> entityClass) {
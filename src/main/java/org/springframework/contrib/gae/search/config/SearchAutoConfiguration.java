@@ -1,8 +1,13 @@
 package org.springframework.contrib.gae.search.config;
 
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.contrib.gae.search.SearchService;
@@ -12,6 +17,8 @@ import org.springframework.contrib.gae.search.metadata.IndexNamingStrategy;
 import org.springframework.contrib.gae.search.metadata.SearchMetadata;
 import org.springframework.contrib.gae.search.metadata.impl.DefaultIndexTypeRegistry;
 import org.springframework.contrib.gae.search.metadata.impl.SearchMetadataImpl;
+import org.springframework.contrib.gae.search.misc.DocumentFingerprints;
+import org.springframework.contrib.gae.search.misc.IndexFailureHandler;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.util.CollectionUtils;
 
@@ -26,6 +33,8 @@ import java.util.List;
 public class SearchAutoConfiguration {
 
     List<SearchConfigurer> configurers = new ArrayList<>();
+    private IndexFailureHandler indexFailureHandler;
+    private DocumentFingerprints documentFingerprints;
 
     /**
      * Gather all the {@link SearchConfigurer} beans registered with the container.
@@ -40,6 +49,27 @@ public class SearchAutoConfiguration {
         }
     }
 
+    /**
+     * Use a registered {@link IndexFailureHandler} bean for documents that could not be indexed.
+     * If none is registered, failed documents are logged.
+     *
+     * @param indexFailureHandler Index failure handler.
+     */
+    @Autowired(required = false)
+    public void setIndexFailureHandler(IndexFailureHandler indexFailureHandler) {
+        this.indexFailureHandler = indexFailureHandler;
+    }
+
+    /**
+     * Use the registered {@link DocumentFingerprints} bean to skip putting unchanged documents.
+     *
+     * @param documentFingerprints Document fingerprints.
+     */
+    @Autowired(required = false)
+    public void setDocumentFingerprints(DocumentFingerprints documentFingerprints) {
+        this.documentFingerprints = documentFingerprints;
+    }
+
     /**
      * @return Search properties bean.
      */
@@ -58,7 +88,14 @@ public class SearchAutoConfiguration {
     public SearchService searchService() {
         ConversionService conversionService = createConversionService();
 
-        return new SearchServiceImpl(searchMetadata(), conversionService);
+        SearchServiceImpl searchService = new SearchServiceImpl(searchMetadata(), conversionService)
+                .setIndexRetryPolicy(searchProperties().toIndexRetryPolicy())
+                .setDocumentBuildThreads(searchProperties().getDocumentBuildThreads())
+                .setDocumentFingerprints(documentFingerprints);
+        if (indexFailureHandler != null) {
+            searchService.setIndexFailureHandler(indexFailureHandler);
+        }
+        return searchService;
     }
 
     /**
@@ -103,4 +140,51 @@ public class SearchAutoConfiguration {
         configurers.forEach(configurer -> configurer.registerSearchConverters(conversionService));
         return conversionService;
     }
+
+    /**
+     * Document fingerprints, enabled with {@code spring.contrib.gae.search.document-fingerprints=true}.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "spring.contrib.gae.search", name = "document-fingerprints", havingValue = "true")
+    static class DocumentFingerprintsConfiguration {
+
+        /**
+         * @return Document fingerprints held in memcache.
+         */
+        @Bean
+        @ConditionalOnMissingBean(DocumentFingerprints.class)
+        public DocumentFingerprints documentFingerprints() {
+            return new DocumentFingerprints(MemcacheServiceFactory.getMemcacheService(DocumentFingerprints.NAMESPACE));
+        }
+
+        /**
+         * Document fingerprint counts exported through Micrometer.
+         */
+        @Configuration
+        @ConditionalOnClass(MeterBinder.class)
+        static class DocumentFingerprintsMetricsConfiguration {
+            /**
+             * Name of the indexed documents counter.
+             */
+            static final String DOCUMENTS_COUNTER = "gae.search.index.documents";
+
+            /**
+             * @param documentFingerprints Document fingerprints.
+             * @return Binds the {@value #DOCUMENTS_COUNTER} counter, tagged with {@code result} written or skipped.
+             */
+            @Bean
+            public MeterBinder documentFingerprintsMetrics(DocumentFingerprints documentFingerprints) {
+                return registry -> {
+                    FunctionCounter.builder(DOCUMENTS_COUNTER, documentFingerprints, DocumentFingerprints::getWrittenCount)
+                            .description("Search documents written to an index")
+                            .tag("result", "written")
+                            .register(registry);
+                    FunctionCounter.builder(DOCUMENTS_COUNTER, documentFingerprints, DocumentFingerprints::getSkippedCount)
+                            .description("Search documents skipped because they had not changed")
+                            .tag("result", "skipped")
+                            .register(registry);
+                };
+            }
+        }
+    }
 }
@@ -1,10 +1,14 @@
 package org.springframework.contrib.gae.search.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.contrib.gae.search.SearchServiceImpl;
 import org.springframework.contrib.gae.search.metadata.IndexNamingStrategy;
 import org.springframework.contrib.gae.search.metadata.impl.DefaultIndexNamingStrategy;
+import org.springframework.contrib.gae.search.misc.IndexRetryPolicy;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * GAE Search configuration properties.
  */
@@ -22,6 +26,32 @@ public class SearchProperties {
      */
     private int defaultLimit = 20;
 
+    /**
+     * Maximum number of attempts to index a document that fails with a transient error, including the first attempt.
+     */
+    private int indexMaxAttempts = IndexRetryPolicy.DEFAULT_MAX_ATTEMPTS;
+
+    /**
+     * Delay before retrying documents that failed to index. The delay doubles with each retry.
+     */
+    private Duration indexRetryInitialDelay = IndexRetryPolicy.DEFAULT_INITIAL_DELAY;
+
+    /**
+     * Maximum delay between index retries.
+     */
+    private Duration indexRetryMaxDelay = IndexRetryPolicy.DEFAULT_MAX_DELAY;
+
+    /**
+     * Maximum number of worker threads used to build documents when indexing more than 200 entities at once.
+     * Set to 1 to build documents on the calling thread.
+     */
+    private int documentBuildThreads = SearchServiceImpl.DEFAULT_DOCUMENT_BUILD_THREADS;
+
+    /**
+     * Whether to remember a fingerprint of each indexed document in memcache and skip putting documents that have not changed.
+     */
+    private boolean documentFingerprints = false;
+
     public int getDefaultLimit() {
         return defaultLimit;
     }
@@ -39,4 +69,56 @@ public class SearchProperties {
         this.indexNamingStrategy = indexNamingStrategy;
         return this;
     }
+
+    public int getIndexMaxAttempts() {
+        return indexMaxAttempts;
+    }
+
+    public SearchProperties setIndexMaxAttempts(int indexMaxAttempts) {
+        this.indexMaxAttempts = indexMaxAttempts;
+        return this;
+    }
+
+    public Duration getIndexRetryInitialDelay() {
+        return indexRetryInitialDelay;
+    }
+
+    public SearchProperties setIndexRetryInitialDelay(Duration indexRetryInitialDelay) {
+        this.indexRetryInitialDelay = indexRetryInitialDelay;
+        return this;
+    }
+
+    public Duration getIndexRetryMaxDelay() {
+        return indexRetryMaxDelay;
+    }
+
+    public SearchProperties setIndexRetryMaxDelay(Duration indexRetryMaxDelay) {
+        this.indexRetryMaxDelay = indexRetryMaxDelay;
+        return this;
+    }
+
+    public int getDocumentBuildThreads() {
+        return documentBuildThreads;
+    }
+
+    public SearchProperties setDocumentBuildThreads(int documentBuildThreads) {
+        this.documentBuildThreads = documentBuildThreads;
+        return this;
+    }
+
+    public boolean isDocumentFingerprints() {
+        return documentFingerprints;
+    }
+
+    public SearchProperties setDocumentFingerprints(boolean documentFingerprints) {
+        this.documentFingerprints = documentFingerprints;
+        return this;
+    }
+
+    /**
+     * @return Retry policy for documents that fail to index.
+     */
+    public IndexRetryPolicy toIndexRetryPolicy() {
+        return new IndexRetryPolicy(indexMaxAttempts, indexRetryInitialDelay, indexRetryMaxDelay);
+    }
 }
@@ -1,23 +1,23 @@
 package org.springframework.contrib.gae.search.conversion;
 
 import com.google.appengine.api.search.Document;
-import com.google.appengine.api.search.Field;
-import org.springframework.contrib.gae.search.metadata.SearchFieldMetadata;
 import org.springframework.contrib.gae.search.metadata.SearchMetadata;
 import org.springframework.core.convert.ConversionService;
 
-import java.util.List;
+import javax.annotation.Nonnull;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
 /**
  * Build a search API {@link Document} from a collection of field values.
+ * Documents are written by a {@link DocumentWriter} compiled once per entity class.
  */
 public class DocumentBuilder implements BiFunction<Object, Object, Document> {
 
     final SearchMetadata searchMetadata;
     final ConversionService conversionService;
-    final BiFunction<SearchFieldMetadata, Object, List<Field>> fieldBuilder;
+    private final Map<Class<?>, DocumentWriter<?>> writers = new ConcurrentHashMap<>();
 
     /**
      * Create a new instance.
@@ -28,28 +28,32 @@ public class DocumentBuilder implements BiFunction<Object, Object, Document> {
     public DocumentBuilder(SearchMetadata searchMetadata, ConversionService conversionService) {
         this.conversionService = conversionService;
         this.searchMetadata = searchMetadata;
-        this.fieldBuilder = new FieldBuilder(conversionService);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Document apply(Object id, Object entity) {
-        String idValue = conversionService.convert(id, String.class);
+        String idValue = id instanceof String ? (String) id : conversionService.convert(id, String.class);
 
-        Document.Builder builder = createDocument(idValue);
-
-        Map<String, SearchFieldMetadata> accessors = searchMetadata.getFields(entity.getClass());
-        accessors.values().forEach((accessor) -> {
-            List<Field> searchFields = fieldBuilder.apply(accessor, accessor.getValue(entity));
-
-            searchFields.forEach(builder::addField);
-        });
-
-        return builder.build();
+        DocumentWriter<Object> writer = (DocumentWriter<Object>) getWriter(entity.getClass());
+        return writer.write(idValue, entity);
     }
 
-    private Document.Builder createDocument(String idValue) {
-        Document.Builder builder = Document.newBuilder();
-        builder.setId(idValue);
-        return builder;
+    /**
+     * Get the document writer for an entity class, compiling it on first use.
+     *
+     * @param entityClass Entity class.
+     * @param <E>         Entity type.
+     * @return Document writer.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <E> DocumentWriter<E> getWriter(Class<E> entityClass) {
+        DocumentWriter<?> writer = writers.get(entityClass);
+        if (writer == null) {
+            writer = writers.computeIfAbsent(entityClass,
+                    type -> new DocumentWriter<>(entityClass, searchMetadata.getFields(entityClass).values(), conversionService));
+        }
+        return (DocumentWriter<E>) writer;
     }
 }
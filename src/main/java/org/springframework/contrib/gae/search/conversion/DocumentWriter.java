@@ -0,0 +1,236 @@
+package org.springframework.contrib.gae.search.conversion;
+
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Field;
+import com.google.appengine.api.search.GeoPoint;
+import org.springframework.contrib.gae.search.IndexType;
+import org.springframework.contrib.gae.search.metadata.SearchFieldMetadata;
+import org.springframework.contrib.gae.search.metadata.impl.MetadataUtils;
+import org.springframework.contrib.gae.search.misc.IndexException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.BiConsumer;
+
+/**
+ * Compiled writer for the search documents of an entity class.
+ * <p>
+ * The search fields of the class are resolved once, with a {@link MethodHandle} getter for each field or method and the
+ * conversion to the search API type of its {@link IndexType} chosen up front. Writing a document then reads each value
+ * through its getter and adds a search field per value straight to the document builder. Null values are written as fields
+ * without a value, so every search field of the class is part of the document.
+ * Values that are already of the target type are not passed through the {@link ConversionService}.
+ *
+ * @param <E> Entity type.
+ */
+public class DocumentWriter<E> {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<E> entityType;
+    private final FieldWriter[] fieldWriters;
+
+    /**
+     * Create a new instance.
+     *
+     * @param entityType        Entity class.
+     * @param fields            Search fields of the entity class.
+     * @param conversionService Conversion service used to convert values to the search API type of each field.
+     */
+    public DocumentWriter(Class<E> entityType, Collection<SearchFieldMetadata> fields, ConversionService conversionService) {
+        this.entityType = entityType;
+        this.fieldWriters = fields.stream()
+                .map(field -> new FieldWriter(field, conversionService))
+                .toArray(FieldWriter[]::new);
+    }
+
+    /**
+     * @return The entity class.
+     */
+    @Nonnull
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Write the search document for an entity.
+     *
+     * @param id     Document id.
+     * @param entity The entity.
+     * @return Search document.
+     */
+    @Nonnull
+    public Document write(String id, E entity) {
+        Document.Builder builder = Document.newBuilder().setId(id);
+        for (FieldWriter fieldWriter : fieldWriters) {
+            fieldWriter.write(builder, entity);
+        }
+        return builder.build();
+    }
+
+    private static class FieldWriter {
+        private final SearchFieldMetadata metadata;
+        private final String name;
+        private final boolean singleValued;
+        private final MethodHandle getter;
+        private final ValueConverter converter;
+        private final BiConsumer<Field.Builder, Object> mutator;
+
+        FieldWriter(SearchFieldMetadata metadata, ConversionService conversionService) {
+            this.metadata = metadata;
+            this.name = metadata.getEncodedName();
+
+            IndexType indexType = metadata.getIndexType();
+            this.singleValued = indexType == IndexType.NUMBER || indexType == IndexType.DATE;
+            this.getter = getter(metadata.getMember());
+
+            ResolvableType memberType = ResolvableType.forType(metadata.getMemberType());
+            Class<?> valueType = MetadataUtils.isCollectionType(metadata.getMemberType())
+                    ? memberType.isArray() ? memberType.getComponentType().resolve(Object.class) : memberType.asCollection().resolveGeneric(0)
+                    : memberType.resolve(Object.class);
+
+            switch (indexType) {
+                case IDENTIFIER:
+                    this.converter = new ValueConverter(conversionService, valueType, String.class);
+                    this.mutator = (field, value) -> field.setAtom((String) value);
+                    break;
+                case HTML:
+                    this.converter = new ValueConverter(conversionService, valueType, String.class);
+                    this.mutator = (field, value) -> field.setHTML((String) value);
+                    break;
+                case NUMBER:
+                    this.converter = new ValueConverter(conversionService, valueType, Double.class);
+                    this.mutator = (field, value) -> {
+                        if (value != null) {
+                            field.setNumber((Double) value);
+                        }
+                    };
+                    break;
+                case DATE:
+                    this.converter = new ValueConverter(conversionService, valueType, Date.class);
+                    this.mutator = (field, value) -> {
+                        if (value != null) {
+                            field.setDate((Date) value);
+                        }
+                    };
+                    break;
+                case GEOPOINT:
+                    this.converter = new ValueConverter(conversionService, valueType, GeoPoint.class);
+                    this.mutator = (field, value) -> {
+                        if (value != null) {
+                            field.setGeoPoint((GeoPoint) value);
+                        }
+                    };
+                    break;
+                default:
+                    this.converter = new ValueConverter(conversionService, valueType, String.class);
+                    this.mutator = (field, value) -> field.setText((String) value);
+                    break;
+            }
+        }
+
+        void write(Document.Builder builder, Object entity) {
+            Object value = getValue(entity);
+            if (value instanceof Collection) {
+                assertMultipleValuesSupported();
+                for (Object element : (Collection<?>) value) {
+                    writeValue(builder, element);
+                }
+            } else if (value != null && value.getClass().isArray()) {
+                assertMultipleValuesSupported();
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    writeValue(builder, Array.get(value, i));
+                }
+            } else {
+                writeValue(builder, value);
+            }
+        }
+
+        private void writeValue(Document.Builder builder, @Nullable Object value) {
+            Object converted = value == null ? null : converter.convert(value);
+            Field.Builder field = Field.newBuilder().setName(name);
+            mutator.accept(field, converted);
+            builder.addField(field);
+        }
+
+        @Nullable
+        private Object getValue(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (ClassCastException | WrongMethodTypeException e) {
+                throw new IllegalArgumentException(String.format("Cannot get value of %s for entity %s", metadata.getMember(), entity), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IndexException(e);
+            }
+        }
+
+        /**
+         * Search only supports multiple values if the index type is not {@link IndexType#NUMBER} or {@link IndexType#DATE}.
+         * See https://cloud.google.com/appengine/docs/standard/java/search/ - Multi-valued fields.
+         */
+        private void assertMultipleValuesSupported() {
+            if (singleValued) {
+                throw new IndexException("Search does not support multiplicity on NUMBER or DATE index types. Offending member: " + metadata.getMember());
+            }
+        }
+
+        private static MethodHandle getter(Member member) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                ((AccessibleObject) member).setAccessible(true);
+                MethodHandle handle = member instanceof Method
+                        ? lookup.unreflect((Method) member)
+                        : lookup.unreflectGetter((java.lang.reflect.Field) member);
+                return handle.asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access search field " + member, e);
+            }
+        }
+    }
+
+    /**
+     * Converts values of a field to the search API type of its index type.
+     * The type descriptors for the declared value type are resolved once, and values that are already of the target type
+     * are returned as they are.
+     */
+    private static class ValueConverter {
+        private final ConversionService conversionService;
+        private final Class<?> valueType;
+        private final Class<?> targetType;
+        private final TypeDescriptor sourceDescriptor;
+        private final TypeDescriptor targetDescriptor;
+
+        ValueConverter(ConversionService conversionService, @Nullable Class<?> valueType, Class<?> targetType) {
+            this.conversionService = conversionService;
+            this.valueType = valueType;
+            this.targetType = targetType;
+            this.sourceDescriptor = valueType == null ? null : TypeDescriptor.valueOf(valueType);
+            this.targetDescriptor = TypeDescriptor.valueOf(targetType);
+        }
+
+        @Nullable
+        Object convert(Object value) {
+            Class<?> type = value.getClass();
+            if (type == targetType) {
+                return value;
+            }
+            TypeDescriptor source = type == valueType ? sourceDescriptor : TypeDescriptor.valueOf(type);
+            return conversionService.convert(value, source, targetDescriptor);
+        }
+    }
+}
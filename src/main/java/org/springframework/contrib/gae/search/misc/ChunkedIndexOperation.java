@@ -0,0 +1,92 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.common.collect.Lists;
+import org.springframework.util.Assert;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runnable that splits a search index operation into chunks issued as concurrent asynchronous calls.
+ * <p>
+ * Chunks are issued immediately on {@link #start(List, int, int, Function)}, with at most {@code maxInFlight} chunks
+ * outstanding at a time: once the limit is reached the oldest outstanding chunk is completed before the next one is issued.
+ * Calling {@link Runnable#run()} synchronously completes all remaining chunks.
+ * <p>
+ * A failure in one chunk does not prevent the remaining chunks from completing. The first failure is thrown once all
+ * chunks have completed, with failures from any other chunks added as suppressed exceptions.
+ */
+public class ChunkedIndexOperation implements Runnable {
+    /**
+     * Maximum number of documents per search index put or delete.
+     */
+    public static final int MAX_DOCUMENTS_PER_CALL = 200;
+
+    /**
+     * Default maximum number of chunks in flight at once.
+     */
+    public static final int MAX_IN_FLIGHT = 10;
+
+    private final List<Runnable> operations = new ArrayList<>();
+    private RuntimeException failure;
+    private int completed;
+
+    private ChunkedIndexOperation() {
+    }
+
+    /**
+     * Split the items into chunks and start the operation for each chunk.
+     *
+     * @param items       Items to operate on.
+     * @param chunkSize   Maximum number of items per chunk.
+     * @param maxInFlight Maximum number of chunks outstanding at a time.
+     * @param operation   Starts the asynchronous operation for a chunk, returning a runnable used to complete it.
+     * @param <T>         Item type.
+     * @return The chunked operation.
+     */
+    @Nonnull
+    public static <T> ChunkedIndexOperation start(List<T> items, int chunkSize, int maxInFlight, Function<List<T>, Runnable> operation) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero");
+        Assert.isTrue(maxInFlight > 0, "Max in flight must be greater than zero");
+
+        ChunkedIndexOperation result = new ChunkedIndexOperation();
+        for (List<T> chunk : Lists.partition(items, chunkSize)) {
+            if (result.operations.size() - result.completed >= maxInFlight) {
+                result.completeNext();
+            }
+            result.operations.add(operation.apply(chunk));
+        }
+        return result;
+    }
+
+    @Override
+    public void run() {
+        while (completed < operations.size()) {
+            completeNext();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The number of chunks the operation was split into.
+     */
+    public int getChunkCount() {
+        return operations.size();
+    }
+
+    private void completeNext() {
+        try {
+            operations.get(completed++).run();
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+}
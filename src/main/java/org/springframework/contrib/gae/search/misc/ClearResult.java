@@ -0,0 +1,53 @@
+package org.springframework.contrib.gae.search.misc;
+
+import javax.annotation.Nullable;
+
+/**
+ * Result of clearing a search index within a time limit.
+ * If the time limit was reached before the index was empty, the result holds a continuation that can be passed to
+ * the next clear request (e.g. a follow-up push task) to carry on where this one stopped.
+ */
+public class ClearResult {
+    private final int count;
+    private final String continuation;
+
+    /**
+     * Create a new instance.
+     *
+     * @param count        Number of documents removed.
+     * @param continuation Continuation to resume from, or null if the index has been cleared.
+     */
+    public ClearResult(int count, @Nullable String continuation) {
+        this.count = count;
+        this.continuation = continuation;
+    }
+
+    /**
+     * @return Number of documents removed.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return Continuation to resume from, or null if the index has been cleared.
+     */
+    @Nullable
+    public String getContinuation() {
+        return continuation;
+    }
+
+    /**
+     * @return Whether the index has been cleared.
+     */
+    public boolean isComplete() {
+        return continuation == null;
+    }
+
+    @Override
+    public String toString() {
+        return isComplete()
+                ? String.format("Cleared %d documents", count)
+                : String.format("Cleared %d documents, continue after %s", count, continuation);
+    }
+}
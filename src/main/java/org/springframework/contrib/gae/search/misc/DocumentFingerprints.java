@@ -0,0 +1,300 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.memcache.Expiration;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.appengine.api.memcache.MemcacheService.CasValues;
+import com.google.appengine.api.memcache.MemcacheService.IdentifiableValue;
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Field;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers a fingerprint of the last document indexed for each document id, so that putting a document that has not
+ * changed can be skipped.
+ * <p>
+ * Fingerprints are a hash of the names, types and values of the document fields, and are held in memcache so they are shared
+ * between instances. A fingerprint is only recorded once its document has been indexed, and is removed when the document is
+ * unindexed. Clearing an index moves it to a new generation of fingerprints, so documents are put again after a clear.
+ * A fingerprint lost from memcache only means the document is put again.
+ * <p>
+ * While a document is being put, its fingerprint is replaced by a short-lived marker using memcache compare-and-set, so a
+ * concurrent put of any version of the document is not skipped. When puts of the same document overlap, the order in which
+ * the Search API applies them is unknown, so none of them records a fingerprint and the next put is not skipped either.
+ * <p>
+ * Only puts made through the {@link org.springframework.contrib.gae.search.SearchService} are seen. A document written or
+ * deleted directly through the Search API keeps its old fingerprint, so call {@link #remove(String, Collection)} or
+ * {@link #clear(String)} after changing an index by other means.
+ * <p>
+ * Counts of written and skipped documents are available from {@link #getWrittenCount()} and {@link #getSkippedCount()}.
+ */
+public class DocumentFingerprints {
+    /**
+     * Memcache namespace for document fingerprints.
+     */
+    public static final String NAMESPACE = "search-fingerprints";
+
+    private static final String GENERATION_PREFIX = "generation:";
+    private static final String DOCUMENT_PREFIX = "document:";
+    private static final String PENDING_PREFIX = "pending:";
+    private static final String CONFLICT_PREFIX = "conflict:";
+    private static final Expiration MARKER_EXPIRATION = Expiration.byDeltaSeconds(60);
+
+    private final MemcacheService memcache;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * Create a new instance.
+     *
+     * @param memcache Memcache service holding fingerprints, usually for the {@link #NAMESPACE} namespace.
+     */
+    public DocumentFingerprints(MemcacheService memcache) {
+        this.memcache = memcache;
+    }
+
+    /**
+     * Compute the fingerprint of a document.
+     * The document id and rank are not part of the fingerprint.
+     *
+     * @param document The document.
+     * @return Document fingerprint.
+     */
+    public static long fingerprint(Document document) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putString(hasher, document.getLocale() == null ? null : document.getLocale().toString());
+        for (Field field : document.getFields()) {
+            putString(hasher, field.getName());
+            hasher.putInt(field.getType() == null ? -1 : field.getType().ordinal());
+            putString(hasher, field.getLocale() == null ? null : field.getLocale().toString());
+            if (field.getType() == null) {
+                continue;
+            }
+            switch (field.getType()) {
+                case NUMBER:
+                    hasher.putDouble(field.getNumber());
+                    break;
+                case DATE:
+                    hasher.putLong(field.getDate() == null ? Long.MIN_VALUE : field.getDate().getTime());
+                    break;
+                case GEO_POINT:
+                    hasher.putDouble(field.getGeoPoint().getLatitude())
+                            .putDouble(field.getGeoPoint().getLongitude());
+                    break;
+                case ATOM:
+                    putString(hasher, field.getAtom());
+                    break;
+                case HTML:
+                    putString(hasher, field.getHTML());
+                    break;
+                case TEXT:
+                    putString(hasher, field.getText());
+                    break;
+                default:
+                    putString(hasher, field.toString());
+                    break;
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Find the documents that have changed since they were last indexed, counting the others as skipped, and mark the
+     * changed documents as being put.
+     *
+     * @param indexName Name of the index the documents are put to.
+     * @param documents Documents to put.
+     * @return The changed documents.
+     */
+    @Nonnull
+    public Changes getChanges(String indexName, List<Document> documents) {
+        // the generation is read in the same call as the fingerprints, so an index that was cleared is noticed at no extra cost
+        String generationKey = GENERATION_PREFIX + indexName;
+        List<String> keys = new ArrayList<>(documents.size() + 1);
+        documents.forEach(document -> keys.add(getKey(indexName, document.getId())));
+        keys.add(generationKey);
+        Map<String, IdentifiableValue> previous = memcache.getIdentifiables(keys);
+        long generation = getGeneration(generationKey, previous.get(generationKey));
+
+        List<Document> changed = new ArrayList<>();
+        Map<String, String> values = new HashMap<>();
+        Map<String, String> markers = new HashMap<>();
+        Map<String, CasValues> touched = new HashMap<>();
+        Map<String, Object> added = new HashMap<>();
+        for (Document document : documents) {
+            String key = getKey(indexName, document.getId());
+            String value = generation + ":" + fingerprint(document);
+            IdentifiableValue current = previous.get(key);
+            if (current != null && value.equals(current.getValue())) {
+                continue;
+            }
+
+            // a marker means another put of the document is still in flight, and either put may be applied last
+            boolean overlaps = current != null && isMarker(current.getValue());
+            String marker = (overlaps ? CONFLICT_PREFIX : PENDING_PREFIX) + UUID.randomUUID();
+            changed.add(document);
+            values.put(key, value);
+            markers.put(key, marker);
+            if (current == null) {
+                added.put(key, marker);
+            } else {
+                touched.put(key, new CasValues(current, marker, MARKER_EXPIRATION));
+            }
+        }
+
+        // documents whose marker could not be set were changed concurrently, so their fingerprints are not recorded
+        Set<String> marked = new HashSet<>();
+        if (!touched.isEmpty()) {
+            marked.addAll(memcache.putIfUntouched(touched));
+        }
+        if (!added.isEmpty()) {
+            marked.addAll(memcache.putAll(added, MARKER_EXPIRATION, MemcacheService.SetPolicy.ADD_ONLY_IF_NOT_PRESENT));
+        }
+        markers.entrySet().removeIf(entry -> !marked.contains(entry.getKey()) || entry.getValue().startsWith(CONFLICT_PREFIX));
+
+        skipped.addAndGet(documents.size() - changed.size());
+        return new Changes(changed, indexed -> recordIndexed(indexName, indexed, values, markers));
+    }
+
+    /**
+     * Forget the fingerprints of unindexed documents.
+     *
+     * @param indexName Name of the index.
+     * @param ids       Ids of the documents.
+     */
+    public void remove(String indexName, Collection<String> ids) {
+        memcache.deleteAll(ids.stream()
+                .map(id -> getKey(indexName, id))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Forget the fingerprints of all documents in an index, by moving the index to a new generation of fingerprints.
+     *
+     * @param indexName Name of the index.
+     */
+    public void clear(String indexName) {
+        String generationKey = GENERATION_PREFIX + indexName;
+        Long current = (Long) memcache.get(generationKey);
+        long next = Math.max(System.currentTimeMillis(), current == null ? 0 : current + 1);
+        memcache.put(generationKey, next);
+    }
+
+    /**
+     * @return Number of documents written to an index since this instance was created.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return Number of unchanged documents skipped since this instance was created.
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Record the fingerprints of indexed documents whose marker is still the one set before the put.
+     */
+    private void recordIndexed(String indexName, List<Document> indexed, Map<String, String> values, Map<String, String> markers) {
+        written.addAndGet(indexed.size());
+        List<String> keys = indexed.stream()
+                .map(document -> getKey(indexName, document.getId()))
+                .filter(markers::containsKey)
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        Map<String, CasValues> fingerprints = new HashMap<>();
+        memcache.getIdentifiables(keys).forEach((key, current) -> {
+            if (markers.get(key).equals(current.getValue())) {
+                fingerprints.put(key, new CasValues(current, values.get(key)));
+            }
+        });
+        if (!fingerprints.isEmpty()) {
+            memcache.putIfUntouched(fingerprints);
+        }
+    }
+
+    private long getGeneration(String generationKey, @Nullable IdentifiableValue current) {
+        if (current != null) {
+            return (Long) current.getValue();
+        }
+        long generation = System.currentTimeMillis();
+        if (!memcache.put(generationKey, generation, null, MemcacheService.SetPolicy.ADD_ONLY_IF_NOT_PRESENT)) {
+            Long added = (Long) memcache.get(generationKey);
+            generation = added == null ? generation : added;
+        }
+        return generation;
+    }
+
+    private static String getKey(String indexName, String id) {
+        return DOCUMENT_PREFIX + indexName + ":" + id;
+    }
+
+    private static boolean isMarker(@Nullable Object value) {
+        return value instanceof String && (((String) value).startsWith(PENDING_PREFIX) || ((String) value).startsWith(CONFLICT_PREFIX));
+    }
+
+    private static void putString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putUnencodedChars(value);
+        }
+    }
+
+    /**
+     * Documents that have changed since they were last indexed.
+     */
+    public static class Changes {
+        private final List<Document> documents;
+        private final Consumer<List<Document>> onIndexed;
+
+        Changes(List<Document> documents, Consumer<List<Document>> onIndexed) {
+            this.documents = Collections.unmodifiableList(new ArrayList<>(documents));
+            this.onIndexed = onIndexed;
+        }
+
+        /**
+         * @return The changed documents.
+         */
+        @Nonnull
+        public List<Document> getDocuments() {
+            return documents;
+        }
+
+        /**
+         * @return Whether no document has changed.
+         */
+        public boolean isEmpty() {
+            return documents.isEmpty();
+        }
+
+        /**
+         * Record the fingerprints of documents that have been indexed.
+         *
+         * @param indexed Documents that were indexed.
+         */
+        public void indexed(List<Document> indexed) {
+            onIndexed.accept(indexed);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.search.OperationResult;
+import com.google.appengine.api.search.StatusCode;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A document that could not be indexed, after any retries have been exhausted.
+ */
+public class IndexFailure {
+    private final String indexName;
+    private final String documentId;
+    private final OperationResult result;
+    private final int attempts;
+
+    /**
+     * Create a new instance.
+     *
+     * @param indexName  Name of the index the document was put to.
+     * @param documentId Id of the document.
+     * @param result     Result of the last attempt.
+     * @param attempts   Number of attempts made.
+     */
+    public IndexFailure(String indexName, String documentId, OperationResult result, int attempts) {
+        this.indexName = indexName;
+        this.documentId = documentId;
+        this.result = result;
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return Name of the index the document was put to.
+     */
+    @Nonnull
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * @return Id of the document.
+     */
+    @Nonnull
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * @return Result of the last attempt.
+     */
+    @Nonnull
+    public OperationResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return Status code of the last attempt.
+     */
+    @Nonnull
+    public StatusCode getCode() {
+        return result.getCode();
+    }
+
+    /**
+     * @return Number of attempts made.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s: %s %s after %d attempt(s)", indexName, documentId, result.getCode(), result.getMessage(), attempts);
+    }
+}
@@ -0,0 +1,37 @@
+package org.springframework.contrib.gae.search.misc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Receives documents that could not be indexed.
+ * Register a bean of this type to record failed documents (e.g. in a dead-letter store so they can be reindexed later).
+ */
+@FunctionalInterface
+public interface IndexFailureHandler {
+    /**
+     * Handler that logs each failed document and does not fail the index operation.
+     */
+    IndexFailureHandler LOG = failures -> {
+        Logger logger = LoggerFactory.getLogger(IndexFailureHandler.class);
+        failures.forEach(failure -> logger.error("Failed to index document {}", failure));
+    };
+
+    /**
+     * Handler that fails the index operation with an {@link IndexException}.
+     */
+    IndexFailureHandler FAIL = failures -> {
+        throw new IndexException("Failed to index documents: " + failures);
+    };
+
+    /**
+     * Handle documents that could not be indexed.
+     * This is called once per index operation, after every put and retry of the operation has completed, from the thread
+     * that completes the index operation.
+     *
+     * @param failures The failed documents.
+     */
+    void onFailure(List<IndexFailure> failures);
+}
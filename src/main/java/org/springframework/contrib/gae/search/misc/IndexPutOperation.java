@@ -0,0 +1,156 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Index;
+import com.google.appengine.api.search.OperationResult;
+import com.google.appengine.api.search.PutException;
+import com.google.appengine.api.search.PutResponse;
+import com.google.appengine.api.search.SearchBaseException;
+import com.google.appengine.api.search.StatusCode;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runnable that completes an asynchronous search index put, checking the result of each document.
+ * <p>
+ * Calling {@link Runnable#run()} waits for the put to complete. Documents that failed with a transient error are put
+ * again according to the {@link IndexRetryPolicy}. Once every retry has completed, documents that still failed are passed
+ * to the {@link IndexFailureHandler} rather than failing the operation, unless the handler itself throws.
+ * Use {@link #complete()} to collect the failures of several puts and handle them together.
+ */
+public class IndexPutOperation implements Runnable {
+    private final Index index;
+    private final IndexRetryPolicy retryPolicy;
+    private final IndexFailureHandler failureHandler;
+    private final Consumer<List<Document>> onIndexed;
+
+    private List<Document> documents;
+    private Future<PutResponse> future;
+    private int attempts;
+
+    /**
+     * Create a new instance, starting the put.
+     *
+     * @param index          Index to put to.
+     * @param documents      Documents to put.
+     * @param retryPolicy    Retry policy for transient failures.
+     * @param failureHandler Handler for documents that could not be indexed.
+     */
+    public IndexPutOperation(Index index, List<Document> documents, IndexRetryPolicy retryPolicy, IndexFailureHandler failureHandler) {
+        this(index, documents, retryPolicy, failureHandler, indexed -> {
+        });
+    }
+
+    /**
+     * Create a new instance, starting the put.
+     *
+     * @param index          Index to put to.
+     * @param documents      Documents to put.
+     * @param retryPolicy    Retry policy for transient failures.
+     * @param failureHandler Handler for documents that could not be indexed.
+     * @param onIndexed      Receives the documents indexed successfully by each attempt.
+     */
+    public IndexPutOperation(Index index, List<Document> documents, IndexRetryPolicy retryPolicy, IndexFailureHandler failureHandler,
+                             Consumer<List<Document>> onIndexed) {
+        this.index = index;
+        this.retryPolicy = retryPolicy;
+        this.failureHandler = failureHandler;
+        this.onIndexed = onIndexed;
+        put(documents);
+    }
+
+    @Override
+    public void run() {
+        List<IndexFailure> failures = complete();
+        if (!failures.isEmpty()) {
+            failureHandler.onFailure(failures);
+        }
+    }
+
+    /**
+     * Wait for the put and any retries to complete, without passing failed documents to the failure handler.
+     *
+     * @return The documents that could not be indexed.
+     */
+    @Nonnull
+    public List<IndexFailure> complete() {
+        List<IndexFailure> failures = new ArrayList<>();
+        while (future != null) {
+            List<OperationResult> results = getResults();
+            List<Document> indexed = new ArrayList<>();
+            List<Document> retries = new ArrayList<>();
+
+            for (int i = 0; i < documents.size(); i++) {
+                OperationResult result = results.get(i);
+                if (result.getCode() == StatusCode.OK) {
+                    indexed.add(documents.get(i));
+                    continue;
+                }
+                Document document = documents.get(i);
+                if (retryPolicy.shouldRetry(result.getCode(), attempts)) {
+                    retries.add(document);
+                } else {
+                    failures.add(new IndexFailure(index.getName(), document.getId(), result, attempts));
+                }
+            }
+
+            future = null;
+            if (!indexed.isEmpty()) {
+                onIndexed.accept(indexed);
+            }
+            if (!retries.isEmpty()) {
+                sleep(retryPolicy.getDelayMillis(attempts));
+                put(retries);
+            }
+        }
+        return failures;
+    }
+
+    private void put(List<Document> documents) {
+        this.documents = documents;
+        this.future = index.putAsync(documents);
+        this.attempts++;
+    }
+
+    /**
+     * @return The result of each document, in document order.
+     */
+    private List<OperationResult> getResults() {
+        try {
+            return future.get().getResults();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e);
+        } catch (ExecutionException e) {
+            return getResults(e.getCause());
+        } catch (SearchBaseException e) {
+            return getResults(e);
+        }
+    }
+
+    private List<OperationResult> getResults(Throwable cause) {
+        if (cause instanceof PutException && ((PutException) cause).getResults().size() == documents.size()) {
+            return ((PutException) cause).getResults();
+        }
+        if (cause instanceof SearchBaseException) {
+            // the whole put failed, so every document shares the same result
+            return Collections.nCopies(documents.size(), ((SearchBaseException) cause).getOperationResult());
+        }
+        throw new IndexException(cause);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexException(e);
+        }
+    }
+}
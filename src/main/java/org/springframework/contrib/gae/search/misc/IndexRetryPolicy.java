@@ -0,0 +1,101 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.search.StatusCode;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy for search index puts.
+ * Documents that fail with a transient status code are retried with exponential backoff and jitter, up to a maximum
+ * number of attempts.
+ */
+public class IndexRetryPolicy {
+    /**
+     * Default maximum number of attempts per document, including the first.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * Default delay before the first retry.
+     */
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(100);
+
+    /**
+     * Default maximum delay between retries.
+     */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+
+    /**
+     * Policy that retries with the default attempts and delays.
+     */
+    public static final IndexRetryPolicy DEFAULT = new IndexRetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+
+    /**
+     * Policy that does not retry.
+     */
+    public static final IndexRetryPolicy NONE = new IndexRetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private static final Set<StatusCode> TRANSIENT_CODES = EnumSet.of(
+            StatusCode.TRANSIENT_ERROR,
+            StatusCode.INTERNAL_ERROR,
+            StatusCode.TIMEOUT_ERROR,
+            StatusCode.CONCURRENT_TRANSACTION_ERROR
+    );
+
+    private final int maxAttempts;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+
+    /**
+     * Create a new instance.
+     *
+     * @param maxAttempts  Maximum number of attempts per document, including the first.
+     * @param initialDelay Delay before the first retry. Each following retry doubles the delay.
+     * @param maxDelay     Maximum delay between retries.
+     */
+    public IndexRetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        Assert.isTrue(maxAttempts > 0, "Max attempts must be greater than zero");
+
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @return Maximum number of attempts per document, including the first.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Whether a document that failed with the given status should be retried.
+     *
+     * @param code     Status code of the failed attempt.
+     * @param attempts Number of attempts made so far.
+     * @return Whether to retry.
+     */
+    public boolean shouldRetry(StatusCode code, int attempts) {
+        return attempts < maxAttempts && TRANSIENT_CODES.contains(code);
+    }
+
+    /**
+     * Get the delay before the next attempt.
+     * The delay is chosen at random between half and all of the exponential backoff, so that concurrent retries spread out.
+     *
+     * @param attempts Number of attempts made so far.
+     * @return Delay in milliseconds.
+     */
+    public long getDelayMillis(int attempts) {
+        long backoff = initialDelay.toMillis() << Math.min(attempts - 1, 20);
+        long delay = Math.min(backoff, maxDelay.toMillis());
+        if (delay <= 1) {
+            return delay;
+        }
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
@@ -0,0 +1,119 @@
+package org.springframework.contrib.gae.search.query;
+
+import com.google.appengine.api.search.GeoPoint;
+import org.springframework.contrib.gae.search.IndexType;
+import org.springframework.contrib.gae.search.Operator;
+import org.springframework.contrib.gae.search.metadata.SearchFieldMetadata;
+import org.springframework.contrib.gae.search.metadata.impl.MetadataUtils;
+import org.springframework.core.convert.ConversionService;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Filter fragment with its field encoding, operator and value conversion resolved up front.
+ * Writing the fragment only converts and escapes the value.
+ */
+class CompiledFragment {
+    private static final QueryEscapeFunction ESCAPE_FUNCTION = new QueryEscapeFunction();
+    private static final CompiledFragment RAW = new CompiledFragment(null, null, null, false, null);
+
+    private final String prefix;
+    private final String collectionPrefix;
+    private final Class<?> conversionType;
+    private final boolean quoted;
+    private final ConversionService conversionService;
+
+    private CompiledFragment(@Nullable String prefix, @Nullable String collectionPrefix, @Nullable Class<?> conversionType,
+                             boolean quoted, @Nullable ConversionService conversionService) {
+        this.prefix = prefix;
+        this.collectionPrefix = collectionPrefix;
+        this.conversionType = conversionType;
+        this.quoted = quoted;
+        this.conversionService = conversionService;
+    }
+
+    /**
+     * @return Fragment that writes its value as it is.
+     */
+    static CompiledFragment raw() {
+        return RAW;
+    }
+
+    /**
+     * Compile a predicate fragment.
+     *
+     * @param fieldMetadata     Metadata of the filtered field.
+     * @param operator          Filter operator.
+     * @param conversionService Conversion service used to convert values.
+     * @return Compiled fragment.
+     */
+    static CompiledFragment predicate(SearchFieldMetadata fieldMetadata, Operator operator, ConversionService conversionService) {
+        String field = fieldMetadata.getEncodedName();
+        IndexType indexType = fieldMetadata.getIndexType();
+        return new CompiledFragment(
+                field + operator.getSymbol(),
+                field + Operator.IS.getSymbol() + "(",
+                getConversionType(indexType),
+                shouldQuoteQueryValue(indexType),
+                conversionService);
+    }
+
+    /**
+     * Write the fragment for a value.
+     *
+     * @param builder Builder of the query string.
+     * @param value   Fragment value.
+     */
+    void write(StringBuilder builder, @Nullable Object value) {
+        if (prefix == null) {
+            builder.append(value);
+        } else if (value != null && MetadataUtils.isCollectionType(value.getClass())) {
+            builder.append(collectionPrefix);
+            Iterable<?> values = value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value);
+            boolean first = true;
+            for (Object element : values) {
+                if (!first) {
+                    builder.append(" OR ");
+                }
+                builder.append(convertValueToString(element));
+                first = false;
+            }
+            builder.append(')');
+        } else {
+            builder.append(prefix).append(convertValueToString(value));
+        }
+    }
+
+    private String convertValueToString(@Nullable Object value) {
+        Object indexedValue = conversionType.isInstance(value) ? value : conversionService.convert(value, conversionType);
+        String stringValue = indexedValue instanceof String ? (String) indexedValue : conversionService.convert(indexedValue, String.class);
+        return quoted ? ESCAPE_FUNCTION.apply(stringValue) : stringValue;
+    }
+
+    private static Class<?> getConversionType(IndexType indexType) {
+        switch (indexType) {
+            case NUMBER:
+                return Double.class;
+            case DATE:
+                return Date.class;
+            case GEOPOINT:
+                return GeoPoint.class;
+            default:
+                return String.class;
+        }
+    }
+
+    private static boolean shouldQuoteQueryValue(IndexType indexType) {
+        switch (indexType) {
+            case IDENTIFIER:
+            case HTML:
+            case TEXT:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
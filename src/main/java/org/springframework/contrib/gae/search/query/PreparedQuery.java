@@ -0,0 +1,180 @@
+package org.springframework.contrib.gae.search.query;
+
+import com.google.appengine.api.search.Cursor;
+import com.google.appengine.api.search.QueryOptions;
+import com.google.appengine.api.search.SortOptions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, thread-safe {@link Query} compiled for repeated execution.
+ * <p>
+ * Field encodings, operators, value conversions and sort options are resolved once when the query is prepared, so binding
+ * the query for an execution only converts and escapes the filter values. Values given as a {@link QueryParameter} are
+ * supplied each time the query is bound, all other values are fixed when the query is prepared.
+ * A prepared query can be shared between threads, and the {@code with} methods return a copy with different paging.
+ *
+ * @param <E> Entity type.
+ */
+public class PreparedQuery<E> {
+    private final Class<E> resultType;
+    private final CompiledFragment[] fragments;
+    private final Object[] values;
+    private final Set<String> parameterNames;
+    private final SortOptions sortOptions;
+    private final List<String> projection;
+    private final String[] fieldsToReturn;
+    private final int limit;
+    private final int skip;
+    private final Integer accuracy;
+    private final boolean idsOnly;
+    private final Cursor cursor;
+    private final QueryOptions queryOptions;
+
+    PreparedQuery(Class<E> resultType, CompiledFragment[] fragments, Object[] values, SortOptions sortOptions,
+                  List<String> projection, String[] fieldsToReturn, int limit, int skip, @Nullable Integer accuracy,
+                  boolean idsOnly, @Nullable Cursor cursor) {
+        this.resultType = resultType;
+        this.fragments = fragments;
+        this.values = values;
+        this.sortOptions = sortOptions;
+        this.projection = projection;
+        this.fieldsToReturn = fieldsToReturn;
+        this.limit = limit;
+        this.skip = skip;
+        this.accuracy = accuracy;
+        this.idsOnly = idsOnly;
+        this.cursor = cursor;
+
+        Set<String> names = new LinkedHashSet<>();
+        for (Object value : values) {
+            if (value instanceof QueryParameter) {
+                names.add(((QueryParameter) value).getName());
+            }
+        }
+        this.parameterNames = Collections.unmodifiableSet(names);
+        this.queryOptions = buildQueryOptions();
+    }
+
+    /**
+     * @return The type of result this query produces.
+     */
+    @Nonnull
+    public Class<E> getResultType() {
+        return resultType;
+    }
+
+    /**
+     * @return Names of the parameters that must be bound to execute the query.
+     */
+    @Nonnull
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * @return Names of the fields returned with each document, empty if all fields are returned.
+     */
+    @Nonnull
+    public List<String> getProjection() {
+        return projection;
+    }
+
+    /**
+     * @param limit Maximum number of results.
+     * @return Copy of this query with the given limit.
+     */
+    @Nonnull
+    public PreparedQuery<E> withLimit(int limit) {
+        return new PreparedQuery<>(resultType, fragments, values, sortOptions, projection, fieldsToReturn, limit, skip, accuracy, idsOnly, cursor);
+    }
+
+    /**
+     * @param skip Number of results to skip.
+     * @return Copy of this query with the given offset.
+     */
+    @Nonnull
+    public PreparedQuery<E> withSkip(int skip) {
+        return new PreparedQuery<>(resultType, fragments, values, sortOptions, projection, fieldsToReturn, limit, skip, accuracy, idsOnly, cursor);
+    }
+
+    /**
+     * @param cursor Cursor to continue from, or null to start from the offset.
+     * @return Copy of this query with the given cursor.
+     */
+    @Nonnull
+    public PreparedQuery<E> withCursor(@Nullable Cursor cursor) {
+        return new PreparedQuery<>(resultType, fragments, values, sortOptions, projection, fieldsToReturn, limit, skip, accuracy, idsOnly, cursor);
+    }
+
+    /**
+     * @return Search API options of this query.
+     */
+    @Nonnull
+    QueryOptions getQueryOptions() {
+        return queryOptions;
+    }
+
+    /**
+     * Bind parameter values, producing a Google Search API query.
+     *
+     * @param parameters Parameter values by name.
+     * @return Search API query.
+     * @throws IllegalArgumentException If a parameter of the query has no value.
+     */
+    @Nonnull
+    public com.google.appengine.api.search.Query bind(Map<String, ?> parameters) {
+        StringBuilder queryString = new StringBuilder();
+        for (int i = 0; i < fragments.length; i++) {
+            if (i > 0) {
+                queryString.append(' ');
+            }
+            fragments[i].write(queryString, getValue(values[i], parameters));
+        }
+
+        return com.google.appengine.api.search.Query.newBuilder()
+                .setOptions(queryOptions)
+                .build(queryString.toString());
+    }
+
+    @Nullable
+    private static Object getValue(@Nullable Object value, Map<String, ?> parameters) {
+        if (!(value instanceof QueryParameter)) {
+            return value;
+        }
+        String name = ((QueryParameter) value).getName();
+        if (!parameters.containsKey(name)) {
+            throw new IllegalArgumentException("No value bound for query parameter " + value);
+        }
+        return parameters.get(name);
+    }
+
+    private QueryOptions buildQueryOptions() {
+        QueryOptions.Builder options = QueryOptions.newBuilder();
+        // if you set both of these the google lib will throw runtime when executing the query
+        if (cursor != null) {
+            options.setCursor(cursor);
+        } else {
+            options.setOffset(skip);
+        }
+        options.setLimit(limit);
+        if (accuracy != null) {
+            options.setNumberFoundAccuracy(accuracy);
+        }
+        options.setSortOptions(sortOptions);
+        // the google lib rejects fields to return once returning ids only has been set, even to false
+        if (fieldsToReturn.length > 0) {
+            options.setFieldsToReturn(fieldsToReturn);
+        } else if (idsOnly) {
+            options.setReturningIdsOnly(true);
+        }
+
+        return options.build();
+    }
+}
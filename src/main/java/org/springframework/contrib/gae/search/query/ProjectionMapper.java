@@ -0,0 +1,184 @@
+package org.springframework.contrib.gae.search.query;
+
+import com.google.appengine.api.search.Field;
+import com.google.appengine.api.search.Results;
+import com.google.appengine.api.search.ScoredDocument;
+import org.springframework.beans.BeanUtils;
+import org.springframework.contrib.gae.search.metadata.SearchFieldMetadata;
+import org.springframework.contrib.gae.search.metadata.SearchMetadata;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the fields returned with search results straight into projections, without loading entities.
+ * <p>
+ * The projection type is either an interface, backed by the field values of each document, or a class with a default
+ * constructor whose setters or fields are populated from the field values. Projection properties are matched by name to the
+ * search fields of the entity type once, so mapping a document only decodes the field names through a lookup and converts
+ * the values to the property types with the conversion service. Properties of multi-valued fields receive every value,
+ * other properties the first. Properties that were not returned with the document are left unset.
+ *
+ * @param <T> Projection type.
+ * @see QueryBuilder#project(String...)
+ */
+public class ProjectionMapper<T> implements Function<Results<ScoredDocument>, List<T>> {
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
+    private final Class<T> projectionType;
+    private final ConversionService conversionService;
+    private final Map<String, Property> properties = new HashMap<>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param entityType        Entity type the search results are for.
+     * @param projectionType    Projection type.
+     * @param searchMetadata    Search metadata.
+     * @param conversionService Conversion service used to convert field values to the property types.
+     */
+    public ProjectionMapper(Class<?> entityType, Class<T> projectionType, SearchMetadata searchMetadata, ConversionService conversionService) {
+        this.projectionType = projectionType;
+        this.conversionService = conversionService;
+
+        Map<String, SearchFieldMetadata> fields = searchMetadata.getFields(entityType);
+        if (projectionType.isInterface()) {
+            for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(projectionType)) {
+                Method getter = descriptor.getReadMethod();
+                if (getter != null && fields.containsKey(descriptor.getName())) {
+                    addProperty(fields.get(descriptor.getName()), new TypeDescriptor(new MethodParameter(getter, -1)), null);
+                }
+            }
+        } else {
+            ReflectionUtils.doWithFields(projectionType, field -> {
+                if (fields.containsKey(field.getName())) {
+                    ReflectionUtils.makeAccessible(field);
+                    addProperty(fields.get(field.getName()), new TypeDescriptor(field),
+                            (target, value) -> ReflectionUtils.setField(field, target, value));
+                }
+            }, field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers()));
+            for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(projectionType)) {
+                Method setter = descriptor.getWriteMethod();
+                if (setter != null && fields.containsKey(descriptor.getName())) {
+                    addProperty(fields.get(descriptor.getName()), new TypeDescriptor(new MethodParameter(setter, 0)),
+                            (target, value) -> ReflectionUtils.invokeMethod(setter, target, value));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<T> apply(Results<ScoredDocument> results) {
+        return results.getResults().stream()
+                .map(this::map)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Map the fields of a document into a projection.
+     *
+     * @param document The document.
+     * @return The projection.
+     */
+    @Nonnull
+    public T map(ScoredDocument document) {
+        Map<Property, Object> values = new HashMap<>();
+        for (Field field : document.getFields()) {
+            Property property = properties.get(field.getName());
+            if (property != null) {
+                property.addValue(values, getValue(field));
+            }
+        }
+
+        if (projectionType.isInterface()) {
+            Map<String, Object> source = new HashMap<>();
+            values.forEach((property, value) -> source.put(property.name, property.convert(value, conversionService)));
+            return PROJECTION_FACTORY.createProjection(projectionType, source);
+        }
+
+        T projection = BeanUtils.instantiateClass(projectionType);
+        values.forEach((property, value) -> {
+            Object converted = property.convert(value, conversionService);
+            if (converted != null) {
+                property.writer.accept(projection, converted);
+            }
+        });
+        return projection;
+    }
+
+    private void addProperty(SearchFieldMetadata field, TypeDescriptor type, @Nullable PropertyWriter writer) {
+        properties.put(field.getEncodedName(), new Property(field.getMemberName(), type, writer));
+    }
+
+    @Nullable
+    private static Object getValue(Field field) {
+        if (field.getType() == null) {
+            return null;
+        }
+        switch (field.getType()) {
+            case NUMBER:
+                return field.getNumber();
+            case DATE:
+                return field.getDate();
+            case GEO_POINT:
+                return field.getGeoPoint();
+            case ATOM:
+                return field.getAtom();
+            case HTML:
+                return field.getHTML();
+            default:
+                return field.getText();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PropertyWriter {
+        void accept(Object target, Object value);
+    }
+
+    private static class Property {
+        private final String name;
+        private final TypeDescriptor type;
+        private final boolean multiValued;
+        private final PropertyWriter writer;
+
+        Property(String name, TypeDescriptor type, @Nullable PropertyWriter writer) {
+            this.name = name;
+            this.type = type;
+            this.multiValued = type.isCollection() || type.isArray();
+            this.writer = writer;
+        }
+
+        @SuppressWarnings("unchecked")
+        void addValue(Map<Property, Object> values, @Nullable Object value) {
+            if (!multiValued) {
+                values.putIfAbsent(this, value);
+            } else {
+                ((List<Object>) values.computeIfAbsent(this, property -> new ArrayList<>())).add(value);
+            }
+        }
+
+        @Nullable
+        Object convert(@Nullable Object value, ConversionService conversionService) {
+            if (value == null) {
+                return null;
+            }
+            return conversionService.convert(value, TypeDescriptor.forObject(value), type);
+        }
+    }
+}
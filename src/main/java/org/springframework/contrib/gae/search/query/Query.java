@@ -6,6 +6,7 @@ import org.springframework.data.domain.Sort;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -64,6 +65,14 @@ public interface Query<E> {
      */
     boolean isIdsOnly();
 
+    /**
+     * @return Names of the fields returned with each document, empty if all fields are returned.
+     */
+    @Nonnull
+    default List<String> getProjection() {
+        return Collections.emptyList();
+    }
+
     /**
      * A filter filterIn fragment.
      */
@@ -119,6 +119,7 @@ public interface QueryBuilder<E> {
      *
      * @param onlyIds Retrieve ids only?
      * @return Query builder.
+     * @throws IllegalStateException If ids only are retrieved and a projection has been set.
      */
     @Nonnull
     QueryBuilder<E> setRetrieveIdsOnly(boolean onlyIds);
@@ -127,12 +128,37 @@ public interface QueryBuilder<E> {
      * Set the filter to retrieve ids only.
      *
      * @return Query builder.
+     * @throws IllegalStateException If a projection has been set.
      */
     @Nonnull
     default QueryBuilder<E> retrieveIdsOnly() {
         return setRetrieveIdsOnly(true);
     }
 
+    /**
+     * Set the fields returned with each document, so results can be mapped to a projection without loading entities.
+     * Setting a projection turns off {@link #retrieveIdsOnly() retrieving ids only}.
+     *
+     * @param fields Names of the fields to return.
+     * @return Query builder.
+     * @see SearchService#execute(Query, Class)
+     */
+    @Nonnull
+    QueryBuilder<E> setProjection(Collection<String> fields);
+
+    /**
+     * Set the fields returned with each document, so results can be mapped to a projection without loading entities.
+     * Setting a projection turns off {@link #retrieveIdsOnly() retrieving ids only}.
+     *
+     * @param fields Names of the fields to return.
+     * @return Query builder.
+     * @see SearchService#execute(Query, Class)
+     */
+    @Nonnull
+    default QueryBuilder<E> project(String... fields) {
+        return setProjection(Arrays.asList(fields));
+    }
+
 
     /**
      * Set the cursor if paging is required
@@ -1,21 +1,41 @@
 package org.springframework.contrib.gae.search.query;
 
-import com.google.appengine.api.search.QueryOptions;
+import com.google.appengine.api.search.SortOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.contrib.gae.search.metadata.SearchMetadata;
 import org.springframework.core.convert.ConversionService;
 
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 /**
  * Compiles a {@link Query} into a Google Search API {@link Query}.
+ * <p>
+ * Queries are compiled through a {@link PreparedQuery}. The compiled field encodings and sort options are cached by the
+ * shape of the query (result type, filtered fields, operators, sort and projection), so queries that only differ in their
+ * filter values are compiled once.
  */
 public class QueryCompiler implements Function<Query<?>, com.google.appengine.api.search.Query> {
+    /**
+     * Maximum number of compiled query shapes held in the cache.
+     */
+    public static final int MAX_CACHED_QUERIES = 1000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryCompiler.class);
+    private static final Object RAW = new Object();
 
-    private final QueryStringCompiler queryStringCompiler;
-    private final QueryOptionsCompiler queryOptionsCompiler;
+    private final SearchMetadata searchMetadata;
+    private final ConversionService conversionService;
+    private final SortOptionsCompiler sortOptionsCompiler;
+    private final Cache<List<Object>, CompiledQuery> compiledQueries = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_QUERIES)
+            .build();
 
     /**
      * Create a new instance.
@@ -24,19 +44,85 @@ public class QueryCompiler implements Function<Query<?>, com.google.appengine.ap
      * @param conversionService Conversion service.
      */
     public QueryCompiler(SearchMetadata searchMetadata, ConversionService conversionService) {
-        queryStringCompiler = new QueryStringCompiler(searchMetadata, conversionService);
-        queryOptionsCompiler = new QueryOptionsCompiler(searchMetadata);
+        this.searchMetadata = searchMetadata;
+        this.conversionService = conversionService;
+        this.sortOptionsCompiler = new SortOptionsCompiler(searchMetadata);
     }
 
     @Override
     public com.google.appengine.api.search.Query apply(Query<?> query) {
-        String queryString = queryStringCompiler.apply(query);
-        LOGGER.trace("QUERY [{}]", queryString);
-        QueryOptions queryOptions = queryOptionsCompiler.apply(query);
-        LOGGER.trace(queryOptions.toString());
-
-        return com.google.appengine.api.search.Query.newBuilder()
-                .setOptions(queryOptions)
-                .build(queryString);
+        com.google.appengine.api.search.Query compiled = prepare(query).bind(Collections.emptyMap());
+        LOGGER.trace("QUERY [{}]", compiled.getQueryString());
+        LOGGER.trace(compiled.getOptions().toString());
+
+        return compiled;
+    }
+
+    /**
+     * Prepare a query for repeated execution.
+     *
+     * @param query The query.
+     * @param <E>   Entity type.
+     * @return Prepared query.
+     */
+    @Nonnull
+    public <E> PreparedQuery<E> prepare(Query<E> query) {
+        List<Query.Fragment> fragments = query.getFragments();
+        Object[] values = new Object[fragments.size()];
+        List<Object> shape = new ArrayList<>(fragments.size() * 2 + 3);
+        shape.add(query.getResultType());
+        shape.add(query.getSort().orElse(null));
+        shape.add(query.getProjection());
+        for (int i = 0; i < values.length; i++) {
+            Query.Fragment fragment = fragments.get(i);
+            values[i] = fragment.getValue();
+            shape.add(fragment.isRaw() ? RAW : fragment.getField());
+            shape.add(fragment.isRaw() ? RAW : fragment.getOperator());
+        }
+
+        CompiledQuery compiled = compiledQueries.getIfPresent(shape);
+        if (compiled == null) {
+            compiled = compile(query);
+            compiledQueries.put(shape, compiled);
+        }
+
+        return new PreparedQuery<>(
+                query.getResultType(),
+                compiled.fragments,
+                values,
+                compiled.sortOptions,
+                query.getProjection(),
+                compiled.fieldsToReturn,
+                query.getLimit().orElseGet(searchMetadata::getDefaultLimit),
+                query.getSkip().orElse(0),
+                query.getAccuracy().orElse(null),
+                query.isIdsOnly(),
+                query.getCursor().orElse(null));
+    }
+
+    private CompiledQuery compile(Query<?> query) {
+        CompiledFragment[] fragments = query.getFragments().stream()
+                .map(fragment -> fragment.isRaw()
+                        ? CompiledFragment.raw()
+                        : CompiledFragment.predicate(searchMetadata.getField(query.getResultType(), fragment.getField()), fragment.getOperator(), conversionService))
+                .toArray(CompiledFragment[]::new);
+
+        String[] fieldsToReturn = query.getProjection().stream()
+                .map(field -> searchMetadata.encodeFieldName(query.getResultType(), field))
+                .toArray(String[]::new);
+
+        return new CompiledQuery(fragments, sortOptionsCompiler.apply(query), fieldsToReturn);
+    }
+
+    private static class CompiledQuery {
+        private final CompiledFragment[] fragments;
+        private final SortOptions sortOptions;
+        private final String[] fieldsToReturn;
+
+        CompiledQuery(CompiledFragment[] fragments, SortOptions sortOptions, String[] fieldsToReturn) {
+            this.fragments = fragments;
+            this.sortOptions = sortOptions;
+            this.fieldsToReturn = fieldsToReturn;
+        }
     }
 }
@@ -3,10 +3,13 @@ package org.springframework.contrib.gae.search.query;
 import com.google.appengine.api.search.Cursor;
 import org.springframework.contrib.gae.search.Operator;
 import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +28,7 @@ public class QueryImpl<E> implements QueryBuilder<E>, Query<E> {
     private Integer accuracy = null;
     private boolean idsOnly = false;
     private Cursor cursor;
+    private List<String> projection = Collections.emptyList();
 
     /**
      * Create a new instance.
@@ -92,10 +96,19 @@ public class QueryImpl<E> implements QueryBuilder<E>, Query<E> {
     @Nonnull
     @Override
     public QueryBuilder<E> setRetrieveIdsOnly(boolean idsOnly) {
+        Assert.state(!idsOnly || projection.isEmpty(), "Cannot retrieve ids only from a query with a projection");
         this.idsOnly = idsOnly;
         return this;
     }
 
+    @Nonnull
+    @Override
+    public QueryBuilder<E> setProjection(Collection<String> fields) {
+        this.projection = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.idsOnly = false;
+        return this;
+    }
+
     @Nonnull
     @Override
     public QueryBuilder<E> setCursor(Cursor cursor) {
@@ -148,4 +161,10 @@ public class QueryImpl<E> implements QueryBuilder<E>, Query<E> {
     public boolean isIdsOnly() {
         return idsOnly;
     }
+
+    @Nonnull
+    @Override
+    public List<String> getProjection() {
+        return projection;
+    }
 }
@@ -1,16 +1,20 @@
 package org.springframework.contrib.gae.search.query;
 
 import com.google.appengine.api.search.QueryOptions;
+import org.springframework.contrib.gae.search.conversion.DefaultSearchConversionService;
 import org.springframework.contrib.gae.search.metadata.SearchMetadata;
 
 import java.util.function.Function;
 
 /**
  * Compile a Google Search API {@link QueryOptions} object from a {@link Query} object.
+ *
+ * @deprecated Use {@link QueryCompiler}, which compiles the filter string and query options together and caches them by
+ * query shape. This class delegates to it.
  */
+@Deprecated
 public class QueryOptionsCompiler implements Function<Query<?>, QueryOptions> {
-    final SortOptionsCompiler sortOptionsCompiler;
-    final SearchMetadata searchMetadata;
+    private final QueryCompiler queryCompiler;
 
     /**
      * Create a new instance.
@@ -18,31 +22,11 @@ public class QueryOptionsCompiler implements Function<Query<?>, QueryOptions> {
      * @param searchMetadata Search metadata.
      */
     public QueryOptionsCompiler(SearchMetadata searchMetadata) {
-        this.searchMetadata = searchMetadata;
-        sortOptionsCompiler = new SortOptionsCompiler(searchMetadata);
+        this.queryCompiler = new QueryCompiler(searchMetadata, new DefaultSearchConversionService());
     }
 
     @Override
     public QueryOptions apply(Query<?> query) {
-        final QueryOptions.Builder options = QueryOptions.newBuilder();
-        int offset = query.getSkip().orElse(0);
-        setPagingOptions(query, options, offset);
-        int limit = query.getLimit().orElseGet(searchMetadata::getDefaultLimit);
-        options.setLimit(limit);
-        query.getAccuracy().ifPresent(options::setNumberFoundAccuracy);
-        options.setSortOptions(sortOptionsCompiler.apply(query));
-
-        options.setReturningIdsOnly(query.isIdsOnly());
-
-        return options.build();
-    }
-
-    private void setPagingOptions(Query<?> query, QueryOptions.Builder options, int offset) {
-        // if you set both of these the google lib will throw runtime when executing the query
-        if (query.getCursor().isPresent()) {
-            options.setCursor(query.getCursor().get());
-        } else {
-            options.setOffset(offset);
-        }
+        return queryCompiler.prepare(query).getQueryOptions();
     }
 }
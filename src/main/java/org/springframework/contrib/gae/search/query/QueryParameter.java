@@ -0,0 +1,54 @@
+package org.springframework.contrib.gae.search.query;
+
+import org.springframework.util.Assert;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Named placeholder for a filter value of a {@link PreparedQuery}, bound to a value each time the query is executed.
+ * <p>
+ * Parameters can be used as the value of a {@link QueryBuilder#filter(String, org.springframework.contrib.gae.search.Operator, Object) predicate}
+ * or {@link QueryBuilder#filter(Object) raw} fragment. The same parameter may be used by more than one fragment.
+ */
+public final class QueryParameter {
+    private final String name;
+
+    private QueryParameter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a parameter.
+     *
+     * @param name Parameter name.
+     * @return The parameter.
+     */
+    @Nonnull
+    public static QueryParameter named(String name) {
+        Assert.hasText(name, "Parameter name must not be empty");
+        return new QueryParameter(name);
+    }
+
+    /**
+     * @return Parameter name.
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof QueryParameter && name.equals(((QueryParameter) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return ":" + name;
+    }
+}
@@ -4,15 +4,17 @@ import org.springframework.contrib.gae.search.metadata.SearchMetadata;
 import org.springframework.core.convert.ConversionService;
 
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Compiles a {@link Query} into a filter string.
+ *
+ * @deprecated Use {@link QueryCompiler}, which compiles the filter string and query options together and caches them by
+ * query shape. This class delegates to it.
  */
+@Deprecated
 public class QueryStringCompiler implements Function<Query<?>, String> {
 
-    private final SearchMetadata searchMetadata;
-    private final ConversionService conversionService;
+    private final QueryCompiler queryCompiler;
 
     /**
      * Create a new instance.
@@ -21,16 +23,11 @@ public class QueryStringCompiler implements Function<Query<?>, String> {
      * @param conversionService Conversion service to use to convert fragment values to filter strings.
      */
     public QueryStringCompiler(SearchMetadata searchMetadata, ConversionService conversionService) {
-        this.searchMetadata = searchMetadata;
-        this.conversionService = conversionService;
+        this.queryCompiler = new QueryCompiler(searchMetadata, conversionService);
     }
 
     @Override
     public String apply(Query<?> query) {
-        QueryFragmentCompiler compiler = new QueryFragmentCompiler(query.getResultType(), searchMetadata, conversionService);
-
-        return query.getFragments().stream()
-                .map(compiler)
-                .collect(Collectors.joining(" "));
+        return queryCompiler.apply(query).getQueryString();
     }
 }
@@ -3,6 +3,10 @@ package org.springframework.contrib.gae.security;
 import com.googlecode.objectify.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
+import org.springframework.contrib.gae.objectify.repository.MissingKeyCache;
+import org.springframework.contrib.gae.objectify.repository.MissingKeysCached;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,6 +18,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.UserDetailsManager;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 
 import static com.googlecode.objectify.ObjectifyService.ofy;
@@ -26,6 +31,7 @@ public class GaeUserDetailsManager<U extends GaeUser> implements UserDetailsMana
     private final PasswordEncoder passwordEncoder;
 
     private AuthenticationManager authenticationManager;
+    private MissingKeyCache missingKeyCache;
 
     public GaeUserDetailsManager(Class<U> userClass,
                                  UserAdapter<U> userAdapter,
@@ -33,12 +39,44 @@ public class GaeUserDetailsManager<U extends GaeUser> implements UserDetailsMana
         this.userClass = userClass;
         this.userAdapter = userAdapter;
         this.passwordEncoder = passwordEncoder;
+        this.missingKeyCache = EntityCaches.shared().getMissingKeyCache(userClass);
     }
 
     public void setAuthenticationManager(AuthenticationManager authenticationManager) {
         this.authenticationManager = authenticationManager;
     }
 
+    /**
+     * Use the missing key cache of the user class held by a registry, so it is shared with the repositories using the
+     * same registry.
+     *
+     * @param entityCaches Cache registry.
+     */
+    @Autowired(required = false)
+    public void setEntityCaches(EntityCaches entityCaches) {
+        this.missingKeyCache = entityCaches.getMissingKeyCache(userClass);
+    }
+
+    /**
+     * @return Cache of usernames that do not exist, or null if caching is disabled.
+     */
+    @Nullable
+    public MissingKeyCache getMissingKeyCache() {
+        return missingKeyCache;
+    }
+
+    /**
+     * Set the cache used to remember usernames that do not exist, so repeated lookups (e.g. {@link #userExists(String)})
+     * do not read from the datastore.
+     * By default the user class uses the cache shared with its repositories if it is annotated with {@link MissingKeysCached}.
+     * The cache is not used inside a transaction.
+     *
+     * @param missingKeyCache Missing key cache, or null to disable caching.
+     */
+    public void setMissingKeyCache(@Nullable MissingKeyCache missingKeyCache) {
+        this.missingKeyCache = missingKeyCache;
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return loadUser(username)
@@ -52,6 +90,9 @@ public class GaeUserDetailsManager<U extends GaeUser> implements UserDetailsMana
 
         U user = userAdapter.newFromUserDetails(userDetailsWithEncodedPassword(details));
         ofy().save().entity(user).now();
+        if (missingKeyCache != null) {
+            missingKeyCache.invalidateEntity(user);
+        }
     }
 
     @Override
@@ -109,8 +150,16 @@ public class GaeUserDetailsManager<U extends GaeUser> implements UserDetailsMana
     }
 
     private Optional<U> loadUser(String username) {
+        MissingKeyCache cache = ofy().getTransaction() == null ? missingKeyCache : null;
         return userAdapter.getUserKey(username, userClass)
-                .map(key -> ofy().load().key(key).now());
+                .filter(key -> cache == null || !cache.isMissing(key))
+                .map(key -> {
+                    U user = ofy().load().key(key).now();
+                    if (user == null && cache != null) {
+                        cache.markMissing(key);
+                    }
+                    return user;
+                });
     }
 
     private UserDetails userDetailsWithEncodedPassword(UserDetails userDetails) {
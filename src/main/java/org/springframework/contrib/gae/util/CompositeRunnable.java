@@ -0,0 +1,53 @@
+package org.springframework.contrib.gae.util;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runnable that runs each of a list of runnables in order, e.g. to complete several asynchronous operations with one call.
+ * <p>
+ * Every runnable is run even if an earlier one fails. The first failure is thrown once all of them have run, with
+ * failures from the others added as suppressed exceptions.
+ */
+public class CompositeRunnable implements Runnable {
+    private final List<Runnable> runnables;
+
+    /**
+     * Create a new instance.
+     *
+     * @param runnables Runnables to run.
+     */
+    public CompositeRunnable(List<? extends Runnable> runnables) {
+        this.runnables = new ArrayList<>(runnables);
+    }
+
+    /**
+     * @param runnables Runnables to run.
+     * @return Runnable that runs all of the given runnables.
+     */
+    @Nonnull
+    public static Runnable of(Runnable... runnables) {
+        return new CompositeRunnable(Arrays.asList(runnables));
+    }
+
+    @Override
+    public void run() {
+        RuntimeException failure = null;
+        for (Runnable runnable : runnables) {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.contrib.gae.util;
+
+import com.google.appengine.api.ThreadManager;
+import com.google.apphosting.api.ApiProxy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates threads that can make App Engine API calls on behalf of the current request.
+ */
+public final class RequestThreads {
+
+    private RequestThreads() {
+    }
+
+    /**
+     * Get a thread factory for worker threads of the current request.
+     * Uses the App Engine request thread factory where available, otherwise propagates the API environment of the current
+     * thread to the new threads. Outside a request, plain threads are created.
+     *
+     * @return Thread factory.
+     */
+    public static ThreadFactory factory() {
+        ApiProxy.Environment environment = ApiProxy.getCurrentEnvironment();
+        if (environment == null) {
+            return Executors.defaultThreadFactory();
+        }
+        ThreadFactory factory = ThreadManager.currentRequestThreadFactory();
+        if (factory != null) {
+            return factory;
+        }
+        // the request thread factory is not available in every environment (e.g. tests), propagate the API environment ourselves
+        return runnable -> new Thread(() -> {
+            ApiProxy.setEnvironmentForCurrentThread(environment);
+            try {
+                runnable.run();
+            } finally {
+                ApiProxy.clearEnvironmentForCurrentThread();
+            }
+        });
+    }
+
+    /**
+     * Wrap work so that it runs with the API environment of the current thread, for work submitted to threads that were not
+     * created for the current request (e.g. a shared pool). The previous environment of the thread running the work is
+     * restored afterwards. Outside a request, the work is returned as it is.
+     *
+     * @param work Work to run.
+     * @param <T>  Result type.
+     * @return Work that runs with the current API environment.
+     */
+    public static <T> Callable<T> withCurrentEnvironment(Callable<T> work) {
+        ApiProxy.Environment environment = ApiProxy.getCurrentEnvironment();
+        if (environment == null) {
+            return work;
+        }
+        return () -> {
+            ApiProxy.Environment previous = ApiProxy.getCurrentEnvironment();
+            ApiProxy.setEnvironmentForCurrentThread(environment);
+            try {
+                return work.call();
+            } finally {
+                if (previous == null) {
+                    ApiProxy.clearEnvironmentForCurrentThread();
+                } else {
+                    ApiProxy.setEnvironmentForCurrentThread(previous);
+                }
+            }
+        };
+    }
+}
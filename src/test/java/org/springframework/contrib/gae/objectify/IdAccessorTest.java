@@ -0,0 +1,81 @@
+package org.springframework.contrib.gae.objectify;
+
+import com.googlecode.objectify.Key;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdAccessorTest extends ObjectifyTest {
+
+    @Test
+    public void get() {
+        IdAccessor<TestLongEntity, Long> accessor = accessor(TestLongEntity.class);
+
+        assertThat(accessor.get(new TestLongEntity(12L))).isEqualTo(12L);
+        assertThat(accessor.get(new TestLongEntity(null))).isNull();
+    }
+
+    @Test
+    public void get_willThrowException_whenEntityIsNull() {
+        thrown.expect(NullPointerException.class);
+
+        accessor(TestLongEntity.class).get(null);
+    }
+
+    @Test
+    public void set() {
+        IdAccessor<TestStringEntity, String> accessor = accessor(TestStringEntity.class);
+        TestStringEntity entity = new TestStringEntity(null);
+
+        accessor.set(entity, "assigned");
+
+        assertThat(entity.getId()).isEqualTo("assigned");
+    }
+
+    @Test
+    public void set_willThrowException_whenIdIsOfTheWrongType() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Cannot set id for entity type TestLongEntity");
+
+        accessor(TestLongEntity.class).set(new TestLongEntity(null), "not a long");
+    }
+
+    @Test
+    public void getKey() {
+        assertThat(accessor(TestLongEntity.class).getKey(new TestLongEntity(3L)))
+                .isEqualTo(Key.create(TestLongEntity.class, 3L));
+        assertThat(accessor(TestStringEntity.class).getKey(new TestStringEntity("id")))
+                .isEqualTo(Key.create(TestStringEntity.class, "id"));
+    }
+
+    @Test
+    public void getKey_willThrowException_whenEntityHasNullId() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("You cannot create a Key for an object with a null @Id");
+
+        accessor(TestLongEntity.class).getKey(new TestLongEntity(null));
+    }
+
+    @Test
+    public void of_willResolveIdFieldOnce() {
+        IdAccessor<TestLongEntity, Long> accessor = accessor(TestLongEntity.class);
+
+        assertThat(IdAccessor.<TestLongEntity, Long>of(TestLongEntity.class, type -> {
+            throw new AssertionError("Id field should not be resolved again");
+        })).isSameAs(accessor);
+    }
+
+    private <E, I> IdAccessor<E, I> accessor(Class<E> entityType) {
+        return IdAccessor.of(entityType, this::idField);
+    }
+
+    private Field idField(Class<?> entityType) {
+        try {
+            return entityType.getDeclaredField("id");
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
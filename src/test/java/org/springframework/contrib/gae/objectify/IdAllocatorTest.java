@@ -0,0 +1,59 @@
+package org.springframework.contrib.gae.objectify;
+
+import com.googlecode.objectify.Key;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdAllocatorTest extends ObjectifyTest {
+
+    private IdAllocator idAllocator;
+
+    @Before
+    public void setUp() {
+        idAllocator = new IdAllocator(objectify::factory, 2);
+    }
+
+    @Test
+    public void supports() {
+        assertThat(idAllocator.supports(TestLongEntity.class)).isTrue();
+    }
+
+    @Test
+    public void supports_willReturnFalse_whenIdIsNotLong() {
+        assertThat(idAllocator.supports(TestStringEntity.class)).isFalse();
+    }
+
+    @Test
+    public void allocate() {
+        Key<TestLongEntity> key = idAllocator.allocate(TestLongEntity.class);
+
+        assertThat(key.getKind()).isEqualTo("TestLongEntity");
+        assertThat(key.getId()).isGreaterThan(0);
+    }
+
+    @Test
+    public void allocate_willReturnUniqueKeys_acrossBlocks() {
+        List<Key<TestLongEntity>> first = idAllocator.allocate(TestLongEntity.class, 3);
+        List<Key<TestLongEntity>> second = idAllocator.allocate(TestLongEntity.class, 3);
+
+        HashSet<Key<TestLongEntity>> unique = new HashSet<>(first);
+        unique.addAll(second);
+
+        assertThat(first).hasSize(3);
+        assertThat(second).hasSize(3);
+        assertThat(unique).hasSize(6);
+    }
+
+    @Test
+    public void allocate_willNotCollideWithGeneratedIds() {
+        Key<TestLongEntity> allocated = idAllocator.allocate(TestLongEntity.class);
+        TestLongEntity generated = save(new TestLongEntity(null));
+
+        assertThat(generated.getId()).isNotEqualTo(allocated.getId());
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.contrib.gae.objectify.config.ObjectifyConfigurer;
+import org.springframework.contrib.gae.objectify.reindex.ReindexCheckpoint;
+import org.springframework.contrib.gae.objectify.reindex.ReindexJob;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,7 +19,10 @@ public class ObjectifyTestConfiguration implements ObjectifyConfigurer {
         return Arrays.asList(
                 TestStringEntity.class,
                 TestLongEntity.class,
-                TestStringEntity.class
+                TestStringEntity.class,
+                TestRefEntity.class,
+                ReindexCheckpoint.class,
+                ReindexJob.class
         );
     }
 }
@@ -5,6 +5,7 @@ import com.googlecode.objectify.Ref;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -124,6 +125,20 @@ public class RefsTest extends ObjectifyTest {
                 .isNull();
     }
 
+    @Test
+    public void keyIfIdentified()  {
+        TestStringEntity entity = new TestStringEntity("id");
+
+        assertThat(Refs.keyIfIdentified(entity))
+                .isEqualTo(Key.create(entity));
+    }
+
+    @Test
+    public void keyIfIdentified_willReturnNull_whenEntityHasNoId()  {
+        assertThat(Refs.keyIfIdentified(new TestLongEntity(null)))
+                .isNull();
+    }
+
     @Test
     public void keyCollection()  {
         TestStringEntity a = new TestStringEntity("a");
@@ -258,4 +273,50 @@ public class RefsTest extends ObjectifyTest {
                 a, b, null, c
         );
     }
+
+    @Test
+    public void loadCollection_willLoadInOneBatch_andPreserveOrder() {
+        TestStringEntity a = new TestStringEntity("a");
+        TestStringEntity b = new TestStringEntity("b");
+        save(a, b);
+        ofy().clear();
+
+        assertThat(Refs.load(
+                Arrays.asList(
+                        Key.create(b),
+                        null,
+                        Key.create(TestStringEntity.class, "missing"),
+                        Key.create(a)
+                )
+        )).containsExactly(
+                b, null, null, a
+        );
+    }
+
+    @Test
+    public void prefetch_willLoadRefsLevelByLevel() {
+        TestStringEntity item = new TestStringEntity("item");
+        TestRefEntity third = new TestRefEntity(3L);
+        TestRefEntity second = new TestRefEntity(2L).setNext(third).addItem(item);
+        TestRefEntity first = new TestRefEntity(1L).setNext(second);
+        save(item);
+        save(third, second, first);
+        ofy().clear();
+
+        List<TestRefEntity> roots = Arrays.asList(ofy().load().key(Key.create(first)).now());
+        Refs.prefetch(roots, "next.next", "next.items");
+
+        assertThat(ofy().isLoaded(Key.create(second))).isTrue();
+        assertThat(ofy().isLoaded(Key.create(third))).isTrue();
+        assertThat(ofy().isLoaded(Key.create(item))).isTrue();
+        assertThat(roots.get(0).getNext().get().getNext().get().getId()).isEqualTo(3L);
+    }
+
+    @Test
+    public void prefetch_willThrowException_whenPathIsUnknown() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("No field 'unknown'");
+
+        Refs.prefetch(Arrays.asList(new TestRefEntity(1L)), "unknown");
+    }
 }
@@ -0,0 +1,48 @@
+package org.springframework.contrib.gae.objectify;
+
+import com.googlecode.objectify.Ref;
+import com.googlecode.objectify.annotation.Entity;
+import com.googlecode.objectify.annotation.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+public class TestRefEntity {
+    @Id
+    private Long id;
+
+    private Ref<TestRefEntity> next;
+
+    private List<Ref<TestStringEntity>> items = new ArrayList<>();
+
+    private TestRefEntity() {
+    }
+
+    public TestRefEntity(Long id) {
+        this();
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Ref<TestRefEntity> getNext() {
+        return next;
+    }
+
+    public TestRefEntity setNext(TestRefEntity next) {
+        this.next = Ref.create(next);
+        return this;
+    }
+
+    public List<Ref<TestStringEntity>> getItems() {
+        return items;
+    }
+
+    public TestRefEntity addItem(TestStringEntity item) {
+        this.items.add(Ref.create(item));
+        return this;
+    }
+}
@@ -0,0 +1,132 @@
+package org.springframework.contrib.gae.objectify.metrics;
+
+import com.google.common.collect.Lists;
+import com.googlecode.objectify.Key;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.TestLongEntity;
+import org.springframework.contrib.gae.objectify.repository.ObjectifyLongRepository;
+import org.springframework.contrib.gae.objectify.support.ObjectifyRepositoryFactory;
+import org.springframework.contrib.gae.search.SearchService;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RepositoryMetricsInterceptorTest extends ObjectifyTest {
+
+    @Autowired
+    private SearchService searchService;
+
+    private MeterRegistry registry = new SimpleMeterRegistry();
+
+    private TestLongEntityRepository repository;
+
+    private TestLongEntityRepository otherRepository;
+
+    @Before
+    public void setUp() {
+        ObjectifyRepositoryFactory factory = new ObjectifyRepositoryFactory(objectify, searchService);
+        factory.addRepositoryProxyPostProcessor(new RepositoryMetricsPostProcessor(new MicrometerRepositoryMetrics(registry)));
+        repository = factory.getRepository(TestLongEntityRepository.class);
+        otherRepository = factory.getRepository(TestLongEntityRepository.class);
+    }
+
+    @Test
+    public void save_willRecordCallAndBatchSize() {
+        repository.save(Arrays.asList(new TestLongEntity(1L), new TestLongEntity(2L)));
+
+        assertThat(registry.get(MicrometerRepositoryMetrics.CALL_TIMER)
+                .tags("kind", "TestLongEntity", "operation", "save", "method", "save", "outcome", "success")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(registry.get(MicrometerRepositoryMetrics.BATCH_SIZE_SUMMARY)
+                .tags("operation", "save", "method", "save")
+                .summary()
+                .totalAmount()).isEqualTo(2);
+        assertThat(registry.find(MicrometerRepositoryMetrics.CALL_TIMER).tags("method", "saveAsync").timer()).isNull();
+    }
+
+    @Test
+    public void saveAsync_willRecordAsyncWait() {
+        Supplier<TestLongEntity> result = repository.saveAsync(new TestLongEntity(1L));
+        assertThat(registry.find(MicrometerRepositoryMetrics.ASYNC_WAIT_TIMER).timer()).isNull();
+
+        result.get();
+
+        assertThat(registry.get(MicrometerRepositoryMetrics.ASYNC_WAIT_TIMER)
+                .tags("operation", "save", "method", "saveAsync")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void findAll_willRecordLoadedEntityCount() {
+        repository.save(new TestLongEntity(1L), new TestLongEntity(2L));
+
+        repository.findAll(Key.create(TestLongEntity.class, 1L), Key.create(TestLongEntity.class, 3L));
+        repository.findAll();
+
+        assertThat(registry.get(MicrometerRepositoryMetrics.BATCH_SIZE_SUMMARY)
+                .tags("operation", "load", "method", "findAll")
+                .summary()
+                .totalAmount()).isEqualTo(1);
+        assertThat(registry.get(MicrometerRepositoryMetrics.BATCH_SIZE_SUMMARY)
+                .tags("operation", "query", "method", "findAll")
+                .summary()
+                .totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    public void save_willRecordCallsToOtherRepositories_madeFromRepositoryMethod() {
+        repository.saveVia(otherRepository, new TestLongEntity(1L));
+
+        assertThat(registry.get(MicrometerRepositoryMetrics.CALL_TIMER)
+                .tags("operation", "save", "method", "saveVia")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(registry.get(MicrometerRepositoryMetrics.CALL_TIMER)
+                .tags("operation", "save", "method", "save")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void streamAll_willNotBeRecorded() {
+        ofy().save().entities(new TestLongEntity(1L), new TestLongEntity(2L)).now();
+
+        assertThat(repository.streamAll()).hasSize(2);
+        assertThat(Lists.newArrayList(repository.iterateAll())).hasSize(2);
+
+        assertThat(registry.find(MicrometerRepositoryMetrics.CALL_TIMER).tags("method", "streamAll").timer()).isNull();
+        assertThat(registry.find(MicrometerRepositoryMetrics.CALL_TIMER).tags("method", "iterateAll").timer()).isNull();
+    }
+
+    @Test
+    public void getEntityType_willNotBeRecorded() {
+        repository.getEntityType();
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void of_willClassifyRepositoryMethods() throws NoSuchMethodException {
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("findById", Long.class))).isEqualTo(RepositoryOperation.LOAD);
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("findAll", Iterable.class))).isEqualTo(RepositoryOperation.LOAD);
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("findAll", int.class))).isEqualTo(RepositoryOperation.QUERY);
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("deleteByKey", Key.class))).isEqualTo(RepositoryOperation.DELETE);
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("reindexDataAndSearch"))).isEqualTo(RepositoryOperation.INDEX);
+        assertThat(RepositoryOperation.of(TestLongEntityRepository.class.getMethod("search"))).isNull();
+    }
+
+    public interface TestLongEntityRepository extends ObjectifyLongRepository<TestLongEntity> {
+        default TestLongEntity saveVia(TestLongEntityRepository other, TestLongEntity entity) {
+            return other.save(entity);
+        }
+    }
+}
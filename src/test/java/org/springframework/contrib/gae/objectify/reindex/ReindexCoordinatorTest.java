@@ -0,0 +1,146 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import com.googlecode.objectify.Key;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.TestLongEntity;
+import org.springframework.contrib.gae.objectify.config.ReindexProperties;
+import org.springframework.contrib.gae.objectify.repository.SearchRepository;
+import org.springframework.contrib.gae.objectify.repository.TestLongRepository;
+import org.springframework.contrib.gae.search.Operator;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReindexCoordinatorTest extends ObjectifyTest {
+
+    @Autowired
+    private SearchRepository<TestLongEntity, Long> repository;
+
+    private ReindexProperties properties;
+
+    @Before
+    public void setUp() {
+        properties = new ReindexProperties()
+                .setBatchSize(2)
+                .setMaxRequestDuration(Duration.ofMinutes(1))
+                .setMaxErrors(1);
+
+        LongStream.rangeClosed(1, 10).forEach(id -> save(new TestLongEntity(id).setName("name" + id)));
+    }
+
+    @Test
+    public void start_willQueueTaskForEachRange() {
+        ReindexJob job = coordinator(repository).start(TestLongEntity.class, false, 3);
+
+        assertThat(job.getRangeIds()).hasSize(3);
+        assertThat(LocalTaskQueueTestConfig.getLocalTaskQueue().getQueueStateInfo().get("default").getCountTasks()).isEqualTo(3);
+
+        ReindexSummary summary = coordinator(repository).getSummary(job.getId());
+        assertThat(summary.getStatus()).isEqualTo(ReindexCheckpoint.Status.RUNNING);
+        assertThat(summary.getRanges()).isEqualTo(3);
+        assertThat(summary.getRunningRanges()).isEqualTo(3);
+        assertThat(summary.getEndTime()).isNull();
+    }
+
+    @Test
+    public void getSummary_willAggregateRanges() {
+        ReindexCoordinator coordinator = coordinator(repository);
+        ReindexJob job = coordinator.start(TestLongEntity.class, false, 3);
+
+        service(repository).run(job.getRangeIds().get(0));
+        ReindexSummary partial = coordinator.getSummary(job.getId());
+        assertThat(partial.getStatus()).isEqualTo(ReindexCheckpoint.Status.RUNNING);
+        assertThat(partial.getCompleteRanges()).isEqualTo(1);
+        assertThat(partial.getRunningRanges()).isEqualTo(2);
+
+        job.getRangeIds().stream().skip(1).forEach(service(repository)::run);
+        ReindexSummary summary = coordinator.getSummary(job.getId());
+
+        assertThat(summary.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+        assertThat(summary.getCompleteRanges()).isEqualTo(3);
+        assertThat(summary.getCount()).isEqualTo(10);
+        assertThat(summary.getErrors()).isEqualTo(0);
+        assertThat(summary.getEndTime()).isNotNull();
+        assertThat(summary.getThroughput()).isGreaterThanOrEqualTo(0);
+        assertThat(coordinator.getJob(job.getId())).hasValueSatisfying(saved -> {
+            assertThat(saved.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+            assertThat(saved.getCount()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    public void retryFailedRanges_willResumeFailedRanges() {
+        ReindexJob job = coordinator(failingRepository()).start(TestLongEntity.class, false, 3);
+        job.getRangeIds().forEach(service(failingRepository())::run);
+
+        ReindexSummary failed = coordinator(repository).getSummary(job.getId());
+        assertThat(failed.getStatus()).isEqualTo(ReindexCheckpoint.Status.FAILED);
+        assertThat(failed.getFailedRanges()).isEqualTo(3);
+
+        ReindexSummary retried = coordinator(repository).retryFailedRanges(job.getId());
+        assertThat(retried.getStatus()).isEqualTo(ReindexCheckpoint.Status.RUNNING);
+        assertThat(retried.getRunningRanges()).isEqualTo(3);
+
+        job.getRangeIds().forEach(service(repository)::run);
+        ReindexSummary summary = coordinator(repository).getSummary(job.getId());
+
+        assertThat(summary.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+        assertThat(summary.getCount()).isEqualTo(10);
+        assertThat(summary.getErrors()).isEqualTo(0);
+        LongStream.rangeClosed(1, 10).forEach(id -> assertThat(repository.execute(repository.search()
+                .filter("name", Operator.EQ, "name" + id)
+                .build())).isNotEmpty());
+    }
+
+    @Test
+    public void run_willSaveJobStatus_whenLastRangeFinishes() {
+        ReindexCoordinator coordinator = coordinator(repository);
+        ReindexJob job = coordinator.start(TestLongEntity.class, false, 3);
+
+        job.getRangeIds().stream().limit(2).forEach(service(repository)::run);
+        assertThat(coordinator.getJob(job.getId())).hasValueSatisfying(saved ->
+                assertThat(saved.getStatus()).isEqualTo(ReindexCheckpoint.Status.RUNNING));
+
+        service(repository).run(job.getRangeIds().get(2));
+        assertThat(coordinator.getJob(job.getId())).hasValueSatisfying(saved -> {
+            assertThat(saved.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+            assertThat(saved.getCount()).isEqualTo(10);
+            assertThat(saved.getEndTime()).isNotNull();
+        });
+    }
+
+    @Test
+    public void getSummary_willThrowException_whenJobDoesNotExist() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Reindex job 'missing' does not exist");
+
+        coordinator(repository).getSummary("missing");
+    }
+
+    private ReindexCoordinator coordinator(SearchRepository<TestLongEntity, Long> repository) {
+        return new ReindexCoordinator(objectify, service(repository));
+    }
+
+    private ReindexService service(SearchRepository<TestLongEntity, Long> repository) {
+        return new ReindexService(objectify, QueueFactory.getDefaultQueue(), Collections.singletonList(repository), properties);
+    }
+
+    private TestLongRepository failingRepository() {
+        return new TestLongRepository(objectify, null) {
+            @Override
+            public int reindex(List<Key<TestLongEntity>> keys, int batchSize, Function<List<TestLongEntity>, List<TestLongEntity>> reindexOperation) {
+                throw new IllegalStateException("failed");
+            }
+        };
+    }
+}
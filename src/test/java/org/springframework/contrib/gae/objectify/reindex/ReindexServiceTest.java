@@ -0,0 +1,178 @@
+package org.springframework.contrib.gae.objectify.reindex;
+
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.dev.QueueStateInfo;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import com.googlecode.objectify.Key;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.TestLongEntity;
+import org.springframework.contrib.gae.objectify.config.ReindexProperties;
+import org.springframework.contrib.gae.objectify.repository.SearchRepository;
+import org.springframework.contrib.gae.objectify.repository.TestLongRepository;
+import org.springframework.contrib.gae.search.Operator;
+import org.springframework.contrib.gae.search.query.Result;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReindexServiceTest extends ObjectifyTest {
+
+    @Autowired
+    private SearchRepository<TestLongEntity, Long> repository;
+
+    private ReindexProperties properties;
+
+    @Before
+    public void setUp() {
+        properties = new ReindexProperties()
+                .setBatchSize(2)
+                .setMaxRequestDuration(Duration.ZERO)
+                .setMaxErrors(2);
+
+        LongStream.rangeClosed(1, 5).forEach(id -> save(new TestLongEntity(id).setName("name" + id)));
+        repository.clearSearchIndex();
+    }
+
+    @Test
+    public void start_willSaveCheckpointAndQueueTask() {
+        ReindexService service = service(repository);
+
+        ReindexCheckpoint checkpoint = service.start(TestLongEntity.class, false);
+
+        assertThat(service.getCheckpoint(checkpoint.getId())).hasValueSatisfying(saved -> {
+            assertThat(saved.getKind()).isEqualTo("TestLongEntity");
+            assertThat(saved.getStatus()).isEqualTo(ReindexCheckpoint.Status.RUNNING);
+            assertThat(saved.getCursor()).isNull();
+        });
+        assertThat(queueState().getCountTasks()).isEqualTo(1);
+        assertThat(queueState().getTaskInfo().get(0).getUrl()).isEqualTo("/task/reindex");
+        assertThat(queueState().getTaskInfo().get(0).getBody()).isEqualTo("jobId=" + checkpoint.getId());
+    }
+
+    @Test
+    public void start_willThrowException_whenKindHasNoRepository() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("No search repository registered for kind TestStringEntity");
+
+        service(repository).start(org.springframework.contrib.gae.objectify.TestStringEntity.class, false);
+    }
+
+    @Test
+    public void run_willResumeFromCheckpointAndChainTasks_whenRequestTimeBudgetIsUsed() {
+        ReindexService service = service(repository);
+        String jobId = service.start(TestLongEntity.class, false).getId();
+
+        ReindexCheckpoint first = service.run(jobId);
+        assertThat(first.getCount()).isEqualTo(2);
+        assertThat(first.isRunning()).isTrue();
+
+        ReindexCheckpoint second = service(repository).run(jobId);
+        assertThat(second.getCount()).isEqualTo(4);
+
+        ReindexCheckpoint last = service(repository).run(jobId);
+        assertThat(last.getCount()).isEqualTo(5);
+        assertThat(last.getBatches()).isEqualTo(3);
+        assertThat(last.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+        assertThat(last.getEndTime()).isNotNull();
+
+        assertThat(queueState().getCountTasks()).isEqualTo(3);
+        LongStream.rangeClosed(1, 5).forEach(id -> assertThat(searchByName("name" + id)).isNotEmpty());
+    }
+
+    @Test
+    public void run_willCompleteInOneRequest_whenWithinTimeBudget() {
+        properties.setMaxRequestDuration(Duration.ofMinutes(1));
+        ReindexService service = service(repository);
+        String jobId = service.start(TestLongEntity.class, true).getId();
+
+        ReindexCheckpoint checkpoint = service.run(jobId);
+
+        assertThat(checkpoint.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+        assertThat(checkpoint.getCount()).isEqualTo(5);
+        assertThat(queueState().getCountTasks()).isEqualTo(1);
+    }
+
+    @Test
+    public void run_willDoNothing_whenJobIsComplete() {
+        properties.setMaxRequestDuration(Duration.ofMinutes(1));
+        ReindexService service = service(repository);
+        String jobId = service.start(TestLongEntity.class, false).getId();
+        service.run(jobId);
+
+        ReindexCheckpoint checkpoint = service.run(jobId);
+
+        assertThat(checkpoint.getCount()).isEqualTo(5);
+        assertThat(checkpoint.getBatches()).isEqualTo(3);
+    }
+
+    @Test
+    public void run_willFailJob_whenMaxErrorsIsReached() {
+        properties.setMaxRequestDuration(Duration.ofMinutes(1));
+        ReindexService service = service(failingRepository());
+        String jobId = service.start(TestLongEntity.class, false).getId();
+
+        ReindexCheckpoint checkpoint = service.run(jobId);
+
+        assertThat(checkpoint.getStatus()).isEqualTo(ReindexCheckpoint.Status.FAILED);
+        assertThat(checkpoint.getErrors()).isEqualTo(2);
+        assertThat(checkpoint.getLastError()).contains("failed");
+        assertThat(checkpoint.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void resume_willRestartFailedJobFromCheckpoint() {
+        properties.setMaxRequestDuration(Duration.ofMinutes(1));
+        String jobId = service(failingRepository()).start(TestLongEntity.class, false).getId();
+        service(failingRepository()).run(jobId);
+
+        ReindexService service = service(repository);
+        ReindexCheckpoint resumed = service.resume(jobId);
+        assertThat(resumed.isRunning()).isTrue();
+        assertThat(resumed.getErrors()).isEqualTo(0);
+        assertThat(queueState().getCountTasks()).isEqualTo(2);
+
+        ReindexCheckpoint checkpoint = service.run(jobId);
+        assertThat(checkpoint.getStatus()).isEqualTo(ReindexCheckpoint.Status.COMPLETE);
+        assertThat(checkpoint.getCount()).isEqualTo(5);
+        LongStream.rangeClosed(1, 5).forEach(id -> assertThat(searchByName("name" + id)).isNotEmpty());
+    }
+
+    @Test
+    public void run_willThrowException_whenJobDoesNotExist() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Reindex job 'missing' does not exist");
+
+        service(repository).run("missing");
+    }
+
+    private ReindexService service(SearchRepository<TestLongEntity, Long> repository) {
+        return new ReindexService(objectify, QueueFactory.getDefaultQueue(), Collections.singletonList(repository), properties);
+    }
+
+    private TestLongRepository failingRepository() {
+        return new TestLongRepository(objectify, null) {
+            @Override
+            public int reindex(List<Key<TestLongEntity>> keys, int batchSize, Function<List<TestLongEntity>, List<TestLongEntity>> reindexOperation) {
+                throw new IllegalStateException("failed");
+            }
+        };
+    }
+
+    private QueueStateInfo queueState() {
+        return LocalTaskQueueTestConfig.getLocalTaskQueue().getQueueStateInfo().get("default");
+    }
+
+    private Result<TestLongEntity> searchByName(String name) {
+        return repository.execute(repository.search()
+                .filter("name", Operator.EQ, name)
+                .build());
+    }
+}
@@ -0,0 +1,99 @@
+package org.springframework.contrib.gae.objectify.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ChunkedOperationTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void get_willReturnChunkResultsInOrder() {
+        ChunkedOperation<Integer> operation = ChunkedOperation.start(range(7), 3, 2, chunk -> () -> chunk.size());
+
+        assertThat(operation.getChunkCount()).isEqualTo(3);
+        assertThat(operation.get()).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    public void get_willReturnEmptyList_whenThereAreNoItems() {
+        ChunkedOperation<Integer> operation = ChunkedOperation.start(Collections.<Integer>emptyList(), 3, 2, chunk -> () -> chunk.size());
+
+        assertThat(operation.getChunkCount()).isEqualTo(0);
+        assertThat(operation.get()).isEmpty();
+    }
+
+    @Test
+    public void start_willBoundChunksInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        List<Integer> observedInFlight = new ArrayList<>();
+
+        ChunkedOperation<Void> operation = ChunkedOperation.start(range(10), 1, 3, chunk -> {
+            observedInFlight.add(inFlight.incrementAndGet());
+            return () -> {
+                inFlight.decrementAndGet();
+                return null;
+            };
+        });
+
+        assertThat(observedInFlight).hasSize(10).allMatch(count -> count <= 3);
+        assertThat(inFlight.get()).isEqualTo(3);
+
+        operation.get();
+        assertThat(inFlight.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_willThrowOriginalException_whenSingleChunkFails() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        ChunkedOperation<Void> operation = ChunkedOperation.start(range(2), 5, 2, chunk -> () -> {
+            throw failure;
+        });
+
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("failed");
+        operation.get();
+    }
+
+    @Test
+    public void get_willAggregateFailures_andCompleteRemainingChunks() {
+        List<Integer> completed = new ArrayList<>();
+        ChunkedOperation<Void> operation = ChunkedOperation.start(range(4), 1, 2, chunk -> () -> {
+            Integer item = chunk.get(0);
+            if (item % 2 == 0) {
+                throw new IllegalStateException("failed " + item);
+            }
+            completed.add(item);
+            return null;
+        });
+
+        try {
+            operation.get();
+            fail("Expected exception");
+        } catch (ChunkedOperationException e) {
+            assertThat(e.getChunkCount()).isEqualTo(4);
+            assertThat(e.getFailures()).containsOnlyKeys(0, 2);
+            assertThat(e.getMessage()).isEqualTo("2 of 4 chunks failed: [0, 2]");
+            assertThat(e.getCause()).hasMessage("failed 0");
+            assertThat(Arrays.asList(e.getSuppressed())).extracting("message").containsExactly("failed 2");
+        }
+        assertThat(completed).containsExactly(1, 3);
+    }
+
+    private List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
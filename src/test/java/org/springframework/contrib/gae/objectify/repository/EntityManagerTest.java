@@ -18,8 +18,6 @@ import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.spy;
 
 @SuppressWarnings("ConstantConditions")
 public class EntityManagerTest extends ObjectifyTest {
@@ -186,17 +184,18 @@ public class EntityManagerTest extends ObjectifyTest {
     }
 
     @Test
-    public void getId_willWrapInIllegalArgumentException_whenIllegalAccessExceptionIsThrown() throws NoSuchFieldException {
+    @SuppressWarnings("unchecked")
+    public void getId_willThrowIllegalArgumentException_whenEntityIsOfTheWrongType() {
         thrown.expect(IllegalArgumentException.class);
         thrown.expectMessage("Cannot get id for entity type TestStringEntity");
 
-        Field field = TestStringEntity.class.getDeclaredField("id");
-        field.setAccessible(false);
-
-        TestEntityManager stringEntityManager = spy(new TestEntityManager());
-        doReturn(field).when(stringEntityManager).getIdField();
+        ((EntityManager) entityManager).getId("a string");
+    }
 
-        stringEntityManager.getId(new TestStringEntity("id"));
+    @Test
+    public void getIdAccessor_willReturnSharedAccessor() {
+        assertThat(entityManager.getIdAccessor()).isSameAs(new TestEntityManager().getIdAccessor());
+        assertThat(entityManager.getIdAccessor().getField()).isEqualTo(entityManager.getIdField());
     }
 
     @Test
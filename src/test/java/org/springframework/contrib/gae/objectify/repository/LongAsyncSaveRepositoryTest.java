@@ -53,6 +53,16 @@ public class LongAsyncSaveRepositoryTest extends AbstractLongRepositoryTest {
         verifyTestEntityCollectionSaved();
     }
 
+    @Test
+    public void saveAsyncCollection_willSaveInChunks_whenCollectionExceedsPutLimit()  {
+        List<TestLongEntity> entities = Arrays.asList(fixture.get(ChunkedOperation.MAX_PUT_SIZE * 2 + 1));
+
+        List<TestLongEntity> saved = repository.saveAsync(entities).get();
+
+        Assertions.assertThat(saved).hasSize(entities.size());
+        Assertions.assertThat(ofy().load().type(TestLongEntity.class).keys().list()).hasSize(entities.size());
+    }
+
     @Test
     public void saveAsyncCollection_willGenerateLongIds_whenInputContainsEntityWithoutId()  {
         List<TestLongEntity> entities = Arrays.asList(
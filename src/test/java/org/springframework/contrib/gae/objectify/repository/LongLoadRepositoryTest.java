@@ -1,17 +1,28 @@
 package org.springframework.contrib.gae.objectify.repository;
 
 import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.contrib.gae.objectify.TestLongEntity;
 import org.springframework.contrib.gae.objectify.TestStringEntity;
-
+import org.springframework.contrib.gae.objectify.rpc.RpcCounter;
+import org.springframework.contrib.gae.objectify.rpc.RpcTracker;
+import org.springframework.contrib.gae.objectify.rpc.RpcType;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehind;
+import org.springframework.contrib.gae.objectify.writebehind.WriteBehindBuffer;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,6 +33,12 @@ public class LongLoadRepositoryTest extends AbstractLongRepositoryTest {
     @Autowired
     protected LoadRepository<TestLongEntity, Long> repository;
 
+    @Autowired
+    private SaveRepository<TestLongEntity, Long> saveRepository;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
     @Test
     public void findAll()  {
         TestLongEntity[] entities = fixture.get(3);
@@ -53,6 +70,208 @@ public class LongLoadRepositoryTest extends AbstractLongRepositoryTest {
                 .isEmpty();
     }
 
+    @Test
+    public void streamAll() {
+        TestLongEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        assertThat(repository.streamAll(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void streamAll_willReturnEmptyStream_whenThereAreNoEntities() {
+        assertThat(repository.streamAll().collect(Collectors.toList()))
+                .isEmpty();
+    }
+
+    @Test
+    public void streamAll_willNotRepeatEntities_whenChunkSizeDividesCount() {
+        TestLongEntity[] entities = fixture.get(4);
+        ofy().save().entities(entities).now();
+
+        assertThat(repository.streamAll(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void streamAllKeys() {
+        TestLongEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+        List<Key<TestLongEntity>> expectedKeys = Stream.of(entities).map(Key::create).collect(Collectors.toList());
+
+        assertThat(repository.streamAllKeys(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrderElementsOf(expectedKeys);
+    }
+
+    @Test
+    public void iterateAll() {
+        TestLongEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+
+        List<TestLongEntity> result = new ArrayList<>();
+        repository.iterateAll(1).forEachRemaining(result::add);
+
+        assertThat(result)
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void iterateAll_willKeepCallerSession_whenRunInOwnContext() {
+        TestLongEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+        ofy().clear();
+        Key<TestLongEntity> key = Key.create(entities[0]);
+        ofy().load().key(key).now();
+
+        List<TestLongEntity> result = new ArrayList<>();
+        ObjectifyService.run(() -> {
+            repository.iterateAll(1).forEachRemaining(result::add);
+            return null;
+        });
+
+        assertThat(result).containsExactlyInAnyOrder(entities);
+        assertThat(ofy().isLoaded(key)).isTrue();
+    }
+
+    @Test
+    public void streamAllKeys_willNotClearSession() {
+        TestLongEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+        ofy().clear();
+        Key<TestLongEntity> key = Key.create(entities[0]);
+        ofy().load().key(key).now();
+
+        assertThat(repository.streamAllKeys(1).count()).isEqualTo(3);
+        assertThat(ofy().isLoaded(key)).isTrue();
+    }
+
+    @Test
+    public void splitKeyRanges_willReturnDisjointRangesCoveringAllKeys() {
+        TestLongEntity[] entities = withIds(10);
+        ofy().save().entities(entities).now();
+        List<Key<TestLongEntity>> expectedKeys = Stream.of(entities).map(Key::create).collect(Collectors.toList());
+
+        List<KeyRange<TestLongEntity>> ranges = repository.splitKeyRanges(4);
+
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0).getStart()).isNull();
+        assertThat(ranges.get(3).getEnd()).isNull();
+        expectedKeys.forEach(key -> assertThat(ranges.stream().filter(range -> range.contains(key))).hasSize(1));
+
+        List<Key<TestLongEntity>> result = new ArrayList<>();
+        ranges.forEach(range -> repository.iterateRangeKeys(range, 2).forEachRemaining(result::add));
+        assertThat(result).containsExactlyInAnyOrderElementsOf(expectedKeys);
+    }
+
+    @Test
+    public void splitKeyRanges_willReturnSingleRange_whenThereAreNoEntities() {
+        assertThat(repository.splitKeyRanges(4))
+                .containsExactly(KeyRange.all());
+    }
+
+    @Test
+    public void forEachBatchInRanges_willProcessAllEntities() {
+        TestLongEntity[] entities = withIds(10);
+        ofy().save().entities(entities).now();
+
+        List<TestLongEntity> result = Collections.synchronizedList(new ArrayList<>());
+        int count = repository.forEachBatchInRanges(3, 2, batch -> {
+            assertThat(batch.size()).isLessThanOrEqualTo(2);
+            result.addAll(batch);
+        });
+
+        assertThat(count).isEqualTo(10);
+        assertThat(result).containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void forEachBatchInRanges_willShareWriteBehindBufferAndRpcCounter_withRangeThreads() {
+        ofy().save().entities(withIds(10)).now();
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            try (RpcCounter counter = RpcTracker.begin()) {
+                repository.forEachBatchInRanges(3, 2, batch -> batch.forEach(entity -> saveRepository.save(entity.setName("updated"))));
+
+                assertThat(buffer.size()).isEqualTo(10);
+                assertThat(counter.getCount(RpcType.QUERY)).isGreaterThanOrEqualTo(3);
+                assertThat(counter.getCount(RpcType.PUT)).isEqualTo(0);
+            }
+        }
+
+        ofy().clear();
+        assertThat(repository.findAll()).extracting("name").containsOnly("updated");
+    }
+
+    @Test
+    public void forEachKeyBatchInRanges_willReportFailuresFromEachRange() {
+        ofy().save().entities(withIds(10)).now();
+
+        thrown.expect(ChunkedOperationException.class);
+        thrown.expectMessage("3 of 3 chunks failed");
+
+        repository.forEachKeyBatchInRanges(3, 100, batch -> {
+            throw new IllegalStateException("failed");
+        });
+    }
+
+    @Test
+    public void getPageCursorCache_willBeSharedByRepositoriesOfEntityType() {
+        assertThat(repository.getPageCursorCache())
+                .isSameAs(entityCaches.getPageCursorCache(TestLongEntity.class))
+                .isNotSameAs(EntityCaches.shared().getPageCursorCache(TestLongEntity.class));
+    }
+
+    @Test
+    public void findAllPageable() {
+        repository.getPageCursorCache().clear();
+        TestLongEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestLongEntity> first = repository.findAll(PageRequest.of(0, 2, Sort.by("name")));
+        CursorSlice<TestLongEntity> second = repository.findAll(PageRequest.of(1, 2, Sort.by("name")));
+        CursorSlice<TestLongEntity> third = repository.findAll(PageRequest.of(2, 2, Sort.by("name")));
+
+        assertThat(first.getContent()).containsExactly(entities[0], entities[1]);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).containsExactly(entities[2], entities[3]);
+        assertThat(second.hasNext()).isTrue();
+        assertThat(third.getContent()).containsExactly(entities[4]);
+        assertThat(third.hasNext()).isFalse();
+        assertThat(third.getNextPageToken()).isEmpty();
+    }
+
+    @Test
+    public void findAllPageable_willSkipToPage_whenEarlierPagesHaveNotBeenRead() {
+        TestLongEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestLongEntity> result = repository.findAll(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "name")));
+
+        assertThat(result.getContent()).containsExactly(entities[2], entities[1]);
+    }
+
+    @Test
+    public void findAllPageable_willReturnEmptySlice_whenThereAreNoEntities() {
+        CursorSlice<TestLongEntity> result = repository.findAll(PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    public void findAllPageToken() {
+        TestLongEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestLongEntity> first = repository.findAll(PageRequest.of(0, 2, Sort.by("name")), null);
+        CursorSlice<TestLongEntity> second = repository.findAll(PageRequest.of(0, 2, Sort.by("name")), first.getNextPageToken().get());
+
+        assertThat(first.getContent()).containsExactly(entities[0], entities[1]);
+        assertThat(second.getContent()).containsExactly(entities[2]);
+        assertThat(second.getNextPageToken()).isEmpty();
+    }
+
     @Test
     public void findAllWithCount()  {
         TestLongEntity[] entities = fixture.get(3);
@@ -110,6 +329,39 @@ public class LongLoadRepositoryTest extends AbstractLongRepositoryTest {
                 .containsExactly(entities);
     }
 
+    @Test
+    public void findAllCollection_willLoadInChunks_whenKeysExceedGetLimit()  {
+        TestLongEntity[] entities = fixture.get(ChunkedOperation.MAX_GET_SIZE + 1);
+        ofy().save().entities(entities).now();
+        List<Key<TestLongEntity>> keys = Stream.of(entities).map(Key::create).collect(Collectors.toList());
+        ofy().clear();
+
+        List<TestLongEntity> result = repository.findAll(keys);
+
+        assertThat(result)
+                .hasSize(entities.length)
+                .containsExactly(entities);
+    }
+
+    @Test
+    public void findAllCollection_willReturnEachEntityOnce_whenKeysAreDuplicated()  {
+        TestLongEntity[] entities = fixture.get(2);
+        ofy().save().entities(entities).now();
+        ofy().clear();
+
+        List<TestLongEntity> result = repository.findAll(
+                Arrays.asList(
+                        Key.create(TestLongEntity.class, 1L),
+                        Key.create(TestLongEntity.class, 2L),
+                        Key.create(TestLongEntity.class, 1L)
+                )
+        );
+
+        assertThat(result)
+                .hasSize(2)
+                .containsExactly(entities);
+    }
+
     @Test
     public void findAllCollection_willReturnEmpty_whenNoKeysArePassed()  {
         List<TestLongEntity> result = repository.findAll(
@@ -508,4 +760,120 @@ public class LongLoadRepositoryTest extends AbstractLongRepositoryTest {
         repository.getByKey(Key.create(TestLongEntity.class, 999L));
     }    
     
+
+    @Test
+    public void findByKey_willServeFromEntityCache_whenCacheIsConfigured() {
+        TestLongRepository cachingRepository = cachingRepository();
+        TestLongEntity entity = cachingRepository.save(new TestLongEntity(1L).setName("cached"));
+        Key<TestLongEntity> key = Key.create(entity);
+
+        assertThat(cachingRepository.findByKey(key)).contains(entity);
+        ofy().delete().entity(entity).now();
+        ofy().clear();
+
+        Optional<TestLongEntity> cached = cachingRepository.findByKey(key);
+        assertThat(cached).contains(entity);
+        assertThat(cached.get()).isNotSameAs(entity);
+        assertThat(cachingRepository.getEntityCache().getStats().hitCount()).isEqualTo(1);
+        assertThat(cachingRepository.getEntityCache().getStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void findByKey_willNotServeFromEntityCache_whenEntityIsSavedOrDeleted() {
+        TestLongRepository cachingRepository = cachingRepository();
+        TestLongEntity entity = cachingRepository.save(new TestLongEntity(1L).setName("original"));
+        Key<TestLongEntity> key = Key.create(entity);
+        cachingRepository.findByKey(key);
+
+        cachingRepository.save(new TestLongEntity(1L).setName("updated"));
+        assertThat(cachingRepository.findByKey(key).map(TestLongEntity::getName)).contains("updated");
+
+        cachingRepository.deleteByKey(key);
+        assertThat(cachingRepository.findByKey(key)).isEmpty();
+    }
+
+    @Test
+    public void findAllByKeys_willCombineCachedAndLoadedEntitiesInKeyOrder() {
+        TestLongRepository cachingRepository = cachingRepository();
+        TestLongEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+        cachingRepository.findByKey(Key.create(entities[1]));
+
+        List<TestLongEntity> result = cachingRepository.findAll(
+                Key.create(entities[2]),
+                Key.create(entities[1]),
+                Key.create(TestLongEntity.class, 999L),
+                Key.create(entities[0])
+        );
+
+        assertThat(result).containsExactly(entities[2], entities[1], entities[0]);
+        assertThat(cachingRepository.getEntityCache().getStats().hitCount()).isEqualTo(1);
+        assertThat(cachingRepository.getEntityCache().size()).isEqualTo(3);
+    }
+
+    @Test
+    public void findByKey_willBypassEntityCache_whenInTransaction() {
+        TestLongRepository cachingRepository = cachingRepository();
+        TestLongEntity entity = cachingRepository.save(new TestLongEntity(1L).setName("cached"));
+        Key<TestLongEntity> key = Key.create(entity);
+        cachingRepository.findByKey(key);
+
+        Optional<TestLongEntity> loaded = ofy().transact(() -> cachingRepository.findByKey(key));
+
+        assertThat(loaded).contains(entity);
+        assertThat(cachingRepository.getEntityCache().getStats().hitCount()).isEqualTo(0);
+        assertThat(cachingRepository.getEntityCache().getStats().requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getEntityCache_willBeSharedByRepositoriesOfEntityType() {
+        assertThat(EntityCaches.shared().getEntityCache(CachedEntity.class))
+                .isNotNull()
+                .isSameAs(EntityCaches.shared().getEntityCache(CachedEntity.class));
+        assertThat(EntityCaches.shared().getEntityCache(TestLongEntity.class)).isNull();
+    }
+
+    @Test
+    public void setEntityCaches_willUseCachesOfRegistry() {
+        EntityCaches entityCaches = new EntityCaches();
+        TestLongRepository cachingRepository = new TestLongRepository(objectify, null);
+        cachingRepository.setEntityCaches(entityCaches);
+
+        assertThat(cachingRepository.getPageCursorCache())
+                .isSameAs(entityCaches.getPageCursorCache(TestLongEntity.class))
+                .isNotSameAs(EntityCaches.shared().getPageCursorCache(TestLongEntity.class));
+    }
+
+    @Test
+    public void findByKey_willRememberMissingKey_whenMissingKeyCacheIsConfigured() {
+        TestLongRepository cachingRepository = new TestLongRepository(objectify, null);
+        cachingRepository.setMissingKeyCache(new MissingKeyCache(100, 1, TimeUnit.MINUTES));
+        Key<TestLongEntity> key = Key.create(TestLongEntity.class, 1L);
+
+        assertThat(cachingRepository.findByKey(key)).isEmpty();
+        assertThat(cachingRepository.findAll(key)).isEmpty();
+        ofy().save().entity(new TestLongEntity(1L)).now();
+
+        assertThat(cachingRepository.findByKey(key)).isEmpty();
+        assertThat(cachingRepository.getMissingKeyCache().getStats().hitCount()).isEqualTo(2);
+
+        cachingRepository.save(new TestLongEntity(1L).setName("saved"));
+        assertThat(cachingRepository.findByKey(key).map(TestLongEntity::getName)).contains("saved");
+    }
+
+    private TestLongRepository cachingRepository() {
+        TestLongRepository cachingRepository = new TestLongRepository(objectify, null);
+        cachingRepository.setEntityCache(new EntityCache<>(100, 1, TimeUnit.MINUTES));
+        return cachingRepository;
+    }
+
+    private static TestLongEntity[] withIds(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new TestLongEntity(id).setName("entity" + id))
+                .toArray(TestLongEntity[]::new);
+    }
+
+    @EntityCached
+    private static class CachedEntity {
+    }
 }
@@ -2,12 +2,18 @@ package org.springframework.contrib.gae.objectify.repository;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.IdAllocator;
 import org.springframework.contrib.gae.objectify.TestLongEntity;
 import org.springframework.contrib.gae.search.Operator;
+import org.springframework.contrib.gae.search.SearchService;
 import org.springframework.contrib.gae.search.query.Query;
 import org.springframework.contrib.gae.search.query.Result;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SuppressWarnings("ConstantConditions")
 public class LongSearchRepositoryTest extends AbstractLongRepositoryTest {
@@ -15,6 +21,9 @@ public class LongSearchRepositoryTest extends AbstractLongRepositoryTest {
     @Autowired
     private SearchRepository<TestLongEntity, Long> repository;
 
+    @Autowired
+    private SearchService searchService;
+
     @Test
     public void save_willIndexInSearchService() {
         TestLongEntity target = new TestLongEntity(2L).setName("name2");
@@ -27,6 +36,32 @@ public class LongSearchRepositoryTest extends AbstractLongRepositoryTest {
         assertThat(searchByName("name2")).containsExactly(target);
     }
 
+    @Test
+    public void save_willAllocateIdBeforeSaving_whenIdAllocatorIsConfigured() {
+        TestLongRepository allocatingRepository = new TestLongRepository(objectify, searchService);
+        allocatingRepository.setIdAllocator(new IdAllocator(objectify));
+
+        TestLongEntity entity = allocatingRepository.saveAsync(new TestLongEntity(null).setName("allocated")).get();
+
+        assertThat(entity.getId()).isNotNull();
+        assertThat(load(entity.getId())).isEqualTo(entity);
+        assertThat(searchByName("allocated")).containsExactly(entity);
+    }
+
+    @Test
+    public void saveCollection_willAllocateIdsBeforeSaving_whenIdAllocatorIsConfigured() {
+        TestLongRepository allocatingRepository = new TestLongRepository(objectify, searchService);
+        allocatingRepository.setIdAllocator(new IdAllocator(objectify));
+
+        List<TestLongEntity> entities = allocatingRepository.save(Arrays.asList(
+                new TestLongEntity(null).setName("allocated"),
+                new TestLongEntity(null).setName("allocated")
+        ));
+
+        assertThat(entities).extracting("id").doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(searchByName("allocated")).containsExactlyInAnyOrderElementsOf(entities);
+    }
+
     @Test
     public void save_willUpdateIndex_whenSavedTwice() {
         TestLongEntity target = new TestLongEntity(2L).setName("name2");
@@ -60,6 +95,26 @@ public class LongSearchRepositoryTest extends AbstractLongRepositoryTest {
         assertThat(searchByName(target.getName())).isEmpty();
     }
 
+    @Test
+    public void deleteAsync_willDeleteFromDatastore_whenUnindexFails() {
+        IllegalStateException failure = new IllegalStateException("unindex failed");
+        TestLongRepository failingRepository = new TestLongRepository(objectify, searchService) {
+            @Override
+            public Runnable unindexAsync(TestLongEntity entity) {
+                return () -> {
+                    throw failure;
+                };
+            }
+        };
+        TestLongEntity target = new TestLongEntity(1L).setName("target");
+        repository.save(target);
+
+        Runnable operation = failingRepository.deleteAsync(target);
+
+        assertThatThrownBy(operation::run).isSameAs(failure);
+        assertThat(objectify.ofy().load().type(TestLongEntity.class).id(1L).now()).isNull();
+    }
+
     private Result<TestLongEntity> searchByName(String name) {
         Query<TestLongEntity> query = repository.search()
                 .filter("name", Operator.EQ, name)
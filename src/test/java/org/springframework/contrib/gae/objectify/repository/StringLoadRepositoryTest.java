@@ -4,6 +4,8 @@ import com.googlecode.objectify.Key;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.contrib.gae.objectify.TestStringEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SuppressWarnings("ConstantConditions")
 public class StringLoadRepositoryTest extends AbstractStringRepositoryTest {
@@ -53,6 +56,101 @@ public class StringLoadRepositoryTest extends AbstractStringRepositoryTest {
                 .isEmpty();
     }
 
+    @Test
+    public void streamAll() {
+        TestStringEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        assertThat(repository.streamAll(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void streamAll_willReturnEmptyStream_whenThereAreNoEntities() {
+        assertThat(repository.streamAll().collect(Collectors.toList()))
+                .isEmpty();
+    }
+
+    @Test
+    public void streamAll_willNotRepeatEntities_whenChunkSizeDividesCount() {
+        TestStringEntity[] entities = fixture.get(4);
+        ofy().save().entities(entities).now();
+
+        assertThat(repository.streamAll(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void streamAllKeys() {
+        TestStringEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+        List<Key<TestStringEntity>> expectedKeys = Stream.of(entities).map(Key::create).collect(Collectors.toList());
+
+        assertThat(repository.streamAllKeys(2).collect(Collectors.toList()))
+                .containsExactlyInAnyOrderElementsOf(expectedKeys);
+    }
+
+    @Test
+    public void iterateAll() {
+        TestStringEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+
+        List<TestStringEntity> result = new ArrayList<>();
+        repository.iterateAll(1).forEachRemaining(result::add);
+
+        assertThat(result)
+                .containsExactlyInAnyOrder(entities);
+    }
+
+    @Test
+    public void findAllPageable() {
+        TestStringEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestStringEntity> first = repository.findAll(PageRequest.of(0, 2, Sort.by("name")));
+        CursorSlice<TestStringEntity> second = repository.findAll(PageRequest.of(1, 2, Sort.by("name")));
+        CursorSlice<TestStringEntity> third = repository.findAll(PageRequest.of(2, 2, Sort.by("name")));
+
+        assertThat(first.getContent()).containsExactly(entities[0], entities[1]);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).containsExactly(entities[2], entities[3]);
+        assertThat(second.hasNext()).isTrue();
+        assertThat(third.getContent()).containsExactly(entities[4]);
+        assertThat(third.hasNext()).isFalse();
+        assertThat(third.getNextPageToken()).isEmpty();
+    }
+
+    @Test
+    public void findAllPageable_willSkipToPage_whenEarlierPagesHaveNotBeenRead() {
+        TestStringEntity[] entities = fixture.get(5);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestStringEntity> result = repository.findAll(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "name")));
+
+        assertThat(result.getContent()).containsExactly(entities[2], entities[1]);
+    }
+
+    @Test
+    public void findAllPageable_willReturnEmptySlice_whenThereAreNoEntities() {
+        CursorSlice<TestStringEntity> result = repository.findAll(PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    public void findAllPageToken() {
+        TestStringEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+
+        CursorSlice<TestStringEntity> first = repository.findAll(PageRequest.of(0, 2, Sort.by("name")), null);
+        CursorSlice<TestStringEntity> second = repository.findAll(PageRequest.of(0, 2, Sort.by("name")), first.getNextPageToken().get());
+
+        assertThat(first.getContent()).containsExactly(entities[0], entities[1]);
+        assertThat(second.getContent()).containsExactly(entities[2]);
+        assertThat(second.getNextPageToken()).isEmpty();
+    }
+
     @Test
     public void findAllWithCount() {
         TestStringEntity[] entities = fixture.get(3);
@@ -546,6 +644,57 @@ public class StringLoadRepositoryTest extends AbstractStringRepositoryTest {
         assertThat(batchIds).containsExactly("id1-id2", "id3-id4", "id5-id6", "id7");
     }
 
+    @Test
+    public void forEachBatch_willCallConsumerForEachBatchInOrder_whenPrefetching() {
+        TestStringEntity[] entities = fixture.get(7);
+        ofy().save().entities(entities).now();
+        List<Key<TestStringEntity>> keys = repository.findAllKeys();
+
+        List<String> batchIds = new ArrayList<>();
+        repository.forEachBatch(keys, 2, 2, b -> {
+            String joinedIds = b.stream().map(TestStringEntity::getId).collect(Collectors.joining("-"));
+            batchIds.add(joinedIds);
+        });
+
+        assertThat(batchIds).containsExactly("id1-id2", "id3-id4", "id5-id6", "id7");
+    }
+
+    @Test
+    public void forEachEntity_willCallConsumer_whenPrefetchDepthExceedsBatchCount() {
+        TestStringEntity[] entities = fixture.get(3);
+        ofy().save().entities(entities).now();
+        List<Key<TestStringEntity>> keys = repository.findAllKeys();
+
+        List<String> ids = new ArrayList<>();
+        repository.forEachEntity(keys, 2, 10, e -> ids.add(e.getId()));
+
+        assertThat(ids).containsExactly("id1", "id2", "id3");
+    }
+
+    @Test
+    public void forEachBatch_willNotCallConsumer_whenThereAreNoKeys() {
+        List<Collection<TestStringEntity>> batches = new ArrayList<>();
+        repository.forEachBatch(Collections.emptyList(), 2, 1, batches::add);
+
+        assertThat(batches).isEmpty();
+    }
+
+    @Test
+    public void forEachBatch_willThrowException_whenPrefetchDepthIsNegative() {
+        assertThatThrownBy(() -> repository.forEachBatch(Collections.emptyList(), 2, -1, batch -> {
+        }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Prefetch depth");
+    }
+
+    @Test
+    public void forEachBatch_willThrowException_whenBatchSizeIsNotPositive() {
+        assertThatThrownBy(() -> repository.forEachBatch(Collections.emptyList(), 0, 1, batch -> {
+        }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Batch size");
+    }
+
     @Test
     public void forEachBatch_willUseDefaultBatchSize() {
         TestStringEntity[] entities = fixture.get(201);
@@ -140,6 +140,23 @@ public class StringSearchRepositoryTest extends AbstractStringRepositoryTest {
         repository.findAll().forEach(e -> assertThat(e.isReindexed()).isEqualTo(true));
     }
 
+    @Test
+    public void reindex_willReindexEachKeyRange() {
+        repository.save(
+                new TestStringEntity("id1").setName("name1"),
+                new TestStringEntity("id2").setName("name2")
+        );
+        repository.clearSearchIndex();
+
+        int count = repository.reindex(b -> b, 1, 2);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(searchByName("name1"))
+                .isNotEmpty();
+        assertThat(searchByName("name2"))
+                .isNotEmpty();
+    }
+
     private void assertSearchByName(String name, TestStringEntity... expectedEntities) {
         Result<TestStringEntity> searchResult = searchByName(name);
         assertThat(searchResult).containsExactly(expectedEntities);
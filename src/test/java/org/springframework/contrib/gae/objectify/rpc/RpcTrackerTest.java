@@ -0,0 +1,163 @@
+package org.springframework.contrib.gae.objectify.rpc;
+
+import com.google.apphosting.api.ApiProxy;
+import com.googlecode.objectify.Key;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.TestLongEntity;
+import org.springframework.contrib.gae.objectify.TestStringEntity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RpcTrackerTest extends ObjectifyTest {
+
+    @After
+    public void tearDown() {
+        assertThat(RpcTracker.current()).isNull();
+        RpcCountingDelegate.uninstall();
+    }
+
+    @Test
+    public void close_willLeaveDelegateInstalled() {
+        try (RpcCounter counter = RpcTracker.begin()) {
+            assertThat(RpcTracker.current()).isSameAs(counter);
+            assertThat(ApiProxy.getDelegate()).isInstanceOf(RpcCountingDelegate.class);
+        }
+
+        assertThat(ApiProxy.getDelegate()).isInstanceOf(RpcCountingDelegate.class);
+        assertThat(RpcCountingDelegate.install()).isFalse();
+    }
+
+    @Test
+    public void begin_willCountDatastoreCallsByType() {
+        try (RpcCounter counter = RpcTracker.begin()) {
+            save(new TestLongEntity(1L), new TestLongEntity(2L));
+            ofy().clear();
+            ofy().load().type(TestLongEntity.class).ids(1L, 2L).size();
+            ofy().load().type(TestLongEntity.class).list().size();
+            ofy().delete().type(TestLongEntity.class).id(1L).now();
+
+            assertThat(counter.getCount(RpcType.PUT)).isEqualTo(1);
+            assertThat(counter.getCount(RpcType.GET)).isEqualTo(1);
+            assertThat(counter.getCount(RpcType.QUERY)).isGreaterThanOrEqualTo(1);
+            assertThat(counter.getCount(RpcType.DELETE)).isEqualTo(1);
+            assertThat(counter.getSingleGets()).isEmpty();
+        }
+    }
+
+    @Test
+    public void begin_willCountSingleKeyGetsByKind() {
+        List<Key<TestLongEntity>> keys = keys(save(new TestLongEntity(1L), new TestLongEntity(2L), new TestLongEntity(3L)));
+        save(new TestStringEntity("id"));
+        ofy().clear();
+
+        try (RpcCounter counter = RpcTracker.begin()) {
+            keys.forEach(key -> ofy().load().key(key).now());
+            ofy().load().type(TestStringEntity.class).id("id").now();
+
+            assertThat(counter.getCount(RpcType.GET)).isEqualTo(4);
+            assertThat(counter.getSingleGets("TestLongEntity")).isEqualTo(3);
+            assertThat(counter.getSingleGets("TestStringEntity")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void begin_willNotCountCallsOutsideTheScope() {
+        RpcCounter counter;
+        try (RpcCounter scope = RpcTracker.begin()) {
+            counter = scope;
+        }
+        save(new TestLongEntity(1L));
+
+        assertThat(counter.getTotal()).isEqualTo(0);
+    }
+
+    @Test
+    public void begin_willNestInActiveScope() {
+        try (RpcCounter outer = RpcTracker.begin()) {
+            try (RpcCounter inner = RpcTracker.begin()) {
+                assertThat(inner).isSameAs(outer);
+            }
+            save(new TestLongEntity(1L));
+
+            assertThat(RpcTracker.current()).isSameAs(outer);
+            assertThat(outer.getCount(RpcType.PUT)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void assertNoRepeatedGets_willFail_whenKindIsLoadedOneKeyAtATime() {
+        List<Key<TestLongEntity>> keys = keys(save(new TestLongEntity(1L), new TestLongEntity(2L)));
+        ofy().clear();
+
+        thrown.expect(RpcBudgetExceededException.class);
+        thrown.expectMessage("Repeated single key gets of kind TestLongEntity: 2 exceeds limit of 1");
+
+        try (RpcCounter counter = RpcTracker.begin()) {
+            keys.forEach(key -> ofy().load().key(key).now());
+            counter.assertNoRepeatedGets();
+        }
+    }
+
+    @Test
+    public void assertNoRepeatedGets_willPass_whenKeysAreLoadedInBatch() {
+        List<Key<TestLongEntity>> keys = keys(save(new TestLongEntity(1L), new TestLongEntity(2L)));
+        ofy().clear();
+
+        try (RpcCounter counter = RpcTracker.begin()) {
+            ofy().load().keys(keys).size();
+            counter.assertNoRepeatedGets();
+            counter.assertAtMost(RpcType.GET, 1);
+        }
+    }
+
+    @Test
+    public void assertAtMost_willFail_whenLimitIsExceeded() {
+        thrown.expect(RpcBudgetExceededException.class);
+        thrown.expectMessage("PUT calls: 2 exceeds limit of 1");
+
+        try (RpcCounter counter = RpcTracker.begin()) {
+            save(new TestLongEntity(1L));
+            save(new TestLongEntity(2L));
+            counter.assertAtMost(RpcType.PUT, 1);
+        }
+    }
+
+    @Test
+    public void getViolations_willReportEachExceededLimit() {
+        try (RpcCounter counter = RpcTracker.begin()) {
+            save(new TestLongEntity(1L));
+            save(new TestLongEntity(2L));
+
+            RpcBudget budget = new RpcBudget()
+                    .setLimit(RpcType.PUT, 1)
+                    .setLimit(RpcType.GET, 0)
+                    .setMaxTotal(1);
+
+            assertThat(budget.getViolations(counter)).containsExactly(
+                    "PUT calls: 2 exceeds limit of 1",
+                    "Total calls: 2 exceeds limit of 1");
+        }
+    }
+
+    @Test
+    public void reset_willClearCounts() {
+        try (RpcCounter counter = RpcTracker.begin()) {
+            save(new TestLongEntity(1L));
+            counter.reset();
+
+            assertThat(counter.getTotal()).isEqualTo(0);
+        }
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    private static <E> List<Key<E>> keys(E... entities) {
+        return Arrays.stream(entities).map(Key::create).collect(Collectors.toList());
+    }
+}
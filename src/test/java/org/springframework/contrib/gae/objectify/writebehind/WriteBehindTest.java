@@ -0,0 +1,239 @@
+package org.springframework.contrib.gae.objectify.writebehind;
+
+import com.googlecode.objectify.Key;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.TestLongEntity;
+import org.springframework.contrib.gae.objectify.repository.SearchRepository;
+import org.springframework.contrib.gae.search.Operator;
+import org.springframework.contrib.gae.search.query.Result;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class WriteBehindTest extends ObjectifyTest {
+
+    @Autowired
+    private SearchRepository<TestLongEntity, Long> repository;
+
+    @After
+    public void tearDown() {
+        assertThat(WriteBehind.current()).isNull();
+    }
+
+    @Test
+    public void save_willBeDeferredUntilBufferIsClosed() {
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            repository.save(entity);
+
+            assertThat(buffer.size()).isEqualTo(1);
+            assertThat(ofy().load().type(TestLongEntity.class).count()).isEqualTo(0);
+        }
+
+        assertThat(load(1L)).isEqualTo(entity);
+        assertThat(searchByName("name")).containsExactly(entity);
+    }
+
+    @Test
+    public void save_willCoalesceWritesToTheSameKey() {
+        TestLongEntity entity = new TestLongEntity(1L).setName("first");
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            repository.save(entity);
+            repository.save(new TestLongEntity(1L).setName("second"));
+            repository.save(new TestLongEntity(2L).setName("other"));
+
+            assertThat(buffer.size()).isEqualTo(2);
+        }
+
+        assertThat(load(1L).getName()).isEqualTo("second");
+        assertThat(load(2L).getName()).isEqualTo("other");
+        assertThat(searchByName("first")).isEmpty();
+    }
+
+    @Test
+    public void delete_willReplaceBufferedSave() {
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            repository.save(entity);
+            repository.delete(entity);
+
+            assertThat(buffer.size()).isEqualTo(1);
+        }
+
+        assertThat(load(1L)).isNull();
+        assertThat(searchByName("name")).isEmpty();
+    }
+
+    @Test
+    public void delete_willBeDeferredUntilBufferIsClosed() {
+        repository.save(new TestLongEntity(1L).setName("name"));
+
+        try (WriteBehindBuffer ignored = WriteBehind.begin()) {
+            repository.deleteByKey(Key.create(TestLongEntity.class, 1L));
+
+            assertThat(ofy().load().type(TestLongEntity.class).count()).isEqualTo(1);
+            // the document is still in the index, but results are loaded by key so they reflect the buffered delete
+            Result<TestLongEntity> result = searchByName("name");
+            assertThat(result.getTotal()).isEqualTo(1);
+            assertThat(result).isEmpty();
+        }
+
+        assertThat(ofy().load().type(TestLongEntity.class).count()).isEqualTo(0);
+        assertThat(searchByName("name")).isEmpty();
+    }
+
+    @Test
+    public void findByKey_willReturnPendingWrite() {
+        repository.save(new TestLongEntity(2L).setName("existing"));
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer ignored = WriteBehind.begin()) {
+            repository.save(entity);
+            repository.deleteByKey(Key.create(TestLongEntity.class, 2L));
+
+            assertThat(repository.findByKey(Key.create(TestLongEntity.class, 1L))).contains(entity);
+            assertThat(repository.findByKey(Key.create(TestLongEntity.class, 2L))).isEmpty();
+        }
+    }
+
+    @Test
+    public void findAllKeys_willReturnPendingWrites() {
+        TestLongEntity existing = repository.save(new TestLongEntity(3L).setName("existing"));
+        repository.save(new TestLongEntity(2L).setName("deleted"));
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer ignored = WriteBehind.begin()) {
+            repository.save(entity);
+            repository.deleteByKey(Key.create(TestLongEntity.class, 2L));
+
+            assertThat(repository.findAll(Arrays.asList(
+                    Key.create(TestLongEntity.class, 1L),
+                    Key.create(TestLongEntity.class, 2L),
+                    Key.create(TestLongEntity.class, 3L)
+            ))).containsExactly(entity, existing);
+        }
+    }
+
+    @Test
+    public void save_willApplyImmediately_whenInTransaction() {
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            ofy().transact(() -> repository.save(entity));
+
+            assertThat(buffer.size()).isEqualTo(0);
+            assertThat(load(1L)).isEqualTo(entity);
+        }
+    }
+
+    @Test
+    public void delete_willApplyImmediately_whenInTransaction() {
+        repository.save(new TestLongEntity(1L).setName("name"));
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            ofy().transact(() -> {
+                repository.deleteByKey(Key.create(TestLongEntity.class, 1L));
+                return null;
+            });
+
+            assertThat(buffer.size()).isEqualTo(0);
+            assertThat(load(1L)).isNull();
+        }
+    }
+
+    @Test
+    public void filter_willFlushBufferedWrites_whenRequestSucceeds() throws Exception {
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        new WriteBehindFilter().doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (request, response) -> {
+            repository.save(entity);
+            assertThat(load(1L)).isNull();
+        });
+
+        assertThat(load(1L)).isEqualTo(entity);
+    }
+
+    @Test
+    public void filter_willDiscardBufferedWrites_whenRequestFails() {
+        assertThatThrownBy(() -> new WriteBehindFilter().doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (request, response) -> {
+            repository.save(new TestLongEntity(1L).setName("name"));
+            throw new IllegalStateException("failed");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("failed");
+
+        assertThat(load(1L)).isNull();
+        assertThat(searchByName("name")).isEmpty();
+    }
+
+    @Test
+    public void save_willApplyImmediately_whenEntityHasNoId() {
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            TestLongEntity entity = repository.save(new TestLongEntity(null).setName("name"));
+
+            assertThat(entity.getId()).isNotNull();
+            assertThat(buffer.size()).isEqualTo(0);
+            assertThat(load(entity.getId())).isEqualTo(entity);
+        }
+    }
+
+    @Test
+    public void saveCollection_willFlushAsOneBatch() {
+        List<TestLongEntity> entities = Arrays.asList(
+                new TestLongEntity(1L).setName("name"),
+                new TestLongEntity(2L).setName("name"),
+                new TestLongEntity(3L).setName("name")
+        );
+
+        try (WriteBehindBuffer buffer = WriteBehind.begin()) {
+            repository.save(entities);
+            assertThat(buffer.size()).isEqualTo(3);
+
+            WriteBehind.flush();
+
+            assertThat(buffer.size()).isEqualTo(0);
+            assertThat(ofy().load().type(TestLongEntity.class).count()).isEqualTo(3);
+        }
+
+        assertThat(searchByName("name")).containsExactlyInAnyOrderElementsOf(entities);
+    }
+
+    @Test
+    public void begin_willJoinOuterScope_whenAlreadyActive() {
+        TestLongEntity entity = new TestLongEntity(1L).setName("name");
+
+        try (WriteBehindBuffer outer = WriteBehind.begin()) {
+            try (WriteBehindBuffer inner = WriteBehind.begin()) {
+                repository.save(entity);
+                assertThat(inner).isSameAs(outer);
+            }
+
+            assertThat(WriteBehind.current()).isSameAs(outer);
+            assertThat(ofy().load().type(TestLongEntity.class).count()).isEqualTo(0);
+        }
+
+        assertThat(load(1L)).isEqualTo(entity);
+    }
+
+    private TestLongEntity load(Long id) {
+        return ofy().load().key(Key.create(TestLongEntity.class, id)).now();
+    }
+
+    private Result<TestLongEntity> searchByName(String name) {
+        return repository.execute(repository.search()
+                .filter("name", Operator.EQ, name)
+                .build());
+    }
+}
@@ -3,11 +3,17 @@ package org.springframework.contrib.gae.search;
 import com.google.appengine.api.search.Document;
 import com.google.appengine.api.search.GeoPoint;
 import com.google.appengine.api.search.Index;
+import com.google.apphosting.api.ApiProxy;
 import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.search.conversion.DefaultSearchConversionService;
+import org.springframework.contrib.gae.search.misc.ClearResult;
 import org.springframework.contrib.gae.search.query.Query;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -23,6 +29,13 @@ public class SearchServiceImplTest extends SearchTest {
     @Autowired
     private SearchService searchService;
 
+    @Before
+    public void setUp() {
+        // large batches put several chunks to these indexes concurrently
+        createIndex(TestSearchEntity.class);
+        createIndex(ContextEntity.class);
+    }
+
     @Test
     public void index() {
         TestSearchEntity otherEntity = new TestSearchEntity("idOther");
@@ -72,6 +85,19 @@ public class SearchServiceImplTest extends SearchTest {
         assertThat(index.get("some-id")).isNull();
     }
 
+    @Test
+    public void index_willWriteNullValues_asFieldsWithoutValue() {
+        TestSearchEntity entity = new TestSearchEntity("id1")
+                .setStringListField(Arrays.asList("value1", null));
+
+        searchService.index(entity);
+
+        Document result = getIndex(TestSearchEntity.class).get("id1");
+        assertThat(result.getFieldNames()).contains("stringField", "otherEntity");
+        assertThat(result.getFields("stringListField")).extracting("text").containsExactly("value1", "");
+        assertThat(result.getFields("stringBeanField")).extracting("text").containsExactly("indexedMethodValue");
+    }
+
     @Test
     public void indexMultiple() {
         TestSearchEntity entity1 = new TestSearchEntity("entity1").setStringField("value1");
@@ -88,6 +114,65 @@ public class SearchServiceImplTest extends SearchTest {
         assertThat(index.get("entity3").getFields("stringField")).extracting("text").containsExactly("value3");
     }
 
+    @Test
+    public void indexMultiple_willSplitIntoChunks_whenOverDocumentLimit() {
+        Map<String, TestSearchEntity> entities = IntStream.range(1, 451)
+                .mapToObj(i -> new TestSearchEntity("entity" + i))
+                .collect(Collectors.toMap(TestSearchEntity::getId, entity -> entity));
+
+        searchService.index(entities);
+
+        Index index = getIndex(TestSearchEntity.class);
+        assertThat(countSearchEntities()).isEqualTo(450);
+        assertThat(index.get("entity1")).isNotNull();
+        assertThat(index.get("entity450")).isNotNull();
+    }
+
+    @Test
+    public void indexMultiple_willBuildDocumentsWithRequestContext_whenOverDocumentLimit() {
+        Map<String, ContextEntity> entities = IntStream.range(1, 451)
+                .boxed()
+                .collect(Collectors.toMap(i -> "entity" + i, i -> new ContextEntity()));
+
+        searchService.index(entities);
+
+        Index index = getIndex(ContextEntity.class);
+        assertThat(index.get("entity1").getFields("context")).extracting("text").containsExactly("objectify");
+        assertThat(index.get("entity450").getFields("context")).extracting("text").containsExactly("objectify");
+    }
+
+    @Test
+    public void indexMultiple_willBuildDocumentsOnCallingThread_whenDocumentBuildThreadsIsOne() {
+        SearchServiceImpl singleThreaded = new SearchServiceImpl(searchMetadata, new DefaultSearchConversionService())
+                .setDocumentBuildThreads(1);
+        Map<String, ContextEntity> entities = IntStream.range(1, 451)
+                .boxed()
+                .collect(Collectors.toMap(i -> "entity" + i, i -> new ContextEntity()));
+
+        singleThreaded.index(entities);
+
+        Index index = getIndex(ContextEntity.class);
+        assertThat(index.get("entity1").getFields("thread")).extracting("text").containsExactly(Thread.currentThread().getName());
+        assertThat(index.get("entity450").getFields("thread")).extracting("text").containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void indexMultiple_willWriteEachEntityToItsOwnIndex_whenEntityTypesDiffer() {
+        Map<String, Object> entities = new HashMap<>();
+        entities.put("entity1", new TestSearchEntity("entity1"));
+        entities.put("other1", new OtherEntity());
+        entities.put("empty1", new EmptyEntity());
+
+        searchService.index(entities);
+
+        Index index = getIndex(TestSearchEntity.class);
+        Index otherIndex = getIndex(OtherEntity.class);
+        assertThat(index.get("entity1")).isNotNull();
+        assertThat(index.get("other1")).isNull();
+        assertThat(otherIndex.get("other1")).isNotNull();
+        assertThat(otherIndex.get("entity1")).isNull();
+    }
+
     @Test
     public void indexMultiple_willDoNothing_whenEntityHasNoSearchFields() {
         Map<String, EmptyEntity> entities = new HashMap<>();
@@ -142,6 +227,23 @@ public class SearchServiceImplTest extends SearchTest {
         assertThat(index.get("entity3")).isNotNull();
     }
 
+    @Test
+    public void unindexAsync_willSplitIntoChunks_whenOverDocumentLimit() {
+        List<String> ids = IntStream.range(1, 451)
+                .mapToObj(i -> "entity" + i)
+                .collect(Collectors.toList());
+        searchService.index(ids.stream().map(TestSearchEntity::new));
+        assertThat(countSearchEntities()).isEqualTo(450);
+
+        Runnable operation = searchService.unindexAsync(TestSearchEntity.class, ids.subList(0, 400));
+        operation.run();
+
+        Index index = getIndex(TestSearchEntity.class);
+        assertThat(countSearchEntities()).isEqualTo(50);
+        assertThat(index.get("entity400")).isNull();
+        assertThat(index.get("entity401")).isNotNull();
+    }
+
     @Test
     public void unindexMultiple_willNotFail_whenMapIsEmpty() {
         searchService.unindex(TestSearchEntity.class, Collections.emptyList());
@@ -171,6 +273,21 @@ public class SearchServiceImplTest extends SearchTest {
         assertThat(index.get("entity300")).isNull();
     }
 
+    @Test
+    public void clear_withTimeLimit_willReturnContinuation() {
+        searchService.index(IntStream.range(1, 451).mapToObj(i -> new TestSearchEntity("entity" + i)));
+
+        ClearResult result = searchService.clear(TestSearchEntity.class, null, Duration.ZERO);
+        assertThat(result.getCount()).isEqualTo(200);
+        assertThat(result.isComplete()).isFalse();
+        assertThat(countSearchEntities()).isEqualTo(250);
+
+        result = searchService.clear("TestSearchEntity", result.getContinuation(), Duration.ofMinutes(1));
+        assertThat(result.getCount()).isEqualTo(250);
+        assertThat(result.isComplete()).isTrue();
+        assertThat(countSearchEntities()).isEqualTo(0);
+    }
+
     @Test
     public void clear_willNotImpactOtherIndexes() {
         TestSearchEntity entity1 = new TestSearchEntity("entity1");
@@ -224,6 +341,30 @@ public class SearchServiceImplTest extends SearchTest {
         assertThat(countSearchEntities()).isEqualTo(100);
     }
 
+    @Test
+    public void execute_willMapProjection_fromReturnedFields() {
+        searchService.index(new TestSearchEntity("id1")
+                .setStringField("value1")
+                .setLongField(42)
+                .setStringListField(Arrays.asList("a", "b")));
+
+        Query<TestSearchEntity> query = searchService.createQuery(TestSearchEntity.class)
+                .project("stringField", "longField", "stringListField")
+                .build();
+
+        List<TestProjection> projections = searchService.execute(query, TestProjection.class).getList();
+        assertThat(projections).hasSize(1);
+        assertThat(projections.get(0).getStringField()).isEqualTo("value1");
+        assertThat(projections.get(0).getLongField()).isEqualTo(42L);
+        assertThat(projections.get(0).getStringListField()).containsExactlyInAnyOrder("a", "b");
+
+        List<TestProjectionDto> dtos = searchService.execute(query, TestProjectionDto.class).getList();
+        assertThat(dtos).hasSize(1);
+        assertThat(dtos.get(0).stringField).isEqualTo("value1");
+        assertThat(dtos.get(0).longField).isEqualTo(42L);
+        assertThat(dtos.get(0).geoPointField).isNull();
+    }
+
     private int countSearchEntities() {
         Query<TestSearchEntity> query = searchService.createQuery(TestSearchEntity.class)
                 .retrieveIdsOnly()
@@ -248,6 +389,34 @@ public class SearchServiceImplTest extends SearchTest {
         }
     }
 
+    public static class ContextEntity {
+        @SearchIndex
+        public String getContext() {
+            // fails outside an Objectify context or without an API environment
+            ObjectifyService.ofy();
+            return ApiProxy.getCurrentEnvironment() == null ? "none" : "objectify";
+        }
+
+        @SearchIndex
+        public String getThread() {
+            return Thread.currentThread().getName();
+        }
+    }
+
+    public interface TestProjection {
+        String getStringField();
+
+        Long getLongField();
+
+        List<String> getStringListField();
+    }
+
+    public static class TestProjectionDto {
+        private String stringField;
+        private long longField;
+        private GeoPoint geoPointField;
+    }
+
     private class EmptyEntity {
 
     }
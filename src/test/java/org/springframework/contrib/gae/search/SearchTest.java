@@ -1,5 +1,7 @@
 package org.springframework.contrib.gae.search;
 
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Field;
 import com.google.appengine.api.search.Index;
 import com.google.appengine.api.search.IndexSpec;
 import com.google.appengine.api.search.SearchServiceFactory;
@@ -32,4 +34,20 @@ public abstract class SearchTest {
     protected Index getIndex(Class<?> entityClass) {
         return SearchServiceFactory.getSearchService().getIndex(IndexSpec.newBuilder().setName(searchMetadata.getIndexName(entityClass)));
     }
+
+    /**
+     * Create the index of an entity type before it is written to concurrently.
+     * The local search service creates an index on first use without synchronisation, so concurrent first puts to an
+     * index each create their own copy of it and the documents of all but the last are lost.
+     *
+     * @param entityClass Entity type.
+     */
+    protected void createIndex(Class<?> entityClass) {
+        Index index = getIndex(entityClass);
+        index.put(Document.newBuilder()
+                .setId("create-index")
+                .addField(Field.newBuilder().setName("createIndex").setAtom("createIndex"))
+                .build());
+        index.delete("create-index");
+    }
 }
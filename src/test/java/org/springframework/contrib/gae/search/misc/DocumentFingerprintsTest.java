@@ -0,0 +1,113 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Field;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.contrib.gae.search.SearchServiceImpl;
+import org.springframework.contrib.gae.search.SearchTest;
+import org.springframework.contrib.gae.search.TestSearchEntity;
+import org.springframework.contrib.gae.search.conversion.DefaultSearchConversionService;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DocumentFingerprintsTest extends SearchTest {
+    private DocumentFingerprints documentFingerprints;
+    private SearchServiceImpl searchService;
+
+    @Before
+    public void setUp() {
+        documentFingerprints = new DocumentFingerprints(MemcacheServiceFactory.getMemcacheService(DocumentFingerprints.NAMESPACE));
+        searchService = new SearchServiceImpl(searchMetadata, new DefaultSearchConversionService())
+                .setDocumentFingerprints(documentFingerprints);
+    }
+
+    @Test
+    public void fingerprint_willIgnoreIdAndRank() {
+        Document document1 = Document.newBuilder().setId("id1").setRank(1).build();
+        Document document2 = Document.newBuilder().setId("id2").setRank(2).build();
+
+        assertThat(DocumentFingerprints.fingerprint(document1)).isEqualTo(DocumentFingerprints.fingerprint(document2));
+    }
+
+    @Test
+    public void getChanges_willNotSkipDocument_whilePutOfOtherVersionIsInFlight() {
+        Document version1 = document("value1");
+        Document version2 = document("value2");
+        indexed(documentFingerprints.getChanges("index", singletonList(version1)));
+
+        DocumentFingerprints.Changes inFlight = documentFingerprints.getChanges("index", singletonList(version2));
+        DocumentFingerprints.Changes revert = documentFingerprints.getChanges("index", singletonList(version1));
+
+        assertThat(inFlight.getDocuments()).containsExactly(version2);
+        assertThat(revert.getDocuments()).containsExactly(version1);
+
+        // the puts overlapped, so neither fingerprint is recorded
+        indexed(inFlight);
+        indexed(revert);
+        assertThat(documentFingerprints.getChanges("index", singletonList(version1)).getDocuments()).containsExactly(version1);
+    }
+
+    @Test
+    public void getChanges_willRecordFingerprint_whenPutDoesNotOverlap() {
+        Document version1 = document("value1");
+        indexed(documentFingerprints.getChanges("index", singletonList(version1)));
+
+        assertThat(documentFingerprints.getChanges("index", singletonList(version1)).isEmpty()).isTrue();
+        assertThat(documentFingerprints.getSkippedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void index_willSkipUnchangedDocuments() {
+        TestSearchEntity entity = new TestSearchEntity("id1").setStringField("value1");
+
+        searchService.index(entity);
+        searchService.index(entity);
+
+        assertThat(documentFingerprints.getWrittenCount()).isEqualTo(1);
+        assertThat(documentFingerprints.getSkippedCount()).isEqualTo(1);
+
+        entity.setStringField("value2");
+        searchService.index(entity);
+
+        assertThat(documentFingerprints.getWrittenCount()).isEqualTo(2);
+        assertThat(getIndex(TestSearchEntity.class).get("id1").getOnlyField("stringField").getText()).isEqualTo("value2");
+    }
+
+    @Test
+    public void index_willPutDocument_whenUnindexed() {
+        TestSearchEntity entity = new TestSearchEntity("id1").setStringField("value1");
+        searchService.index(entity);
+
+        searchService.unindex(TestSearchEntity.class, "id1");
+        searchService.index(entity);
+
+        assertThat(documentFingerprints.getWrittenCount()).isEqualTo(2);
+        assertThat(getIndex(TestSearchEntity.class).get("id1")).isNotNull();
+    }
+
+    @Test
+    public void index_willPutDocument_whenIndexCleared() {
+        TestSearchEntity entity = new TestSearchEntity("id1").setStringField("value1");
+        searchService.index(entity);
+
+        searchService.clear(TestSearchEntity.class);
+        searchService.index(entity);
+
+        assertThat(documentFingerprints.getWrittenCount()).isEqualTo(2);
+        assertThat(getIndex(TestSearchEntity.class).get("id1")).isNotNull();
+    }
+
+    private static Document document(String value) {
+        return Document.newBuilder()
+                .setId("id1")
+                .addField(Field.newBuilder().setName("field").setText(value))
+                .build();
+    }
+
+    private static void indexed(DocumentFingerprints.Changes changes) {
+        changes.indexed(changes.getDocuments());
+    }
+}
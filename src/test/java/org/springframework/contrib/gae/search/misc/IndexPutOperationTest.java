@@ -0,0 +1,150 @@
+package org.springframework.contrib.gae.search.misc;
+
+import com.google.appengine.api.search.Document;
+import com.google.appengine.api.search.Index;
+import com.google.appengine.api.search.OperationResult;
+import com.google.appengine.api.search.PutException;
+import com.google.appengine.api.search.PutResponse;
+import com.google.appengine.api.search.StatusCode;
+import com.google.common.util.concurrent.Futures;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IndexPutOperationTest {
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Mock
+    private Index index;
+
+    private final IndexRetryPolicy retryPolicy = new IndexRetryPolicy(3, Duration.ZERO, Duration.ZERO);
+    private final List<IndexFailure> failures = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        when(index.getName()).thenReturn("index");
+    }
+
+    @Test
+    public void run_willRetryTransientFailures_andReportPermanentFailures() {
+        PutResponse response = putResponse(StatusCode.OK);
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFailedFuture(putException(StatusCode.OK, StatusCode.TRANSIENT_ERROR, StatusCode.INVALID_REQUEST)))
+                .thenReturn(Futures.immediateFuture(response));
+
+        new IndexPutOperation(index, documents("id1", "id2", "id3"), retryPolicy, failures::addAll).run();
+
+        verify(index).putAsync(argThat((List<Document> documents) -> documents.size() == 1 && documents.get(0).getId().equals("id2")));
+        assertThat(failures).extracting(IndexFailure::getDocumentId).containsExactly("id3");
+        assertThat(failures).extracting(IndexFailure::getCode).containsExactly(StatusCode.INVALID_REQUEST);
+        assertThat(failures).extracting(IndexFailure::getAttempts).containsExactly(1);
+    }
+
+    @Test
+    public void run_willReportFailure_whenRetriesAreExhausted() {
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFailedFuture(putException(StatusCode.TRANSIENT_ERROR)));
+
+        new IndexPutOperation(index, documents("id1"), retryPolicy, failures::addAll).run();
+
+        verify(index, times(3)).putAsync(anyList());
+        assertThat(failures).extracting(IndexFailure::getDocumentId).containsExactly("id1");
+        assertThat(failures).extracting(IndexFailure::getAttempts).containsExactly(3);
+    }
+
+    @Test
+    public void run_willNotReportFailures_whenAllDocumentsSucceed() {
+        PutResponse response = putResponse(StatusCode.OK, StatusCode.OK);
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFuture(response));
+
+        new IndexPutOperation(index, documents("id1", "id2"), retryPolicy, failures::addAll).run();
+
+        verify(index, times(1)).putAsync(anyList());
+        assertThat(failures).isEmpty();
+    }
+
+    @Test
+    public void run_willThrowException_whenFailureHandlerFails() {
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFailedFuture(putException(StatusCode.INVALID_REQUEST)));
+
+        thrown.expect(IndexException.class);
+        thrown.expectMessage("index/id1: INVALID_REQUEST");
+
+        new IndexPutOperation(index, documents("id1"), retryPolicy, IndexFailureHandler.FAIL).run();
+    }
+
+    @Test
+    public void run_willRetryTransientFailures_beforeFailureHandlerFails() {
+        PutResponse response = putResponse(StatusCode.OK);
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFailedFuture(putException(StatusCode.INVALID_REQUEST, StatusCode.TRANSIENT_ERROR)))
+                .thenReturn(Futures.immediateFuture(response));
+
+        thrown.expect(IndexException.class);
+        thrown.expectMessage("index/id1: INVALID_REQUEST");
+
+        try {
+            new IndexPutOperation(index, documents("id1", "id2"), retryPolicy, IndexFailureHandler.FAIL).run();
+        } finally {
+            verify(index, times(2)).putAsync(anyList());
+        }
+    }
+
+    @Test
+    public void complete_willReturnFailures_withoutCallingFailureHandler() {
+        when(index.putAsync(anyList()))
+                .thenReturn(Futures.immediateFailedFuture(putException(StatusCode.INVALID_REQUEST)));
+
+        List<IndexFailure> result = new IndexPutOperation(index, documents("id1"), retryPolicy, failures::addAll).complete();
+
+        assertThat(result).extracting(IndexFailure::getDocumentId).containsExactly("id1");
+        assertThat(failures).isEmpty();
+    }
+
+    private static List<Document> documents(String... ids) {
+        return Arrays.stream(ids)
+                .map(id -> Document.newBuilder().setId(id).build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<OperationResult> results(StatusCode... codes) {
+        return Arrays.stream(codes)
+                .map(code -> new OperationResult(code, code.name()))
+                .collect(Collectors.toList());
+    }
+
+    private static PutException putException(StatusCode... codes) {
+        return new PutException(new OperationResult(StatusCode.TRANSIENT_ERROR, "failed"), results(codes), Collections.emptyList());
+    }
+
+    private static PutResponse putResponse(StatusCode... codes) {
+        PutResponse response = mock(PutResponse.class);
+        when(response.getResults()).thenReturn(results(codes));
+        return response;
+    }
+}
@@ -0,0 +1,225 @@
+package org.springframework.contrib.gae.search.query;
+
+import com.google.appengine.api.search.Cursor;
+import com.google.appengine.api.search.GeoPoint;
+import com.google.appengine.api.search.QueryOptions;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.search.Operator;
+import org.springframework.contrib.gae.search.TestSearchEntity;
+import org.springframework.contrib.gae.search.conversion.DefaultSearchConversionService;
+import org.springframework.contrib.gae.search.metadata.SearchMetadata;
+import org.springframework.core.convert.ConversionService;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+public class QueryCompilerIntegrationTest extends ObjectifyTest {
+    @Autowired
+    private SearchMetadata searchMetadata;
+
+    private ConversionService conversionService = new DefaultSearchConversionService();
+
+    private QueryCompiler compiler;
+
+    @Before
+    public void setUp() {
+        compiler = new QueryCompiler(searchMetadata, conversionService);
+    }
+
+    @Test
+    public void apply() {
+        Query<TestSearchEntity> query = query()
+                .filter("stringField", Operator.EQUAL, "stringValue")
+                .filter("longField", Operator.GREATER_THAN, 3)
+                .filterIn("id", "id1", "id2")
+                .order("stringField", DESC)
+                .skip(1)
+                .limit(3)
+                .build();
+
+        com.google.appengine.api.search.Query compiled = compiler.apply(query);
+
+        assertThat(compiled.getQueryString())
+                .isEqualTo("stringField=\"stringValue\" longField>3.0 id:(\"id1\" OR \"id2\")");
+        assertThat(compiled.getOptions().getOffset()).isEqualTo(1);
+        assertThat(compiled.getOptions().getLimit()).isEqualTo(3);
+        assertThat(compiled.getOptions().getSortOptions().getSortExpressions()).hasSize(1);
+    }
+
+    @Test
+    public void apply_willWriteRawFragments() {
+        Query<TestSearchEntity> query = query()
+                .filter("Some filter")
+                .filter("stringField", Operator.STEM, "likeValue")
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString()).isEqualTo("Some filter stringField=~\"likeValue\"");
+    }
+
+    @Test
+    public void apply_willEscapeQuotes() {
+        Query<TestSearchEntity> query = query()
+                .filter("stringField", Operator.EQUAL, "va\"l\"ue")
+                .filter("stringField", Operator.EQUAL, new String[]{"value1", "\"quote\""})
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString())
+                .isEqualTo("stringField=\"va\\\"l\\\"ue\" stringField:(\"value1\" OR \"\\\"quote\\\"\")");
+    }
+
+    @Test
+    public void apply_willJoinValues_whenValueIsArrayOrCollection() {
+        Query<TestSearchEntity> query = query()
+                .filter("stringField", Operator.EQUAL, new String[]{"value1", "value2"})
+                .filter("stringField", Operator.EQUAL, Arrays.asList("value3", "value4"))
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString())
+                .isEqualTo("stringField:(\"value1\" OR \"value2\") stringField:(\"value3\" OR \"value4\")");
+    }
+
+    @Test
+    public void apply_willConvertGeoPoints() {
+        Query<TestSearchEntity> query = query()
+                .filter("geoPointField", Operator.EQUAL, new GeoPoint(-33.8624313, 151.1956613))
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString()).isEqualTo("geoPointField=geopoint(-33.8624313, 151.1956613)");
+    }
+
+    @Test
+    public void apply_willConvertOffsetDates() {
+        Query<TestSearchEntity> query = query()
+                .filter("offsetDateTimeField", Operator.EQUAL, OffsetDateTime.parse("2017-01-01T01:02:03Z"))
+                .filter("offsetDateTimeField", Operator.EQUAL, OffsetDateTime.parse("2017-01-01T01:02:03.567Z"))
+                .filter("offsetDateTimeAsDateField", Operator.EQUAL, OffsetDateTime.parse("2017-01-01T01:02:03Z"))
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString())
+                .isEqualTo("offsetDateTimeField=1483232.523 offsetDateTimeField=1483232.523567 offsetDateTimeAsDateField=2017-01-01");
+    }
+
+    @Test
+    public void apply_willConvertZonedDates() {
+        Query<TestSearchEntity> query = query()
+                .filter("zonedDateTimeField", Operator.EQUAL, ZonedDateTime.parse("2017-01-01T01:02:03Z"))
+                .filter("zonedDateTimeField", Operator.EQUAL, ZonedDateTime.parse("2017-01-01T01:02:03.567Z"))
+                .filter("zonedDateTimeAsDateField", Operator.EQUAL, ZonedDateTime.parse("2017-01-01T01:02:03Z"))
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString())
+                .isEqualTo("zonedDateTimeField=1483232.523 zonedDateTimeField=1483232.523567 zonedDateTimeAsDateField=2017-01-01");
+    }
+
+    @Test
+    public void apply_willConvertLocalDates() {
+        Query<TestSearchEntity> query = query()
+                .filter("localDateField", Operator.EQUAL, LocalDate.parse("2017-06-01"))
+                .filter("localDateField", Operator.GREATER_THAN, LocalDate.parse("2017-06-01"))
+                .build();
+
+        assertThat(compiler.apply(query).getQueryString()).isEqualTo("localDateField=2017-06-01 localDateField>2017-06-01");
+    }
+
+    @Test
+    public void apply_willSetLimitDefault_andSkip_whenLimitNotSupplied() {
+        QueryOptions options = compiler.apply(query().skip(20).build()).getOptions();
+
+        assertThat(options.getLimit()).isEqualTo(searchMetadata.getDefaultLimit());
+        assertThat(options.getOffset()).isEqualTo(20);
+    }
+
+    @Test
+    public void apply_willPrioritiseCursor_whenSuppliedWithSkip() {
+        Cursor cursor = Cursor.newBuilder().build();
+
+        QueryOptions options = compiler.apply(query().setCursor(cursor).skip(101).build()).getOptions();
+
+        assertThat(options.getCursor()).isSameAs(cursor);
+        assertThat(options.getOffset()).isEqualTo(0);
+    }
+
+    @Test
+    public void apply_willUseFilterValues_whenQueryShapeIsCached() {
+        compiler.apply(query().filter("stringField", Operator.EQUAL, "first").build());
+
+        com.google.appengine.api.search.Query compiled = compiler.apply(query().filter("stringField", Operator.EQUAL, "second").build());
+
+        assertThat(compiled.getQueryString()).isEqualTo("stringField=\"second\"");
+    }
+
+    @Test
+    public void prepare_willBindParameters() {
+        PreparedQuery<TestSearchEntity> prepared = compiler.prepare(query()
+                .filter("stringField", Operator.EQUAL, QueryParameter.named("name"))
+                .filter("longField", Operator.GREATER_THAN, QueryParameter.named("min"))
+                .filter(QueryParameter.named("raw"))
+                .build());
+
+        assertThat(prepared.getParameterNames()).containsExactly("name", "min", "raw");
+        assertThat(prepared.bind(ImmutableMap.of("name", "va\"lue", "min", 3, "raw", "stringArrayField:x")).getQueryString())
+                .isEqualTo("stringField=\"va\\\"lue\" longField>3.0 stringArrayField:x");
+        assertThat(prepared.bind(ImmutableMap.of("name", Arrays.asList("a", "b"), "min", 4L, "raw", "")).getQueryString())
+                .isEqualTo("stringField:(\"a\" OR \"b\") longField>4.0 ");
+    }
+
+    @Test
+    public void prepare_willChangePaging_withoutChangingPreparedQuery() {
+        PreparedQuery<TestSearchEntity> prepared = compiler.prepare(query()
+                .filter("stringField", Operator.EQUAL, "value")
+                .limit(5)
+                .build());
+
+        PreparedQuery<TestSearchEntity> page = prepared.withSkip(10).withLimit(20);
+
+        assertThat(page.bind(Collections.emptyMap()).getOptions().getOffset()).isEqualTo(10);
+        assertThat(page.bind(Collections.emptyMap()).getOptions().getLimit()).isEqualTo(20);
+        assertThat(prepared.bind(Collections.emptyMap()).getOptions().getOffset()).isEqualTo(0);
+        assertThat(prepared.bind(Collections.emptyMap()).getOptions().getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    public void bind_willThrowException_whenParameterIsNotBound() {
+        PreparedQuery<TestSearchEntity> prepared = compiler.prepare(query()
+                .filter("stringField", Operator.EQUAL, QueryParameter.named("name"))
+                .build());
+
+        assertThatThrownBy(() -> prepared.bind(Collections.emptyMap()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(":name");
+    }
+
+    @Test
+    public void retrieveIdsOnly_willThrowException_whenProjectionIsSet() {
+        QueryBuilder<TestSearchEntity> builder = query().project("stringField");
+
+        assertThatThrownBy(builder::retrieveIdsOnly)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void project_willTurnOffIdsOnly() {
+        Query<TestSearchEntity> query = query()
+                .retrieveIdsOnly()
+                .project("stringField")
+                .build();
+
+        assertThat(compiler.apply(query).getOptions().isReturningIdsOnly()).isFalse();
+        assertThat(compiler.apply(query).getOptions().getFieldsToReturn()).hasSize(1);
+    }
+
+    private QueryImpl<TestSearchEntity> query() {
+        return new QueryImpl<>(TestSearchEntity.class);
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.contrib.gae.objectify.ObjectifyTest;
+import org.springframework.contrib.gae.objectify.repository.EntityCaches;
+import org.springframework.contrib.gae.objectify.repository.MissingKeyCache;
+import org.springframework.contrib.gae.objectify.repository.MissingKeysCached;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,6 +20,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -117,6 +121,50 @@ public class GaeUserDetailsManagerTest extends ObjectifyTest {
         assertThat(manager.userExists(username)).isFalse();
     }
 
+    @Test
+    public void userExists_willNotReadAgain_whenUserWasRecentlyMissing() {
+        MissingKeyCache missingKeyCache = new MissingKeyCache(100, 1, TimeUnit.MINUTES);
+        manager.setMissingKeyCache(missingKeyCache);
+
+        assertThat(manager.userExists("ghost")).isFalse();
+        ofy().save().entity(new TestUserEntity("ghost", TEST_USER_PASSWORD)).now();
+
+        assertThat(manager.userExists("ghost")).isFalse();
+        assertThat(missingKeyCache.getStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void userExists_willBypassMissingKeyCache_whenInTransaction() {
+        MissingKeyCache missingKeyCache = new MissingKeyCache(100, 1, TimeUnit.MINUTES);
+        manager.setMissingKeyCache(missingKeyCache);
+
+        assertThat(manager.userExists("ghost")).isFalse();
+        ofy().save().entity(new TestUserEntity("ghost", TEST_USER_PASSWORD)).now();
+
+        assertThat(ofy().transact(() -> manager.userExists("ghost"))).isTrue();
+        assertThat(missingKeyCache.getStats().hitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getMissingKeyCache_willBeSharedWithRepositories_whenUserClassIsAnnotated() {
+        GaeUserDetailsManager<CachedUserEntity> cachingManager = new GaeUserDetailsManager<>(CachedUserEntity.class, null, passwordEncoder);
+
+        assertThat(cachingManager.getMissingKeyCache())
+                .isNotNull()
+                .isSameAs(EntityCaches.shared().getMissingKeyCache(CachedUserEntity.class));
+        assertThat(manager.getMissingKeyCache()).isNull();
+    }
+
+    @Test
+    public void userExists_willFindUser_whenCreatedAfterBeingMissing() {
+        manager.setMissingKeyCache(new MissingKeyCache(100, 1, TimeUnit.MINUTES));
+
+        assertThat(manager.userExists("bar")).isFalse();
+        manager.createUser(User.withUsername("bar").password("password").roles("USER").build());
+
+        assertThat(manager.userExists("bar")).isTrue();
+    }
+
     @Test
     public void deleteUser_willDeleteUser_whenUserExists() {
         assertThat(manager.userExists(userEntity.getUsername())).isTrue();
@@ -192,4 +240,11 @@ public class GaeUserDetailsManagerTest extends ObjectifyTest {
         ofy().save().entity(entity).now();
         return entity;
     }
+
+    @MissingKeysCached
+    private static class CachedUserEntity extends TestUserEntity {
+        CachedUserEntity() {
+            super("cached", TEST_USER_PASSWORD);
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package org.springframework.contrib.gae.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CompositeRunnableTest {
+
+    @Test
+    public void run_willRunEveryRunnable_inOrder() {
+        List<Integer> calls = new ArrayList<>();
+
+        CompositeRunnable.of(() -> calls.add(1), () -> calls.add(2), () -> calls.add(3)).run();
+
+        assertThat(calls).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void run_willRunRemainingRunnables_andThrowFirstFailure_whenRunnablesFail() {
+        List<Integer> calls = new ArrayList<>();
+        IllegalStateException first = new IllegalStateException("first");
+        IllegalArgumentException second = new IllegalArgumentException("second");
+
+        Throwable thrown = catchThrowable(() -> CompositeRunnable.of(
+                () -> {
+                    throw first;
+                },
+                () -> calls.add(2),
+                () -> {
+                    throw second;
+                },
+                () -> calls.add(4)).run());
+
+        assertThat(thrown).isSameAs(first);
+        assertThat(thrown.getSuppressed()).containsExactly(second);
+        assertThat(calls).containsExactly(2, 4);
+    }
+}